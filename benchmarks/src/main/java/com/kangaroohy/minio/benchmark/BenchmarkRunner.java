@@ -0,0 +1,29 @@
+package com.kangaroohy.minio.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 类 BenchmarkRunner 功能描述：<br/>
+ * benchmarks.jar 入口，参数与 JMH 命令行一致，默认附加 GC 分配统计（-prof gc）
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/26 11:50
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams() || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.kangaroohy.minio.benchmark;
+
+import com.kangaroohy.minio.configuration.MinioProperties;
+import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.service.client.MinioClientProvider;
+import com.kangaroohy.minio.service.client.MinioClientProviderImpl;
+import com.kangaroohy.minio.test.EmbeddedS3Server;
+
+import java.io.IOException;
+
+/**
+ * 类 BenchmarkSupport 功能描述：<br/>
+ * 按基准测试需要启动进程内的 EmbeddedS3Server，并构建指向它的 MinioService；配置了 region，预签名不会发起请求
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/26 10:10
+ */
+public class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    public static final String BUCKET = "bench";
+
+    public static final String ACCESS_KEY = "benchmark";
+
+    public static final String SECRET_KEY = "benchmark-secret";
+
+    public static final String REGION = "us-east-1";
+
+    /**
+     * 启动 EmbeddedS3Server 并创建 {@link #BUCKET}；关闭签名校验，避免服务端开销计入客户端耗时
+     */
+    public static EmbeddedS3Server server() throws IOException {
+        return new EmbeddedS3Server(ACCESS_KEY, SECRET_KEY, REGION)
+                .setVerifySignatures(false)
+                .start()
+                .createBucket(BUCKET);
+    }
+
+    public static MinioProperties properties(String endpoint) {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint(endpoint);
+        properties.setAccessKey(ACCESS_KEY);
+        properties.setSecretKey(SECRET_KEY);
+        properties.setBucketName(BUCKET);
+        properties.setRegion(REGION);
+        return properties;
+    }
+
+    public static MinioService minioService(MinioProperties properties) {
+        MinioClientProvider provider = new MinioClientProviderImpl();
+        return new MinioService(properties,
+                provider.getAsyncClient(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey(), properties.getRegion()),
+                provider.getClient(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey(), properties.getRegion()));
+    }
+}
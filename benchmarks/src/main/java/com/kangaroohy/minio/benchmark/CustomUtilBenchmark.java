@@ -0,0 +1,41 @@
+package com.kangaroohy.minio.benchmark;
+
+import com.kangaroohy.minio.utils.CustomUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 CustomUtilBenchmark 功能描述：<br/>
+ * 每次上传、签名都会调用的路径及请求头工具方法
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/26 10:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomUtilBenchmark {
+
+    @Param({"report.pdf", "/tenant/2024/06/report.pdf"})
+    public String objectName;
+
+    @Benchmark
+    public String getPath() {
+        return CustomUtil.getPath(objectName);
+    }
+
+    @Benchmark
+    public String getObjectName() {
+        return CustomUtil.getObjectName(objectName);
+    }
+
+    @Benchmark
+    public Object getHeader() {
+        return CustomUtil.getHeader("application/pdf");
+    }
+}
@@ -0,0 +1,61 @@
+package com.kangaroohy.minio.benchmark;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.test.EmbeddedS3Server;
+import io.minio.messages.Item;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 ListObjectsBenchmark 功能描述：<br/>
+ * listObjects 一次性加载与 streamObjects 懒加载的耗时及内存分配对比
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/26 11:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListObjectsBenchmark {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @Param({"1000", "10000"})
+    public int objects;
+
+    private EmbeddedS3Server server;
+
+    private MinioService minioService;
+
+    @Setup
+    public void setup() throws IOException {
+        server = BenchmarkSupport.server();
+        minioService = BenchmarkSupport.minioService(BenchmarkSupport.properties(server.getEndpoint()));
+        for (int i = 0; i < objects; i++) {
+            server.putObject(BenchmarkSupport.BUCKET, String.format("logs/%08d.log", i), EMPTY);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public List<Item> listObjects() throws MinioServiceException {
+        return minioService.listObjects(BenchmarkSupport.BUCKET, "logs/", true);
+    }
+
+    @Benchmark
+    public long streamObjects() {
+        return minioService.streamObjects(BenchmarkSupport.BUCKET, "logs/", true).count();
+    }
+}
@@ -0,0 +1,91 @@
+package com.kangaroohy.minio.benchmark;
+
+import com.kangaroohy.minio.configuration.MinioProperties;
+import com.kangaroohy.minio.entity.MultiPartUploadInfo;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.test.EmbeddedS3Server;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 类 PresignBenchmark 功能描述：<br/>
+ * 预签名相关：下载地址（可选缓存）、分片上传地址批量签名、表单上传签名。
+ * 分片上传在 @Setup 中初始化一次，配置了 region，测量期间不发起请求
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/26 10:45
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresignBenchmark {
+
+    @Param({"false", "true"})
+    public boolean urlCache;
+
+    @Param({"10", "1000"})
+    public int parts;
+
+    private EmbeddedS3Server server;
+
+    private MinioService minioService;
+
+    private String uploadId;
+
+    private List<Integer> partNumbers;
+
+    private List<Integer> remainingPartNumbers;
+
+    @Setup
+    public void setup() throws IOException, MinioServiceException {
+        server = BenchmarkSupport.server();
+        MinioProperties properties = BenchmarkSupport.properties(server.getEndpoint());
+        properties.getUrlCache().setEnabled(urlCache);
+        minioService = BenchmarkSupport.minioService(properties);
+        uploadId = minioService.initMultiPartUpload(BenchmarkSupport.BUCKET, "large.bin").uploadId();
+        partNumbers = IntStream.rangeClosed(1, parts).boxed().collect(Collectors.toList());
+        remainingPartNumbers = partNumbers.subList(parts / 2, parts);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public String getObjectUrl() throws MinioServiceException {
+        return minioService.getObjectUrl(BenchmarkSupport.BUCKET, "tenant/2024/06/report.pdf");
+    }
+
+    /**
+     * 续传：只签名后一半分片
+     */
+    @Benchmark
+    public MultiPartUploadInfo presignPartNumbers() throws MinioServiceException {
+        return minioService.getPresignedMultipartUploadUrlsByPartNumbers(uploadId, BenchmarkSupport.BUCKET, "large.bin", remainingPartNumbers);
+    }
+
+    /**
+     * 签名全部分片
+     */
+    @Benchmark
+    public MultiPartUploadInfo presignMultipartUpload() throws MinioServiceException {
+        return minioService.getPresignedMultipartUploadUrlsByPartNumbers(uploadId, BenchmarkSupport.BUCKET, "large.bin", partNumbers);
+    }
+
+    @Benchmark
+    public Map<String, String> getPresignedPostFormData() throws MinioServiceException {
+        return minioService.getPresignedPostFormData(BenchmarkSupport.BUCKET, "report.pdf");
+    }
+}
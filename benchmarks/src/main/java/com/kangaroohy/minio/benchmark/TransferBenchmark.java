@@ -0,0 +1,72 @@
+package com.kangaroohy.minio.benchmark;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.test.EmbeddedS3Server;
+import io.minio.ObjectWriteResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 TransferBenchmark 功能描述：<br/>
+ * putObject/getObject 在不同文件大小下的吞吐，数据经过本机回环到 EmbeddedS3Server
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/26 11:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    public int size;
+
+    private EmbeddedS3Server server;
+
+    private MinioService minioService;
+
+    private byte[] data;
+
+    private final byte[] buffer = new byte[64 * 1024];
+
+    @Setup
+    public void setup() throws IOException {
+        server = BenchmarkSupport.server();
+        minioService = BenchmarkSupport.minioService(BenchmarkSupport.properties(server.getEndpoint()));
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        server.putObject(BenchmarkSupport.BUCKET, "download.bin", data);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public ObjectWriteResponse putObject() throws MinioServiceException {
+        return minioService.putObject(BenchmarkSupport.BUCKET, "upload.bin", new ByteArrayInputStream(data));
+    }
+
+    @Benchmark
+    public long getObject() throws MinioServiceException, IOException {
+        long total = 0;
+        try (InputStream stream = minioService.getObject(BenchmarkSupport.BUCKET, "download.bin")) {
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                total += read;
+            }
+        }
+        return total;
+    }
+}
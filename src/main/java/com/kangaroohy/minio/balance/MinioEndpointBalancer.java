@@ -0,0 +1,295 @@
+package com.kangaroohy.minio.balance;
+
+import com.kangaroohy.minio.enums.BalanceStrategy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类 MinioEndpointBalancer 功能描述：<br/>
+ * 维护多个 MinIO 节点的状态并选择请求发往的节点：<br/>
+ * 1、随机取两个可用节点，按策略选择在途请求少或加权延迟低的一个<br/>
+ * 2、连续失败达到阈值的节点被摘除一段时间，到期后重新参与选择，成功一次即恢复<br/>
+ * 3、后台定时探活，探活失败的节点摘除，直到探活成功<br/>
+ * 所有节点均不可用时仍从全部节点中选择，不直接拒绝请求
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 14:10
+ */
+@Slf4j
+public class MinioEndpointBalancer implements AutoCloseable {
+
+    /**
+     * 加权平均的衰减时间，越小对延迟变化越敏感
+     */
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final List<Node> nodes;
+
+    private final BalanceStrategy strategy;
+
+    private final int failureThreshold;
+
+    private final long ejectionNanos;
+
+    private final String healthCheckPath;
+
+    private final OkHttpClient probeClient;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param endpoints           节点地址
+     * @param strategy            负载均衡策略
+     * @param failureThreshold    连续失败多少次后摘除
+     * @param ejectionTime        摘除时长
+     * @param healthCheckPath     探活路径
+     * @param healthCheckInterval 探活间隔，为 null 或 0 时不探活
+     * @param healthCheckTimeout  探活超时
+     */
+    public MinioEndpointBalancer(List<String> endpoints, BalanceStrategy strategy, int failureThreshold, Duration ejectionTime,
+                                 String healthCheckPath, Duration healthCheckInterval, Duration healthCheckTimeout) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("endpoints must not be empty");
+        }
+        List<Node> list = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            list.add(new Node(parse(endpoint)));
+        }
+        this.nodes = Collections.unmodifiableList(list);
+        this.strategy = strategy;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.ejectionNanos = ejectionTime.toNanos();
+        this.healthCheckPath = healthCheckPath;
+        if (healthCheckInterval == null || healthCheckInterval.isZero() || healthCheckInterval.isNegative()) {
+            this.probeClient = null;
+            this.scheduler = null;
+            return;
+        }
+        this.probeClient = new OkHttpClient.Builder()
+                .connectTimeout(healthCheckTimeout)
+                .readTimeout(healthCheckTimeout)
+                .callTimeout(healthCheckTimeout)
+                .retryOnConnectionFailure(false)
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "minio-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::probeAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 选择一个节点，调用方须在请求结束后调用 {@link Node#release(long, boolean)}
+     */
+    public Node acquire() {
+        long now = System.nanoTime();
+        Node selected;
+        if (nodes.size() == 1) {
+            selected = nodes.get(0);
+        } else {
+            List<Node> candidates = available(now);
+            if (candidates.isEmpty()) {
+                candidates = nodes;
+            }
+            selected = candidates.size() == 1 ? candidates.get(0) : pickOfTwo(candidates, now);
+        }
+        selected.outstanding.incrementAndGet();
+        return selected;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 立即探活所有节点
+     */
+    public void probeAll() {
+        if (probeClient == null) {
+            return;
+        }
+        for (Node node : nodes) {
+            Request request = new Request.Builder().url(node.url.resolve(healthCheckPath)).get().build();
+            boolean healthy;
+            try (Response response = probeClient.newCall(request).execute()) {
+                healthy = response.isSuccessful();
+            } catch (Exception e) {
+                healthy = false;
+            }
+            if (healthy != node.probeHealthy) {
+                log.warn("minio node {} health check {}", node.url, healthy ? "recovered" : "failed");
+            }
+            node.probeHealthy = healthy;
+            if (healthy) {
+                node.consecutiveFailures.set(0);
+                node.ejectedUntil = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            probeClient.dispatcher().executorService().shutdown();
+            probeClient.connectionPool().evictAll();
+        }
+    }
+
+    private List<Node> available(long now) {
+        List<Node> candidates = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (node.isAvailable(now)) {
+                candidates.add(node);
+            }
+        }
+        return candidates;
+    }
+
+    private Node pickOfTwo(List<Node> candidates, long now) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = candidates.size();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Node a = candidates.get(first);
+        Node b = candidates.get(second);
+        return score(a, now) <= score(b, now) ? a : b;
+    }
+
+    private double score(Node node, long now) {
+        int outstanding = node.outstanding.get();
+        if (strategy == BalanceStrategy.LEAST_OUTSTANDING) {
+            return outstanding;
+        }
+        return node.ewma(now) * (outstanding + 1);
+    }
+
+    private static HttpUrl parse(String endpoint) {
+        HttpUrl url = HttpUrl.parse(endpoint);
+        if (url == null) {
+            url = HttpUrl.parse("http://" + endpoint);
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("invalid endpoint: " + endpoint);
+        }
+        return url;
+    }
+
+    /**
+     * 节点状态
+     */
+    public final class Node {
+
+        private final HttpUrl url;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        /**
+         * 加权平均延迟（纳秒），0 表示尚无样本
+         */
+        private volatile double ewmaNanos;
+
+        private volatile long lastUpdate = System.nanoTime();
+
+        private volatile long ejectedUntil;
+
+        private volatile boolean probeHealthy = true;
+
+        private Node(HttpUrl url) {
+            this.url = url;
+        }
+
+        public HttpUrl getUrl() {
+            return url;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        /**
+         * 加权平均延迟（毫秒）
+         */
+        public double getLatencyMillis() {
+            return ewmaNanos / 1_000_000d;
+        }
+
+        public boolean isAvailable() {
+            return isAvailable(System.nanoTime());
+        }
+
+        /**
+         * 请求被调用方取消（如对冲读取的落败请求），只归还在途计数，不计入延迟与失败
+         */
+        public void releaseCanceled() {
+            outstanding.decrementAndGet();
+        }
+
+        /**
+         * 请求结束
+         *
+         * @param elapsedNanos 耗时
+         * @param success      是否成功，连接失败及 502/503/504 视为失败
+         */
+        public void release(long elapsedNanos, boolean success) {
+            outstanding.decrementAndGet();
+            long now = System.nanoTime();
+            synchronized (this) {
+                double previous = ewmaNanos;
+                if (previous == 0) {
+                    ewmaNanos = elapsedNanos;
+                } else {
+                    double weight = Math.exp(-(double) (now - lastUpdate) / DECAY_NANOS);
+                    ewmaNanos = previous * weight + elapsedNanos * (1 - weight);
+                }
+                lastUpdate = now;
+            }
+            if (success) {
+                consecutiveFailures.set(0);
+                ejectedUntil = 0;
+            } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                if (ejectedUntil == 0) {
+                    log.warn("minio node {} ejected after {} consecutive failures", url, consecutiveFailures.get());
+                }
+                ejectedUntil = now + ejectionNanos;
+            }
+        }
+
+        private boolean isAvailable(long now) {
+            long until = ejectedUntil;
+            return probeHealthy && (until == 0 || now - until >= 0);
+        }
+
+        /**
+         * 长时间无请求时延迟向 0 衰减，使慢节点恢复后能重新得到流量
+         */
+        private double ewma(long now) {
+            double value = ewmaNanos;
+            if (value == 0) {
+                return 0;
+            }
+            return value * Math.exp(-(double) (now - lastUpdate) / DECAY_NANOS);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.kangaroohy.minio.balance;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * 类 MinioLoadBalancingInterceptor 功能描述：<br/>
+ * 将发往 endpoint 的请求改发到 {@link MinioEndpointBalancer} 选出的节点，只替换协议、主机与端口，
+ * 请求头中已签名的 Host 保持为 endpoint，因此签名与预签名地址（包括 address 替换）都不受影响。
+ * 发往其他地址的请求（如命名客户端）原样放行；被调用方取消的请求不计入节点失败
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 14:40
+ */
+public class MinioLoadBalancingInterceptor implements Interceptor {
+
+    private final HttpUrl endpoint;
+
+    private final MinioEndpointBalancer balancer;
+
+    public MinioLoadBalancingInterceptor(String endpoint, MinioEndpointBalancer balancer) {
+        HttpUrl url = HttpUrl.parse(endpoint);
+        this.endpoint = url != null ? url : HttpUrl.get("http://" + endpoint);
+        this.balancer = balancer;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl url = request.url();
+        if (!url.host().equals(endpoint.host()) || url.port() != endpoint.port()) {
+            return chain.proceed(request);
+        }
+        MinioEndpointBalancer.Node node = balancer.acquire();
+        HttpUrl target = url.newBuilder()
+                .scheme(node.getUrl().scheme())
+                .host(node.getUrl().host())
+                .port(node.getUrl().port())
+                .build();
+        Request.Builder builder = request.newBuilder().url(target);
+        if (request.header("Host") == null) {
+            builder.header("Host", hostHeader(url));
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Response response = chain.proceed(builder.build());
+            int code = response.code();
+            success = code != 502 && code != 503 && code != 504;
+            return response;
+        } finally {
+            if (!success && chain.call().isCanceled()) {
+                // 取消引起的 IOException 与节点健康无关
+                node.releaseCanceled();
+            } else {
+                node.release(System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    private static String hostHeader(HttpUrl url) {
+        return url.port() == HttpUrl.defaultPort(url.scheme()) ? url.host() : url.host() + ":" + url.port();
+    }
+}
@@ -1,17 +1,67 @@
 package com.kangaroohy.minio.configuration;
 
+import com.kangaroohy.minio.balance.MinioEndpointBalancer;
+import com.kangaroohy.minio.balance.MinioLoadBalancingInterceptor;
 import com.kangaroohy.minio.constant.MinioConstant;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.metrics.MinioHttpClientMetrics;
+import com.kangaroohy.minio.metrics.MinioMetricsInterceptor;
+import com.kangaroohy.minio.metrics.MinioMultipartReaperMetrics;
+import com.kangaroohy.minio.metrics.MinioObjectCacheMetrics;
+import com.kangaroohy.minio.retry.MinioRetryInterceptor;
+import com.kangaroohy.minio.service.AsyncMinioService;
 import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.service.MinioServiceRegistry;
+import com.kangaroohy.minio.service.cache.DiskObjectCache;
+import com.kangaroohy.minio.service.cache.ObjectCache;
+import com.kangaroohy.minio.service.cache.OffHeapObjectCache;
 import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
 import com.kangaroohy.minio.service.client.MinioClientProvider;
 import com.kangaroohy.minio.service.client.MinioClientProviderImpl;
+import com.kangaroohy.minio.service.multipart.FileMultipartSessionStore;
+import com.kangaroohy.minio.service.multipart.InMemoryMultipartSessionStore;
+import com.kangaroohy.minio.service.multipart.JdbcMultipartSessionStore;
+import com.kangaroohy.minio.service.multipart.MultipartSessionStore;
+import com.kangaroohy.minio.service.multipart.MultipartUploadReaper;
+import com.kangaroohy.minio.utils.ThreadUtil;
+import com.kangaroohy.minio.web.MinioResponseHelper;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.MinioClient;
+import io.minio.http.HttpUtils;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 类 MinioAutoConfiguration 功能描述：
@@ -26,33 +76,304 @@ import org.springframework.context.annotation.Configuration;
 @ConditionalOnProperty(prefix = MinioConstant.PREFIX, value = "enabled", matchIfMissing = true)
 public class MinioAutoConfiguration {
 
+    public static final String MINIO_HTTP_CLIENT = "minioHttpClient";
+
+    public static final String MINIO_EXECUTOR = "minioExecutor";
+
     private final MinioProperties properties;
 
     public MinioAutoConfiguration(MinioProperties properties) {
         this.properties = properties;
     }
 
+    /**
+     * MinioClient 与 MinioAsyncClient 共用的 HTTP 客户端，以 MinioHttpClient 类型注册，不作为 OkHttpClient 参与按类型注入；
+     * 容器关闭时关闭调度线程池并清空连接池
+     */
+    @Bean(name = MINIO_HTTP_CLIENT, destroyMethod = "close")
+    @ConditionalOnMissingBean(MinioHttpClient.class)
+    public MinioHttpClient minioHttpClient(ObjectProvider<MinioHttpClientCustomizer> customizers) {
+        MinioProperties.Http http = properties.getHttp();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+        OkHttpClient.Builder builder = HttpUtils.newDefaultHttpClient(http.getConnectTimeout().toMillis(), http.getWriteTimeout().toMillis(), http.getReadTimeout().toMillis())
+                .newBuilder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS));
+        if (http.isHttp2()) {
+            builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        }
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return new MinioHttpClient(builder.build());
+    }
+
+    /**
+     * 异步回调及本地计算任务使用的线程池，开启虚拟线程时每个任务一个虚拟线程；
+     * 也可自行注册同名 bean 替换
+     */
+    @Bean(name = MINIO_EXECUTOR, destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = MINIO_EXECUTOR)
+    @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".executor", value = "async-callbacks")
+    public ExecutorService minioExecutor() {
+        MinioProperties.Executor executor = properties.getExecutor();
+        return ThreadUtil.newExecutor("minio-executor", executor.getThreads(), executor.isVirtualThreads());
+    }
+
     @Bean
     @ConditionalOnMissingBean(MinioClientProvider.class)
-    public MinioClientProvider minioClientProvider() {
-        return new MinioClientProviderImpl();
+    public MinioClientProvider minioClientProvider(MinioHttpClient minioHttpClient,
+                                                   @Qualifier(MINIO_EXECUTOR) ObjectProvider<Executor> minioExecutor) {
+        MinioClientProviderImpl provider = new MinioClientProviderImpl(minioHttpClient.getHttpClient(), properties.getClientIdleTimeout(), minioExecutor.getIfAvailable());
+        // 默认客户端作为 bean 长期持有，不参与空闲移除
+        provider.pin(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey(), properties.getRegion());
+        return provider;
     }
 
     @Bean
     @ConditionalOnMissingBean(ExtendMinioAsyncClient.class)
     public ExtendMinioAsyncClient extendMinioAsyncClient(MinioClientProvider minioClientProvider) {
-        return minioClientProvider.getAsyncClient(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey());
+        return minioClientProvider.getAsyncClient(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey(), properties.getRegion());
     }
 
     @Bean
     @ConditionalOnMissingBean(MinioClient.class)
     public MinioClient minioClient(MinioClientProvider minioClientProvider) {
-        return minioClientProvider.getClient(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey());
+        return minioClientProvider.getClient(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey(), properties.getRegion());
     }
 
     @Bean
     @ConditionalOnMissingBean(MinioService.class)
-    public MinioService minioService(ExtendMinioAsyncClient extendMinioAsyncClient, MinioClient minioClient) {
-        return new MinioService(properties, extendMinioAsyncClient, minioClient);
+    public MinioService minioService(ExtendMinioAsyncClient extendMinioAsyncClient, MinioClient minioClient,
+                                     ObjectProvider<MultipartSessionStore> multipartSessionStore,
+                                     ObjectProvider<DiskObjectCache> objectCache,
+                                     ObjectProvider<OffHeapObjectCache> memoryCache,
+                                     @Qualifier(MINIO_EXECUTOR) ObjectProvider<Executor> minioExecutor) {
+        return new MinioService(properties, extendMinioAsyncClient, minioClient, multipartSessionStore.getIfAvailable(),
+                objectCache.getIfAvailable(), memoryCache.getIfAvailable(), minioExecutor.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(AsyncMinioService.class)
+    public AsyncMinioService asyncMinioService(ExtendMinioAsyncClient extendMinioAsyncClient,
+                                               @Qualifier(MINIO_EXECUTOR) ObjectProvider<Executor> minioExecutor,
+                                               ObjectProvider<ObjectCache> objectCaches) {
+        Executor executor = minioExecutor.getIfAvailable();
+        return new AsyncMinioService(properties, extendMinioAsyncClient, executor != null ? executor : ForkJoinPool.commonPool(),
+                objectCaches.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(MinioServiceRegistry.class)
+    public MinioServiceRegistry minioServiceRegistry(MinioClientProvider minioClientProvider,
+                                                     ObjectProvider<MultipartSessionStore> multipartSessionStore,
+                                                     @Qualifier(MINIO_EXECUTOR) ObjectProvider<Executor> minioExecutor) {
+        return new MinioServiceRegistry(properties, minioClientProvider, multipartSessionStore.getIfAvailable(), minioExecutor.getIfAvailable());
+    }
+
+    /**
+     * 幂等请求失败时退避重试，放在最外层，重试会再次经过指标统计与负载均衡
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".retry", value = "enabled", matchIfMissing = true)
+    public MinioHttpClientCustomizer minioRetryHttpClientCustomizer() {
+        MinioProperties.Retry retry = properties.getRetry();
+        return builder -> builder.addInterceptor(new MinioRetryInterceptor(retry.getMaxAttempts(), retry.getBaseDelay(), retry.getMaxDelay()));
+    }
+
+    /**
+     * 配置了多个节点时，在节点间负载均衡并摘除故障节点
+     */
+    @Configuration
+    @Conditional(OnBalanceEndpointsCondition.class)
+    static class MinioBalanceConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public MinioEndpointBalancer minioEndpointBalancer(MinioProperties properties) {
+            MinioProperties.Balance balance = properties.getBalance();
+            return new MinioEndpointBalancer(balance.getEndpoints(), balance.getStrategy(), balance.getFailureThreshold(), balance.getEjectionTime(),
+                    balance.getHealthCheckPath(), balance.getHealthCheckInterval(), balance.getHealthCheckTimeout());
+        }
+
+        /**
+         * 放在最内层，重试时每次重新选择节点
+         */
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        public MinioHttpClientCustomizer minioLoadBalancingHttpClientCustomizer(MinioProperties properties, MinioEndpointBalancer minioEndpointBalancer) {
+            return builder -> builder.addInterceptor(new MinioLoadBalancingInterceptor(properties.getEndpoint(), minioEndpointBalancer));
+        }
+    }
+
+    /**
+     * kangaroohy.minio.balance.endpoints 不为空，兼容列表与逗号分隔两种写法
+     */
+    static class OnBalanceEndpointsCondition extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            boolean configured = Binder.get(context.getEnvironment())
+                    .bind(MinioConstant.PREFIX + ".balance.endpoints", Bindable.listOf(String.class))
+                    .map(endpoints -> !endpoints.isEmpty())
+                    .orElse(false);
+            return configured ? ConditionOutcome.match("balance endpoints configured") : ConditionOutcome.noMatch("no balance endpoints");
+        }
+    }
+
+    /**
+     * 按 kangaroohy.minio.multipart-session.store 创建分片上传会话存储，自定义 MultipartSessionStore 时不生效
+     */
+    @Configuration
+    @ConditionalOnMissingBean(MultipartSessionStore.class)
+    static class MinioMultipartSessionConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".multipart-session", value = "store", havingValue = "memory")
+        public MultipartSessionStore inMemoryMultipartSessionStore() {
+            return new InMemoryMultipartSessionStore();
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".multipart-session", value = "store", havingValue = "file")
+        public MultipartSessionStore fileMultipartSessionStore(MinioProperties properties) throws MinioServiceException {
+            return new FileMultipartSessionStore(Paths.get(properties.getMultipartSession().getDirectory()));
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".multipart-session", value = "store", havingValue = "jdbc")
+        public MultipartSessionStore jdbcMultipartSessionStore(MinioProperties properties, DataSource dataSource) {
+            return new JdbcMultipartSessionStore(dataSource, properties.getMultipartSession().getTablePrefix());
+        }
+    }
+
+    /**
+     * 定时取消被放弃的分片上传
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".multipart-reaper", value = "enabled")
+    static class MinioMultipartReaperConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public MultipartUploadReaper multipartUploadReaper(MinioProperties properties, ExtendMinioAsyncClient extendMinioAsyncClient,
+                                                           ObjectProvider<MultipartSessionStore> multipartSessionStore) {
+            MinioProperties.MultipartReaper reaper = properties.getMultipartReaper();
+            List<String> buckets = reaper.getBuckets().isEmpty() && properties.getBucketName() != null
+                    ? Collections.singletonList(properties.getBucketName()) : reaper.getBuckets();
+            MultipartUploadReaper multipartUploadReaper = new MultipartUploadReaper(extendMinioAsyncClient, buckets, reaper.getMaxAge(),
+                    reaper.getConcurrency(), reaper.getAbortsPerSecond(), multipartSessionStore.getIfAvailable());
+            multipartUploadReaper.start(reaper.getInterval());
+            return multipartUploadReaper;
+        }
+
+        @Configuration
+        @ConditionalOnClass(MeterRegistry.class)
+        @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".metrics", value = "enabled", matchIfMissing = true)
+        static class MinioMultipartReaperMetricsConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public MinioMultipartReaperMetrics minioMultipartReaperMetrics(MultipartUploadReaper multipartUploadReaper) {
+                return new MinioMultipartReaperMetrics(multipartUploadReaper);
+            }
+        }
+    }
+
+    /**
+     * 默认客户端 getObject 的本地磁盘缓存
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".object-cache", value = "enabled")
+    static class MinioObjectCacheConfiguration {
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean
+        public DiskObjectCache diskObjectCache(MinioProperties properties) throws MinioServiceException {
+            MinioProperties.ObjectCache objectCache = properties.getObjectCache();
+            return new DiskObjectCache(Paths.get(objectCache.getDirectory()), objectCache.getMaxSize().toBytes(),
+                    objectCache.getMaxObjectSize().toBytes(), objectCache.getTtl().toMillis());
+        }
+
+        @Configuration
+        @ConditionalOnClass(MeterRegistry.class)
+        @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".metrics", value = "enabled", matchIfMissing = true)
+        static class MinioObjectCacheMetricsConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean(name = "minioObjectCacheMetrics")
+            public MinioObjectCacheMetrics minioObjectCacheMetrics(DiskObjectCache diskObjectCache) {
+                return new MinioObjectCacheMetrics(diskObjectCache, "disk");
+            }
+        }
+    }
+
+    /**
+     * 默认客户端 getObject 的小文件堆外内存缓存
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".memory-cache", value = "enabled")
+    static class MinioMemoryCacheConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public OffHeapObjectCache offHeapObjectCache(MinioProperties properties) {
+            MinioProperties.MemoryCache memoryCache = properties.getMemoryCache();
+            return new OffHeapObjectCache(memoryCache.getMaxSize().toBytes(), (int) Math.min(Integer.MAX_VALUE, memoryCache.getMaxObjectSize().toBytes()),
+                    memoryCache.getTtl().toMillis());
+        }
+
+        @Configuration
+        @ConditionalOnClass(MeterRegistry.class)
+        @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".metrics", value = "enabled", matchIfMissing = true)
+        static class MinioMemoryCacheMetricsConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean(name = "minioMemoryCacheMetrics")
+            public MinioObjectCacheMetrics minioMemoryCacheMetrics(OffHeapObjectCache offHeapObjectCache) {
+                return new MinioObjectCacheMetrics(offHeapObjectCache, "memory");
+            }
+        }
+    }
+
+    /**
+     * spring mvc 应用中提供支持 Range 的文件输出
+     */
+    @Configuration
+    @ConditionalOnClass(StreamingResponseBody.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class MinioWebConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public MinioResponseHelper minioResponseHelper(MinioService minioService) {
+            return new MinioResponseHelper(minioService);
+        }
+    }
+
+    /**
+     * classpath 中存在 Micrometer 时记录请求耗时、字节数及连接池指标
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = MinioConstant.PREFIX + ".metrics", value = "enabled", matchIfMissing = true)
+    static class MinioMetricsConfiguration {
+
+        /**
+         * 位于重试（最外层）与负载均衡（最内层）之间，每次重试都单独计入指标
+         */
+        @Bean
+        @Order(0)
+        public MinioHttpClientCustomizer minioMetricsHttpClientCustomizer(MinioProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+            boolean bucketTag = properties.getMetrics().isBucketTag();
+            return builder -> meterRegistry.ifAvailable(registry -> builder.addInterceptor(new MinioMetricsInterceptor(registry, bucketTag)));
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public MinioHttpClientMetrics minioHttpClientMetrics(MinioHttpClient minioHttpClient) {
+            return new MinioHttpClientMetrics(minioHttpClient.getHttpClient());
+        }
     }
 }
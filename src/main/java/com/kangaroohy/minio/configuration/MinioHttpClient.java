@@ -0,0 +1,48 @@
+package com.kangaroohy.minio.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+
+/**
+ * 类 MinioHttpClient 功能描述：<br/>
+ * MinioClient 与 MinioAsyncClient 共用的 OkHttpClient 的持有类型。以此类型注册 bean，
+ * 不会被其他组件按 OkHttpClient 类型注入，也不影响其他 starter 的 @ConditionalOnMissingBean(OkHttpClient.class)；
+ * 容器关闭时关闭调度线程池并清空连接池
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:10
+ */
+@Slf4j
+public class MinioHttpClient implements AutoCloseable {
+
+    private final OkHttpClient httpClient;
+
+    public MinioHttpClient(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 关闭调度线程池，已提交的异步请求继续执行完，清空空闲连接
+     */
+    @Override
+    public void close() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+        Cache cache = httpClient.cache();
+        if (cache != null) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.debug("Failed to close http cache", e);
+            }
+        }
+    }
+}
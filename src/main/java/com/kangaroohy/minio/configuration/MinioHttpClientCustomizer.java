@@ -0,0 +1,22 @@
+package com.kangaroohy.minio.configuration;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 类 MinioHttpClientCustomizer 功能描述：<br/>
+ * 共享 OkHttpClient 构建前的扩展点，可添加拦截器、事件监听等
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/22 10:05
+ */
+@FunctionalInterface
+public interface MinioHttpClientCustomizer {
+
+    /**
+     * 定制 OkHttpClient
+     *
+     * @param builder OkHttpClient.Builder
+     */
+    void customize(OkHttpClient.Builder builder);
+}
@@ -1,8 +1,17 @@
 package com.kangaroohy.minio.configuration;
 
 import com.kangaroohy.minio.constant.MinioConstant;
+import com.kangaroohy.minio.enums.BalanceStrategy;
+import com.kangaroohy.minio.enums.MultipartSessionStoreType;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 类 MinioProperties 功能描述：
@@ -40,4 +49,491 @@ public class MinioProperties {
      */
     private String bucketName;
 
+    /**
+     * 区域，配置后不再查询 bucket 所在区域，分片上传地址改为本地批量签名
+     */
+    private String region;
+
+    /**
+     * 命名客户端，key 为名称，用于连接多个集群；未配置的连接项沿用上面的默认值，其余配置（传输、HTTP、缓存等）共用
+     */
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    /**
+     * 命名客户端超过该时长未被获取时从缓存中移除（连同 MinioServiceRegistry 中对应的服务），默认客户端不移除，0 表示不移除
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 并行分片传输配置
+     */
+    private Transfer transfer = new Transfer();
+
+    /**
+     * 线程配置：并行传输的工作线程及异步回调线程
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * HTTP 连接配置，MinioClient 与 MinioAsyncClient 共用
+     */
+    private Http http = new Http();
+
+    /**
+     * 多节点负载均衡配置
+     */
+    private Balance balance = new Balance();
+
+    /**
+     * 失败重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 对冲读取配置
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 预签名下载地址缓存配置
+     */
+    private UrlCache urlCache = new UrlCache();
+
+    /**
+     * bucket 元数据缓存配置
+     */
+    private BucketCache bucketCache = new BucketCache();
+
+    /**
+     * 文件本地磁盘缓存配置，仅默认客户端生效
+     */
+    private ObjectCache objectCache = new ObjectCache();
+
+    /**
+     * 小文件堆外内存缓存配置，仅默认客户端生效
+     */
+    private MemoryCache memoryCache = new MemoryCache();
+
+    /**
+     * 分片上传会话存储配置
+     */
+    private MultipartSession multipartSession = new MultipartSession();
+
+    /**
+     * 被放弃的分片上传清理配置
+     */
+    private MultipartReaper multipartReaper = new MultipartReaper();
+
+    /**
+     * 指标配置，classpath 中存在 Micrometer 时生效
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 按命名客户端的连接配置生成该客户端使用的配置
+     *
+     * @param client 命名客户端配置
+     * @return 新的配置，连接项未配置时沿用当前值
+     */
+    public MinioProperties forClient(Client client) {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint(client.getEndpoint() != null ? client.getEndpoint() : endpoint);
+        properties.setAccessKey(client.getAccessKey() != null ? client.getAccessKey() : accessKey);
+        properties.setSecretKey(client.getSecretKey() != null ? client.getSecretKey() : secretKey);
+        properties.setAddress(client.getAddress() != null ? client.getAddress() : address);
+        properties.setBucketName(client.getBucketName() != null ? client.getBucketName() : bucketName);
+        properties.setRegion(client.getRegion() != null ? client.getRegion() : region);
+        properties.setClientIdleTimeout(clientIdleTimeout);
+        properties.setTransfer(transfer);
+        properties.setExecutor(executor);
+        properties.setHttp(http);
+        properties.setBalance(balance);
+        properties.setRetry(retry);
+        properties.setHedge(hedge);
+        properties.setUrlCache(urlCache);
+        properties.setBucketCache(bucketCache);
+        properties.setMultipartSession(multipartSession);
+        properties.setMultipartReaper(multipartReaper);
+        properties.setMetrics(metrics);
+        return properties;
+    }
+
+    @Data
+    public static class Client {
+
+        /**
+         * 连接地址
+         */
+        private String endpoint;
+
+        /**
+         * 用户名
+         */
+        private String accessKey;
+
+        /**
+         * 密码
+         */
+        private String secretKey;
+
+        /**
+         * 访问地址
+         */
+        private String address;
+
+        /**
+         * 默认的存储桶名称
+         */
+        private String bucketName;
+
+        /**
+         * 区域
+         */
+        private String region;
+    }
+
+    @Data
+    public static class Transfer {
+
+        /**
+         * 分片大小，不能小于 5MB
+         */
+        private DataSize partSize = DataSize.ofMegabytes(16);
+
+        /**
+         * 同时上传/下载的分片数
+         */
+        private int concurrency = 4;
+
+        /**
+         * 并行下载时单个分段的最多尝试次数
+         */
+        private int rangeRetries = 3;
+
+        /**
+         * 并行遍历时同时遍历的前缀数
+         */
+        private int listParallelism = 8;
+
+        /**
+         * 批量删除时同时发送的批次数（每批 1000 个）
+         */
+        private int deleteConcurrency = 4;
+
+        /**
+         * 上传本地文件时是否计算分片摘要（Content-MD5，http 下另有 SHA-256 载荷签名），
+         * 关闭后载荷使用 UNSIGNED-PAYLOAD；开启了对象锁定的 bucket 要求 Content-MD5，不能关闭
+         */
+        private boolean checksum = true;
+    }
+
+    @Data
+    public static class Executor {
+
+        /**
+         * 并行上传、下载、遍历的工作线程使用虚拟线程，需要 JDK 21 及以上，不支持时退回平台线程；
+         * 存在 minioExecutor 时上述任务改在 minioExecutor 中执行，不再每次调用创建线程池
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * 异步请求完成后的回调（响应解析及后续处理）切换到 minioExecutor 中执行，默认直接在 OkHttp 线程中执行
+         */
+        private boolean asyncCallbacks = false;
+
+        /**
+         * minioExecutor 的平台线程数，使用虚拟线程时每个任务一个虚拟线程，忽略该值
+         */
+        private int threads = Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    @Data
+    public static class Http {
+
+        /**
+         * 连接池最大空闲连接数
+         */
+        private int maxIdleConnections = 64;
+
+        /**
+         * 空闲连接保活时间
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /**
+         * 最大并发请求数
+         */
+        private int maxRequests = 256;
+
+        /**
+         * 单个 host 最大并发请求数
+         */
+        private int maxRequestsPerHost = 128;
+
+        /**
+         * 连接超时
+         */
+        private Duration connectTimeout = Duration.ofMinutes(5);
+
+        /**
+         * 读超时
+         */
+        private Duration readTimeout = Duration.ofMinutes(5);
+
+        /**
+         * 写超时
+         */
+        private Duration writeTimeout = Duration.ofMinutes(5);
+
+        /**
+         * 是否启用 HTTP/2（https 下通过 ALPN 协商）
+         */
+        private boolean http2 = false;
+    }
+
+    @Data
+    public static class Balance {
+
+        /**
+         * 节点地址，配置后发往 endpoint 的请求在这些节点间负载均衡，endpoint 仍用于签名及生成预签名地址
+         */
+        private List<String> endpoints = new ArrayList<>();
+
+        /**
+         * 负载均衡策略
+         */
+        private BalanceStrategy strategy = BalanceStrategy.LEAST_OUTSTANDING;
+
+        /**
+         * 连续失败多少次后摘除节点
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * 节点摘除时长
+         */
+        private Duration ejectionTime = Duration.ofSeconds(30);
+
+        /**
+         * 探活路径
+         */
+        private String healthCheckPath = "/minio/health/live";
+
+        /**
+         * 探活间隔，0 表示不探活
+         */
+        private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+        /**
+         * 探活超时
+         */
+        private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * 是否启用，只重试 GET、HEAD、PUT、DELETE。退避在执行请求的线程中等待，
+         * 异步请求等待期间占用 dispatcher 线程并计入 http.max-requests-per-host
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多尝试次数（含第一次）
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 第一次重试的退避上限，之后每次翻倍，实际退避在 [0, 上限] 内随机
+         */
+        private Duration baseDelay = Duration.ofMillis(100);
+
+        /**
+         * 单次退避的最大值
+         */
+        private Duration maxDelay = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否启用，启用后 getObject 及并行下载的分段读取超过阈值未返回时再发一次请求
+         */
+        private boolean enabled = false;
+
+        /**
+         * 以近期首字节耗时的该分位数作为对冲阈值
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲阈值下限
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * 样本不足时的对冲阈值
+         */
+        private Duration initialDelay = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class UrlCache {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最大缓存数量，超出时淘汰最久未访问的地址
+         */
+        private int maximumSize = 10000;
+
+        /**
+         * 剩余有效期占总有效期的最小比例，低于该比例时重新签名
+         */
+        private double minRemainingRatio = 0.5;
+    }
+
+    @Data
+    public static class BucketCache {
+
+        /**
+         * 是否启用，启用后其他途径对 bucket 的修改在有效期内不可见
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓存有效期
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class ObjectCache {
+
+        /**
+         * 是否启用，启用后 getObject 读取完整文件时优先使用本地缓存
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓存目录，每个实例使用其中独立的子目录，多个进程可共用；启动时清理已退出实例遗留的子目录
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/minio-object-cache";
+
+        /**
+         * 缓存总大小上限，超过时淘汰最久未访问的文件
+         */
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        /**
+         * 单个文件大小上限，超过时不缓存
+         */
+        private DataSize maxObjectSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 缓存有效期，超过后以 If-None-Match 向 minio 确认文件是否变化
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class MemoryCache {
+
+        /**
+         * 是否启用，启用后 getObject 读取完整文件时先读取内存缓存，再读取本地缓存（如已启用）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 堆外内存上限，按 1MB 申请，不小于 1MB
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 单个文件大小上限，超过时不缓存，不大于 1MB
+         */
+        private DataSize maxObjectSize = DataSize.ofKilobytes(64);
+
+        /**
+         * 缓存有效期，0 表示只在通过 MinioService、AsyncMinioService、ReactiveMinioService 写入、删除文件时失效
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class MultipartSession {
+
+        /**
+         * 存储方式，默认不记录
+         */
+        private MultipartSessionStoreType store = MultipartSessionStoreType.NONE;
+
+        /**
+         * 会话有效期，超过后删除会话，之后的查询回退到从 minio 列出分片
+         */
+        private Duration ttl = Duration.ofDays(7);
+
+        /**
+         * store 为 file 时的会话文件目录
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/minio-multipart-sessions";
+
+        /**
+         * store 为 jdbc 时的表名前缀
+         */
+        private String tablePrefix = "minio_multipart";
+    }
+
+    @Data
+    public static class MultipartReaper {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 需要清理的 bucket，未配置时使用 bucket-name
+         */
+        private List<String> buckets = new ArrayList<>();
+
+        /**
+         * 发起时间早于该时长的分片上传视为已放弃，需大于最长的正常上传耗时；配置了会话存储时需小于会话的 ttl
+         */
+        private Duration maxAge = Duration.ofHours(24);
+
+        /**
+         * 执行间隔，首次在启动一个间隔之后执行
+         */
+        private Duration interval = Duration.ofHours(1);
+
+        /**
+         * 同时进行的取消请求数
+         */
+        private int concurrency = 4;
+
+        /**
+         * 每秒最多发出的取消请求数，0 表示不限制
+         */
+        private double abortsPerSecond = 50;
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 请求指标是否打 bucket 标签，bucket 数量较多时会产生大量时间序列，默认关闭
+         */
+        private boolean bucketTag = false;
+    }
 }
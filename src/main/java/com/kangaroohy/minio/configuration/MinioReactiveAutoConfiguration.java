@@ -0,0 +1,39 @@
+package com.kangaroohy.minio.configuration;
+
+import com.kangaroohy.minio.service.ReactiveMinioService;
+import com.kangaroohy.minio.service.cache.ObjectCache;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.stream.Collectors;
+
+/**
+ * 类 MinioReactiveAutoConfiguration 功能描述：<br/>
+ * classpath 中存在 reactor 时提供 ReactiveMinioService，与 MinioService 共用同一个 MinioAsyncClient
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 18:10
+ */
+@Configuration
+@ConditionalOnClass(Flux.class)
+@ConditionalOnBean(ExtendMinioAsyncClient.class)
+@AutoConfigureAfter(MinioAutoConfiguration.class)
+public class MinioReactiveAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(ReactiveMinioService.class)
+    public ReactiveMinioService reactiveMinioService(MinioProperties properties, ExtendMinioAsyncClient extendMinioAsyncClient,
+                                                     ObjectProvider<ObjectCache> objectCaches) {
+        return new ReactiveMinioService(properties, extendMinioAsyncClient, DefaultDataBufferFactory.sharedInstance,
+                objectCaches.orderedStream().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.kangaroohy.minio.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 类 MultiPartSession 功能描述：<br/>
+ * 分片上传会话，记录 uploadId 对应的对象及已完成的分片，用于断点续传与合并
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:45
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiPartSession implements Serializable {
+    private static final long serialVersionUID = -4309862214771153720L;
+
+    private String uploadId;
+
+    private String bucketName;
+
+    private String objectName;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime expiryTime;
+
+    /**
+     * 已完成的分片，按 partNumber 升序
+     */
+    @Builder.Default
+    private List<MultiPartSessionPart> parts = new ArrayList<>();
+}
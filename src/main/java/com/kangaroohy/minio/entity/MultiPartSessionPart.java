@@ -0,0 +1,30 @@
+package com.kangaroohy.minio.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 类 MultiPartSessionPart 功能描述：<br/>
+ * 分片上传会话中已完成的分片
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:45
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiPartSessionPart implements Serializable {
+    private static final long serialVersionUID = 6213870915488132516L;
+
+    private int partNumber;
+
+    private String etag;
+
+    private long size;
+}
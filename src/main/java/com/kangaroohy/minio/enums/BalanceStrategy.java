@@ -0,0 +1,21 @@
+package com.kangaroohy.minio.enums;
+
+/**
+ * 类 BalanceStrategy 功能描述：<br/>
+ * 多节点负载均衡策略，均先随机取两个可用节点，再选择得分较低的一个
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 14:00
+ */
+public enum BalanceStrategy {
+    /**
+     * 在途请求数较少的节点
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * 指数加权平均延迟 ×（在途请求数 + 1）较小的节点，慢节点会自动少分流量
+     */
+    EWMA
+}
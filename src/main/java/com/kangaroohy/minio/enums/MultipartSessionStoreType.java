@@ -0,0 +1,31 @@
+package com.kangaroohy.minio.enums;
+
+/**
+ * 类 MultipartSessionStoreType 功能描述：<br/>
+ * 分片上传会话的存储方式
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:45
+ */
+public enum MultipartSessionStoreType {
+    /**
+     * 不记录，每次从 minio 列出分片
+     */
+    NONE,
+
+    /**
+     * 进程内存，仅适用于单实例
+     */
+    MEMORY,
+
+    /**
+     * 本地目录，每个会话一个追加写入的文件，多实例可挂载共享目录
+     */
+    FILE,
+
+    /**
+     * 数据库，使用容器中的 DataSource
+     */
+    JDBC
+}
@@ -0,0 +1,21 @@
+package com.kangaroohy.minio.exceptions;
+
+/**
+ * 类 UncheckedMinioServiceException 功能描述：<br/>
+ * 用于 Iterator / Stream 等无法抛出受检异常的场景，包装 MinioServiceException
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/24 09:30
+ */
+public class UncheckedMinioServiceException extends RuntimeException {
+
+    public UncheckedMinioServiceException(MinioServiceException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized MinioServiceException getCause() {
+        return (MinioServiceException) super.getCause();
+    }
+}
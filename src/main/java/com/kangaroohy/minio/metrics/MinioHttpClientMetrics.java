@@ -0,0 +1,47 @@
+package com.kangaroohy.minio.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * 类 MinioHttpClientMetrics 功能描述：<br/>
+ * 共享 OkHttpClient 的连接池（空闲/活跃连接数）及调度器（执行中/排队中的请求数）指标，
+ * 排队数持续大于 0 说明瓶颈在客户端并发上限而不是 MinIO
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/25 16:10
+ */
+public class MinioHttpClientMetrics implements MeterBinder {
+
+    private static final String PREFIX = "minio.http";
+
+    private final OkHttpClient httpClient;
+
+    public MinioHttpClientMetrics(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new OkHttpConnectionPoolMetrics(httpClient.connectionPool(), PREFIX + ".pool", Tags.empty()).bindTo(registry);
+        Dispatcher dispatcher = httpClient.dispatcher();
+        Gauge.builder(PREFIX + ".dispatcher.running", dispatcher, Dispatcher::runningCallsCount)
+                .description("Calls currently executing")
+                .register(registry);
+        Gauge.builder(PREFIX + ".dispatcher.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .description("Async calls waiting for a free slot")
+                .register(registry);
+        Gauge.builder(PREFIX + ".dispatcher.max.requests", dispatcher, Dispatcher::getMaxRequests)
+                .description("Maximum concurrent requests")
+                .register(registry);
+        Gauge.builder(PREFIX + ".dispatcher.max.requests.per.host", dispatcher, Dispatcher::getMaxRequestsPerHost)
+                .description("Maximum concurrent requests per host")
+                .register(registry);
+    }
+}
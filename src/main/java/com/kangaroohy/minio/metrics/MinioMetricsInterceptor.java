@@ -0,0 +1,170 @@
+package com.kangaroohy.minio.metrics;
+
+import com.kangaroohy.minio.utils.S3RequestUtil;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类 MinioMetricsInterceptor 功能描述：<br/>
+ * 记录每个 S3 请求的耗时（按操作、结果打标签，带百分位直方图）、上传/下载字节数、
+ * 分片大小分布及在途请求数。MinioService 的每个方法最终都落到一个或多个 S3 请求上，在这里统一计量。
+ * bucket 标签的取值不受限，默认不打，开启 bucketTag 后按 bucket 区分；下载字节数按实际读取的字节统计
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/25 15:40
+ */
+public class MinioMetricsInterceptor implements Interceptor {
+
+    public static final String REQUESTS = "minio.requests";
+
+    public static final String REQUESTS_ACTIVE = "minio.requests.active";
+
+    public static final String UPLOAD_BYTES = "minio.upload.bytes";
+
+    public static final String DOWNLOAD_BYTES = "minio.download.bytes";
+
+    public static final String PART_SIZE = "minio.multipart.part.size";
+
+    private final MeterRegistry registry;
+
+    /**
+     * 是否打 bucket 标签
+     */
+    private final boolean bucketTag;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    public MinioMetricsInterceptor(MeterRegistry registry) {
+        this(registry, false);
+    }
+
+    public MinioMetricsInterceptor(MeterRegistry registry, boolean bucketTag) {
+        this.registry = registry;
+        this.bucketTag = bucketTag;
+        Gauge.builder(REQUESTS_ACTIVE, active, AtomicInteger::get)
+                .description("In-flight MinIO requests")
+                .register(registry);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String operation = S3RequestUtil.operation(request);
+        String bucket = bucketTag ? S3RequestUtil.bucket(request) : null;
+        Tags tags = bucket != null ? Tags.of("operation", operation, "bucket", bucket) : Tags.of("operation", operation);
+        long start = System.nanoTime();
+        active.incrementAndGet();
+        Response response = null;
+        try {
+            response = chain.proceed(request);
+        } finally {
+            active.decrementAndGet();
+            record(request, response, operation, bucket, tags, System.nanoTime() - start);
+        }
+        ResponseBody body = response.body();
+        if ("GetObject".equals(operation) && response.isSuccessful() && body != null) {
+            // 响应体是流式读取的，按调用方实际读到的字节统计，提前关闭的流不会多计
+            Counter downloaded = Counter.builder(DOWNLOAD_BYTES)
+                    .description("Bytes downloaded from MinIO")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(registry);
+            return response.newBuilder().body(new CountingResponseBody(body, downloaded)).build();
+        }
+        return response;
+    }
+
+    private void record(Request request, Response response, String operation, String bucket, Tags tags, long elapsed) {
+        String outcome = response == null ? "IO_ERROR" : Outcome.forStatus(response.code()).name();
+        String status = response == null ? "IO_ERROR" : Integer.toString(response.code());
+        Timer.builder(REQUESTS)
+                .description("MinIO S3 request latency")
+                .tags(tags)
+                .tags("outcome", outcome, "status", status)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (response == null || !response.isSuccessful()) {
+            return;
+        }
+        long sent = "PutObject".equals(operation) || "UploadPart".equals(operation) ? contentLength(request) : -1;
+        if (sent > 0) {
+            Counter.builder(UPLOAD_BYTES)
+                    .description("Bytes uploaded to MinIO")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(registry)
+                    .increment(sent);
+            if ("UploadPart".equals(operation)) {
+                DistributionSummary.builder(PART_SIZE)
+                        .description("Size of uploaded multipart parts")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tags(bucket != null ? Tags.of("bucket", bucket) : Tags.empty())
+                        .register(registry)
+                        .record(sent);
+            }
+        }
+    }
+
+    /**
+     * 读取时累加下载字节数
+     */
+    private static final class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+
+        private final BufferedSource source;
+
+        private CountingResponseBody(ResponseBody delegate, Counter counter) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        counter.increment(read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    private static long contentLength(Request request) {
+        try {
+            return request.body() == null ? -1 : request.body().contentLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.kangaroohy.minio.metrics;
+
+import com.kangaroohy.minio.service.multipart.MultipartUploadReaper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 MinioMultipartReaperMetrics 功能描述：<br/>
+ * 分片上传清理指标：累计检查、取消、取消失败的分片上传数量，以及最近一次清理耗时
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 17:40
+ */
+public class MinioMultipartReaperMetrics implements MeterBinder {
+
+    private static final String PREFIX = "minio.multipart.reaper";
+
+    private final MultipartUploadReaper reaper;
+
+    public MinioMultipartReaperMetrics(MultipartUploadReaper reaper) {
+        this.reaper = reaper;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(PREFIX + ".scanned", reaper, MultipartUploadReaper::getScannedCount)
+                .description("Incomplete multipart uploads inspected")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".aborted", reaper, MultipartUploadReaper::getAbortedCount)
+                .description("Abandoned multipart uploads aborted")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".failed", reaper, MultipartUploadReaper::getFailedCount)
+                .description("Multipart upload aborts that failed")
+                .register(registry);
+        TimeGauge.builder(PREFIX + ".last.duration", reaper, TimeUnit.NANOSECONDS, r -> r.getLastRunDuration().toNanos())
+                .description("Duration of the most recent reap run")
+                .register(registry);
+    }
+}
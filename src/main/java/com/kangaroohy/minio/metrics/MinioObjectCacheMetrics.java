@@ -0,0 +1,79 @@
+package com.kangaroohy.minio.metrics;
+
+import com.kangaroohy.minio.service.cache.DiskObjectCache;
+import com.kangaroohy.minio.service.cache.ObjectCache;
+import com.kangaroohy.minio.service.cache.OffHeapObjectCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 类 MinioObjectCacheMetrics 功能描述：<br/>
+ * 文件缓存指标：命中、未命中、淘汰次数，以及已用容量、总容量、命中率；
+ * 本地缓存另有 304 确认次数，内存缓存另有未通过准入的次数
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 18:40
+ */
+public class MinioObjectCacheMetrics implements MeterBinder {
+
+    private static final String PREFIX = "minio.cache";
+
+    private final ObjectCache cache;
+
+    private final String name;
+
+    /**
+     * @param cache 文件缓存
+     * @param name  cache 标签值
+     */
+    public MinioObjectCacheMetrics(ObjectCache cache, String name) {
+        this.cache = cache;
+        this.name = name;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(PREFIX + ".hits", cache, ObjectCache::getHitCount)
+                .tag("cache", name)
+                .description("Object reads served from the local cache")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".misses", cache, ObjectCache::getMissCount)
+                .tag("cache", name)
+                .description("Object reads fetched from minio")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".evictions", cache, ObjectCache::getEvictionCount)
+                .tag("cache", name)
+                .description("Entries evicted to stay within capacity")
+                .register(registry);
+        Gauge.builder(PREFIX + ".size", cache, ObjectCache::getSize)
+                .tag("cache", name)
+                .baseUnit(BaseUnits.BYTES)
+                .description("Bytes currently cached")
+                .register(registry);
+        Gauge.builder(PREFIX + ".capacity", cache, ObjectCache::getCapacity)
+                .tag("cache", name)
+                .baseUnit(BaseUnits.BYTES)
+                .description("Maximum bytes the cache may hold")
+                .register(registry);
+        Gauge.builder(PREFIX + ".hit.ratio", cache, ObjectCache::getHitRatio)
+                .tag("cache", name)
+                .description("Fraction of object reads served from the local cache")
+                .register(registry);
+        if (cache instanceof DiskObjectCache) {
+            FunctionCounter.builder(PREFIX + ".revalidations", (DiskObjectCache) cache, DiskObjectCache::getRevalidationCount)
+                    .tag("cache", name)
+                    .description("Expired entries confirmed unchanged by a conditional request")
+                    .register(registry);
+        }
+        if (cache instanceof OffHeapObjectCache) {
+            FunctionCounter.builder(PREFIX + ".rejections", (OffHeapObjectCache) cache, OffHeapObjectCache::getRejectionCount)
+                    .tag("cache", name)
+                    .description("Objects not admitted because the cache was full")
+                    .register(registry);
+        }
+    }
+}
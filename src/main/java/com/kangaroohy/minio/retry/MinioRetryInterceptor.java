@@ -0,0 +1,145 @@
+package com.kangaroohy.minio.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 MinioRetryInterceptor 功能描述：<br/>
+ * 幂等请求（GET、HEAD、PUT、DELETE）失败时按指数退避加随机抖动重试，POST（初始化/合并分片、批量删除等）不重试。<br/>
+ * 可重试的失败：限流（429、503）、服务端错误（500、502、504）、连接失败/重置/超时；
+ * 限流时优先使用 Retry-After，并多退避一级。sdk 的请求体可重复写出，签名在有效期内可直接复用。<br/>
+ * 退避在执行请求的线程中等待：同步请求占用调用线程；异步请求占用 OkHttp dispatcher 线程，
+ * 并在等待期间继续计入 maxRequests / maxRequestsPerHost，大量异步请求同时重试时后续请求会排队
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:00
+ */
+@Slf4j
+public class MinioRetryInterceptor implements Interceptor {
+
+    /**
+     * 失败类型
+     */
+    public enum FailureType {
+        /**
+         * 限流
+         */
+        THROTTLED,
+        /**
+         * 服务端错误
+         */
+        SERVER_ERROR,
+        /**
+         * 连接失败、重置或超时
+         */
+        CONNECTION,
+        /**
+         * 不可重试
+         */
+        NONE
+    }
+
+    private final int maxAttempts;
+
+    private final long baseDelayNanos;
+
+    private final long maxDelayNanos;
+
+    /**
+     * @param maxAttempts 最多尝试次数（含第一次）
+     * @param baseDelay   第一次重试的退避上限
+     * @param maxDelay    单次退避的最大值
+     */
+    public MinioRetryInterceptor(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!isIdempotent(request.method())) {
+            return chain.proceed(request);
+        }
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || chain.call().isCanceled() || e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                log.debug("{} {} failed, retry {}/{}", request.method(), request.url().encodedPath(), attempt, maxAttempts - 1, e);
+                sleep(backoff(attempt, FailureType.CONNECTION, null));
+                continue;
+            }
+            FailureType type = classify(response.code());
+            if (type == FailureType.NONE || attempt >= maxAttempts || chain.call().isCanceled()) {
+                return response;
+            }
+            String retryAfter = response.header("Retry-After");
+            response.close();
+            log.debug("{} {} returned {}, retry {}/{}", request.method(), request.url().encodedPath(), response.code(), attempt, maxAttempts - 1);
+            sleep(backoff(attempt, type, retryAfter));
+        }
+    }
+
+    /**
+     * 按状态码判断失败类型
+     */
+    public static FailureType classify(int code) {
+        switch (code) {
+            case 429:
+            case 503:
+                return FailureType.THROTTLED;
+            case 500:
+            case 502:
+            case 504:
+                return FailureType.SERVER_ERROR;
+            default:
+                return FailureType.NONE;
+        }
+    }
+
+    private static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+    }
+
+    /**
+     * 全抖动退避：[0, min(maxDelay, baseDelay * 2^(n-1))) 内随机，限流时多退避一级
+     */
+    private long backoff(int attempt, FailureType type, String retryAfter) {
+        if (retryAfter != null) {
+            try {
+                return Math.min(maxDelayNanos, TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                // HTTP 日期格式，按退避处理
+            }
+        }
+        int exponent = Math.min(30, attempt - 1 + (type == FailureType.THROTTLED ? 1 : 0));
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << exponent);
+        if (ceiling <= 0) {
+            ceiling = maxDelayNanos;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to retry");
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.kangaroohy.minio.service;
+
+import com.kangaroohy.minio.configuration.MinioProperties;
+import com.kangaroohy.minio.constant.MinioConstant;
+import com.kangaroohy.minio.entity.MultiPartUploadInfo;
+import com.kangaroohy.minio.enums.PolicyType;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.cache.ObjectCache;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.utils.CustomUtil;
+import com.kangaroohy.minio.utils.FutureUtil;
+import io.minio.*;
+import io.minio.http.Method;
+import io.minio.messages.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 类 AsyncMinioService 功能描述：<br/>
+ * MinioService 的非阻塞版本，所有方法均返回 CompletableFuture，不会阻塞调用线程，
+ * 异常统一以 MinioServiceException 结束返回的 future
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/20 10:30
+ */
+@Slf4j
+public class AsyncMinioService {
+
+    /**
+     * 单次批量删除的最大数量
+     */
+    private static final int MAX_DELETE_BATCH = 1000;
+
+    /**
+     * 遍历时单页数量
+     */
+    private static final int MAX_LIST_KEYS = 1000;
+
+    private final MinioProperties properties;
+
+    private final ExtendMinioAsyncClient minioAsyncClient;
+
+    /**
+     * 预签名等本地计算任务使用的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 与 MinioService 共用的文件缓存，通过本服务写入或删除文件后同样使其失效
+     */
+    private final List<ObjectCache> objectCaches;
+
+    public AsyncMinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient) {
+        this(properties, minioAsyncClient, ForkJoinPool.commonPool());
+    }
+
+    public AsyncMinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, Executor executor) {
+        this(properties, minioAsyncClient, executor, Collections.emptyList());
+    }
+
+    /**
+     * @param executor     预签名等本地计算任务使用的线程池
+     * @param objectCaches 需要在写入、删除后失效的文件缓存，如 MinioService 使用的内存缓存及本地缓存
+     */
+    public AsyncMinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, Executor executor,
+                             List<? extends ObjectCache> objectCaches) {
+        this.properties = properties;
+        this.minioAsyncClient = minioAsyncClient;
+        this.executor = executor;
+        this.objectCaches = new ArrayList<>(objectCaches);
+    }
+
+    /**
+     * 查看指定bucket是否存在
+     *
+     * @param bucketName bucket名称
+     * @return
+     */
+    public CompletableFuture<Boolean> bucketExists(String bucketName) {
+        return FutureUtil.call("Error checking if bucket exists: " + bucketName,
+                () -> minioAsyncClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()));
+    }
+
+    /**
+     * 创建一个bucket
+     *
+     * @param bucketName bucket名称
+     * @return
+     */
+    public CompletableFuture<Boolean> createBucket(String bucketName) {
+        return bucketExists(bucketName).thenCompose(exists -> exists ? CompletableFuture.completedFuture(true)
+                : FutureUtil.call("Failed to create bucket: " + bucketName,
+                () -> minioAsyncClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build())).thenApply(v -> true));
+    }
+
+    /**
+     * 创建一个bucket，并指定访问策略
+     *
+     * @param bucketName bucket名称
+     * @param policyType 访问策略
+     * @return
+     */
+    public CompletableFuture<Boolean> createBucket(String bucketName, PolicyType policyType) {
+        return createBucket(bucketName, PolicyType.getPolicy(policyType, bucketName));
+    }
+
+    /**
+     * 创建一个bucket，并指定访问策略，默认三种不满足时，自定义可调用此方法
+     *
+     * @param bucketName bucket名称
+     * @param policy     访问策略
+     * @return
+     */
+    public CompletableFuture<Boolean> createBucket(String bucketName, String policy) {
+        return createBucket(bucketName).thenCompose(created -> doSetBucketPolicy(bucketName, policy));
+    }
+
+    /**
+     * 指定访问策略
+     *
+     * @param bucketName bucket名称
+     * @param policyType 访问策略
+     * @return
+     */
+    public CompletableFuture<Boolean> setBucketPolicy(String bucketName, PolicyType policyType) {
+        return setBucketPolicy(bucketName, PolicyType.getPolicy(policyType, bucketName));
+    }
+
+    /**
+     * 指定访问策略，默认三种不满足时，自定义可调用此方法
+     *
+     * @param bucketName bucket名称
+     * @param policy     访问策略
+     * @return
+     */
+    public CompletableFuture<Boolean> setBucketPolicy(String bucketName, String policy) {
+        return bucketExists(bucketName).thenCompose(exists -> exists ? doSetBucketPolicy(bucketName, policy)
+                : FutureUtil.failed(new MinioServiceException(bucketName + " bucket does not exist.")));
+    }
+
+    private CompletableFuture<Boolean> doSetBucketPolicy(String bucketName, String policy) {
+        return FutureUtil.call("Failed to set bucket policy for bucket: " + bucketName,
+                () -> minioAsyncClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(policy).build())).thenApply(v -> true);
+    }
+
+    /**
+     * 获得所有bucket
+     *
+     * @return
+     */
+    public CompletableFuture<List<Bucket>> listBuckets() {
+        return FutureUtil.call("Failed to list buckets", minioAsyncClient::listBuckets);
+    }
+
+    /**
+     * 获得指定bucket
+     *
+     * @param bucketName bucket名称
+     * @return
+     */
+    public CompletableFuture<Optional<Bucket>> getBucket(String bucketName) {
+        return listBuckets().thenApply(buckets -> buckets.stream().filter(item -> item.name().equals(bucketName)).findFirst());
+    }
+
+    /**
+     * 删除一个bucket
+     *
+     * @param bucketName bucket名称
+     * @return
+     */
+    public CompletableFuture<Boolean> removeBucket(String bucketName) {
+        return bucketExists(bucketName).thenCompose(exists -> !exists ? CompletableFuture.completedFuture(true)
+                : FutureUtil.call("Failed to remove bucket: " + bucketName,
+                () -> minioAsyncClient.removeBucket(RemoveBucketArgs.builder().bucket(bucketName).build())).thenApply(v -> {
+                    objectCaches.forEach(cache -> cache.invalidatePrefix(bucketName, ""));
+                    return true;
+                }));
+    }
+
+    /**
+     * 遍历文件，逐页异步拉取，全部拉取完成后返回
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @return
+     */
+    public CompletableFuture<List<Item>> listObjects(String bucketName, String prefix, boolean recursive) {
+        List<Item> objectList = new ArrayList<>();
+        return listObjectsPage(bucketName, prefix, recursive, null, objectList).thenApply(v -> objectList);
+    }
+
+    private CompletableFuture<Void> listObjectsPage(String bucketName, String prefix, boolean recursive, String continuationToken, List<Item> objectList) {
+        return FutureUtil.call("Failed to list objects in bucket: " + bucketName,
+                        () -> minioAsyncClient.listObjectsPageAsync(bucketName, prefix, recursive ? null : MinioConstant.URI_DELIMITER, null, MAX_LIST_KEYS, continuationToken))
+                .thenCompose(response -> {
+                    ListBucketResultV2 result = response.result();
+                    objectList.addAll(result.contents());
+                    if (!recursive) {
+                        result.commonPrefixes().stream().map(Prefix::toItem).forEach(objectList::add);
+                    }
+                    if (result.isTruncated() && StringUtils.hasText(result.nextContinuationToken())) {
+                        return listObjectsPage(bucketName, prefix, recursive, result.nextContinuationToken(), objectList);
+                    }
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    /**
+     * 获得文件信息
+     *
+     * @param bucketName
+     * @param objectName
+     * @return
+     */
+    public CompletableFuture<StatObjectResponse> statObject(String bucketName, String objectName) {
+        return FutureUtil.call("Failed to stat object: " + objectName + " in bucket: " + bucketName,
+                () -> minioAsyncClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build()));
+    }
+
+    /**
+     * 获得指定文件 文件流，响应头到达即完成，流的读取仍需调用方处理
+     *
+     * @param objectName
+     * @return
+     */
+    public CompletableFuture<InputStream> getObject(String objectName) {
+        return getObject(getBucketName(), objectName);
+    }
+
+    /**
+     * 获得指定文件 文件流，响应头到达即完成，流的读取仍需调用方处理
+     *
+     * @param bucketName
+     * @param objectName
+     * @return
+     */
+    public CompletableFuture<InputStream> getObject(String bucketName, String objectName) {
+        return FutureUtil.<InputStream>call("Failed to get object: " + objectName + " from bucket: " + bucketName,
+                () -> minioAsyncClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build())
+                        .thenApply(response -> response));
+    }
+
+    /**
+     * 获得指定文件 文件流，响应头到达即完成，流的读取仍需调用方处理
+     *
+     * @param bucketName
+     * @param objectName
+     * @param length
+     * @param offset
+     * @return
+     */
+    public CompletableFuture<InputStream> getObject(String bucketName, String objectName, long length, Long offset) {
+        return FutureUtil.<InputStream>call("Failed to get object: " + objectName + " from bucket: " + bucketName,
+                () -> minioAsyncClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).length(length).offset(offset).build())
+                        .thenApply(response -> response));
+    }
+
+    /**
+     * 获得外链，过期时间默认7天
+     *
+     * @param bucketName bucket 名称
+     * @param objectName 文件
+     * @return
+     */
+    public CompletableFuture<String> getObjectUrl(String bucketName, String objectName) {
+        return getObjectUrl(bucketName, objectName, false, GetPresignedObjectUrlArgs.DEFAULT_EXPIRY_TIME);
+    }
+
+    /**
+     * 获得外链，签名计算在 executor 中执行
+     *
+     * @param bucketName     bucket 名称
+     * @param objectName     文件
+     * @param replaceAddress 是否替换访问域名
+     * @param expires        过期时间，单位秒，为 null 时默认7天
+     * @return
+     */
+    public CompletableFuture<String> getObjectUrl(String bucketName, String objectName, boolean replaceAddress, Integer expires) {
+        int expiry = expires != null ? expires : GetPresignedObjectUrlArgs.DEFAULT_EXPIRY_TIME;
+        return presign("Failed to get presigned URL for object: " + objectName + " in bucket: " + bucketName, () -> {
+            String objectUrl = minioAsyncClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).expiry(expiry).method(Method.GET).build());
+            return replaceAddress && properties.getAddress() != null ? objectUrl.replace(properties.getEndpoint(), properties.getAddress()) : objectUrl;
+        });
+    }
+
+    /**
+     * 获取上传文件的url，签名计算在 executor 中执行
+     *
+     * @param bucketName
+     * @param path
+     * @param objectName
+     * @param time
+     * @param timeUnit
+     * @return
+     */
+    public CompletableFuture<String> getPresignedObjectPutUrl(String bucketName, String path, String objectName, Integer time, TimeUnit timeUnit) {
+        String finalObjectName = (StringUtils.hasText(path) ? CustomUtil.getPath(path) : "") + CustomUtil.getObjectName(objectName);
+        return presign("Failed to get presigned PUT URL for object: " + finalObjectName + " in bucket: " + bucketName,
+                () -> minioAsyncClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                        .method(Method.PUT)
+                        .bucket(bucketName)
+                        .object(finalObjectName)
+                        .expiry(time, timeUnit).build()));
+    }
+
+    /**
+     * 上传文件
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param stream      文件流
+     * @param objectSize  文件大小，未知时传 -1
+     * @param partSize    分片大小，未知时传 -1
+     * @return
+     */
+    public CompletableFuture<ObjectWriteResponse> putObject(String bucketName, String objectName, String contentType,
+                                                            InputStream stream, long objectSize, long partSize) {
+        return FutureUtil.call("Failed to upload object: " + objectName + " to bucket: " + bucketName,
+                () -> minioAsyncClient.putObject(PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(CustomUtil.getObjectName(objectName))
+                        .stream(stream, objectSize, partSize)
+                        .contentType(CustomUtil.getContentType(contentType))
+                        .build())).thenApply(response -> written(bucketName, objectName, response));
+    }
+
+    /**
+     * 单个删除
+     *
+     * @param bucketName
+     * @param objectName
+     * @return
+     */
+    public CompletableFuture<Boolean> removeObject(String bucketName, String objectName) {
+        return FutureUtil.call("Failed to remove object: " + objectName + " from bucket: " + bucketName,
+                () -> minioAsyncClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build())).thenApply(v -> {
+                    invalidateCache(bucketName, objectName);
+                    return true;
+                });
+    }
+
+    /**
+     * 批量删除，按 1000 个一批同时发送
+     *
+     * @param bucketName
+     * @param objectNames
+     * @return 删除失败的文件
+     */
+    public CompletableFuture<List<String>> removeObjects(String bucketName, Collection<String> objectNames) {
+        List<DeleteObject> objects = objectNames.stream().map(CustomUtil::getObjectName).map(DeleteObject::new).collect(Collectors.toList());
+        List<CompletableFuture<DeleteObjectsResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < objects.size(); i += MAX_DELETE_BATCH) {
+            List<DeleteObject> batch = objects.subList(i, Math.min(i + MAX_DELETE_BATCH, objects.size()));
+            futures.add(FutureUtil.call("Failed to remove objects from bucket: " + bucketName,
+                    () -> minioAsyncClient.removeObjectsAsync(bucketName, batch, true)));
+        }
+        // 部分批次失败时其余批次可能已删除，缓存一律失效
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((v, e) -> objectNames.forEach(objectName -> invalidateCache(bucketName, objectName))).thenApply(v -> {
+            List<String> errorDeleteObjects = new ArrayList<>();
+            for (CompletableFuture<DeleteObjectsResponse> future : futures) {
+                for (DeleteError error : future.join().result().errorList()) {
+                    errorDeleteObjects.add(error.objectName());
+                    log.error(String.format("Error in deleting object %s:%s, code=%s, message=%s",
+                            bucketName, error.objectName(), error.code(), error.message()));
+                }
+            }
+            return errorDeleteObjects;
+        });
+    }
+
+    /**
+     * 获得分片上传的地址信息
+     *
+     * @param bucketName
+     * @param path
+     * @param objectName
+     * @param partSize
+     * @param contentType
+     * @param time
+     * @param timeUnit
+     * @return
+     */
+    public CompletableFuture<MultiPartUploadInfo> getPresignedMultipartUploadUrls(String bucketName, String path, String objectName, Integer partSize,
+                                                                                  String contentType, Integer time, TimeUnit timeUnit) {
+        String finalObjectName = (StringUtils.hasText(path) ? CustomUtil.getPath(path) : "") + CustomUtil.getObjectName(objectName);
+        return initMultiPartUpload(bucketName, null, finalObjectName, contentType).thenComposeAsync(uploadResponse -> {
+            String uploadId = uploadResponse.uploadId();
+            List<String> partUrlList = new ArrayList<>();
+            try {
+                Map<String, String> paramsMap = new HashMap<>(2);
+                paramsMap.put("uploadId", uploadId);
+                for (int i = 1; i <= partSize; i++) {
+                    paramsMap.put("partNumber", String.valueOf(i));
+                    partUrlList.add(minioAsyncClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                            .method(Method.PUT)
+                            .bucket(bucketName)
+                            .object(finalObjectName)
+                            .expiry(time, timeUnit)
+                            .extraQueryParams(paramsMap).build()));
+                }
+            } catch (Exception e) {
+                return FutureUtil.failed(new MinioServiceException("Failed to get presigned multipart upload URLs for object: " + finalObjectName + " in bucket: " + bucketName, e));
+            }
+            return CompletableFuture.completedFuture(MultiPartUploadInfo.builder()
+                    .uploadId(uploadId)
+                    .fileName(finalObjectName)
+                    .expiryTime(CustomUtil.getLocalDateTime(time, timeUnit))
+                    .uploadUrls(partUrlList)
+                    .build());
+        }, executor);
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param bucketName  bucketName
+     * @param path        文件保存路径
+     * @param objectName  文件名称
+     * @param contentType contentType
+     * @return
+     */
+    public CompletableFuture<InitiateMultipartUploadResult> initMultiPartUpload(String bucketName, String path, String objectName, String contentType) {
+        String finalObjectName = (StringUtils.hasText(path) ? CustomUtil.getPath(path) : "") + CustomUtil.getObjectName(objectName);
+        return FutureUtil.call("Failed to initiate multipart upload for object: " + finalObjectName + " in bucket: " + bucketName,
+                () -> minioAsyncClient.initMultiPartUploadAsync(bucketName, null, finalObjectName, CustomUtil.getHeader(contentType), null));
+    }
+
+    /**
+     * 上传分片
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param data       分片数据，byte[] / InputStream / RandomAccessFile
+     * @param length     分片长度
+     * @param uploadId   上传ID
+     * @param partNumber 分片序号
+     * @return
+     */
+    public CompletableFuture<UploadPartResponse> uploadPart(String bucketName, String objectName, Object data, long length, String uploadId, int partNumber) {
+        return FutureUtil.call("Failed to upload object: " + objectName + " to bucket: " + bucketName,
+                () -> minioAsyncClient.uploadPartAsync(bucketName, null, CustomUtil.getObjectName(objectName), data, length, uploadId, partNumber, null, null));
+    }
+
+    /**
+     * 合并分片，按 partNumberMarker 逐页列出全部分片后合并
+     *
+     * @param bucketName
+     * @param objectName
+     * @param uploadId
+     * @param maxParts 列出分片时每页数量，最大 1000
+     * @return
+     */
+    public CompletableFuture<String> mergeMultiPartUpload(String bucketName, String objectName, String uploadId, Integer maxParts) {
+        String message = "Failed to merge multipart upload for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId;
+        return listAllParts(bucketName, objectName, uploadId, maxParts, message)
+                .thenCompose(parts -> completeMultiPartUpload(bucketName, objectName, uploadId, parts.toArray(new Part[0]), message));
+    }
+
+    /**
+     * 使用已知的分片 ETag 合并分片，不再列出分片
+     *
+     * @param bucketName
+     * @param objectName
+     * @param uploadId
+     * @param etags      partNumber 与 ETag，如前端直传时分片响应头中的 ETag
+     * @return
+     */
+    public CompletableFuture<String> mergeMultiPartUpload(String bucketName, String objectName, String uploadId, Map<Integer, String> etags) {
+        String message = "Failed to merge multipart upload for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId;
+        if (etags == null || etags.isEmpty()) {
+            return FutureUtil.failed(new MinioServiceException("No parts provided for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId));
+        }
+        Part[] parts = new TreeMap<>(etags).entrySet().stream().map(entry -> new Part(entry.getKey(), entry.getValue())).toArray(Part[]::new);
+        return completeMultiPartUpload(bucketName, objectName, uploadId, parts, message);
+    }
+
+    private CompletableFuture<String> completeMultiPartUpload(String bucketName, String objectName, String uploadId, Part[] parts, String message) {
+        return FutureUtil.call(message, () -> minioAsyncClient.mergeMultipartUploadAsync(bucketName, null, CustomUtil.getObjectName(objectName), uploadId, parts, null, null))
+                .thenApply(writeResponse -> getAddress(written(bucketName, objectName, writeResponse).region()));
+    }
+
+    /**
+     * 写入成功后使该文件的缓存失效
+     */
+    private ObjectWriteResponse written(String bucketName, String objectName, ObjectWriteResponse response) {
+        invalidateCache(bucketName, objectName);
+        return response;
+    }
+
+    private void invalidateCache(String bucketName, String objectName) {
+        String object = CustomUtil.getObjectName(objectName);
+        objectCaches.forEach(cache -> cache.invalidate(bucketName, object));
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param bucketName
+     * @param objectName
+     * @param uploadId
+     * @return
+     */
+    public CompletableFuture<Boolean> abortMultiPartUpload(String bucketName, String objectName, String uploadId) {
+        return FutureUtil.call("Failed to abort multipart upload for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId,
+                () -> minioAsyncClient.removeMultipartUploadAsync(bucketName, null, CustomUtil.getObjectName(objectName), uploadId, null, null)).thenApply(v -> true);
+    }
+
+    /**
+     * 获取已上传的分片列表
+     *
+     * @param bucketName
+     * @param objectName
+     * @param uploadId
+     * @param maxParts 每页数量，最大 1000，逐页列出全部分片
+     * @return
+     */
+    public CompletableFuture<List<Integer>> listUploadMultiPart(String bucketName, String objectName, String uploadId, Integer maxParts) {
+        return listAllParts(bucketName, objectName, uploadId, maxParts,
+                "Failed to list multipart upload parts for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId)
+                .thenApply(parts -> parts.stream().map(Part::partNumber).collect(Collectors.toList()));
+    }
+
+    /**
+     * 按 partNumberMarker 逐页列出全部已上传分片，上一页返回后再请求下一页
+     */
+    private CompletableFuture<List<Part>> listAllParts(String bucketName, String objectName, String uploadId, Integer maxParts, String message) {
+        return listPartsFrom(bucketName, CustomUtil.getObjectName(objectName), uploadId, maxParts, 0, new ArrayList<>(), message);
+    }
+
+    private CompletableFuture<List<Part>> listPartsFrom(String bucketName, String objectName, String uploadId, Integer maxParts,
+                                                        int partNumberMarker, List<Part> parts, String message) {
+        return FutureUtil.call(message, () -> minioAsyncClient.listMultipartAsync(bucketName, null, objectName, maxParts, partNumberMarker, uploadId, null, null))
+                .thenCompose(partsResponse -> {
+                    ListPartsResult result = partsResponse.result();
+                    parts.addAll(result.partList());
+                    if (!result.isTruncated() || result.nextPartNumberMarker() <= partNumberMarker) {
+                        return CompletableFuture.completedFuture(parts);
+                    }
+                    return listPartsFrom(bucketName, objectName, uploadId, maxParts, result.nextPartNumberMarker(), parts, message);
+                });
+    }
+
+    /**
+     * 获得文件访问地址
+     *
+     * @return
+     */
+    public String getAddress(String url) {
+        String address = "".equals(properties.getAddress().trim()) ? properties.getEndpoint() : properties.getAddress();
+        return url.replace(properties.getEndpoint(), address);
+    }
+
+    /**
+     * 默认BucketName
+     *
+     * @return
+     */
+    public String getBucketName() {
+        if (!StringUtils.hasText(properties.getBucketName())) {
+            throw new RuntimeException("未配置默认 BucketName");
+        }
+        return properties.getBucketName();
+    }
+
+    @FunctionalInterface
+    private interface PresignCall {
+        String sign() throws Exception;
+    }
+
+    /**
+     * 签名计算放到 executor 中执行，首次访问 bucket 时可能需要查询 region
+     */
+    private CompletableFuture<String> presign(String message, PresignCall call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.sign();
+            } catch (Exception e) {
+                throw new CompletionException(new MinioServiceException(message, e));
+            }
+        }, executor);
+    }
+}
@@ -3,10 +3,24 @@ package com.kangaroohy.minio.service;
 import com.google.common.collect.Multimap;
 import com.kangaroohy.minio.configuration.MinioProperties;
 import com.kangaroohy.minio.constant.MinioConstant;
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.entity.MultiPartSessionPart;
 import com.kangaroohy.minio.entity.MultiPartUploadInfo;
 import com.kangaroohy.minio.enums.PolicyType;
 import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.cache.BucketMetadataCache;
+import com.kangaroohy.minio.service.cache.DiskObjectCache;
+import com.kangaroohy.minio.service.cache.OffHeapObjectCache;
+import com.kangaroohy.minio.service.cache.PresignedUrlCache;
 import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.service.delete.BulkDeleter;
+import com.kangaroohy.minio.service.listing.LazyObjectIterator;
+import com.kangaroohy.minio.service.listing.ParallelObjectLister;
+import com.kangaroohy.minio.service.multipart.MultipartSessionStore;
+import com.kangaroohy.minio.service.presign.BulkPresigner;
+import com.kangaroohy.minio.service.transfer.HedgedObjectReader;
+import com.kangaroohy.minio.service.transfer.ParallelDownloader;
+import com.kangaroohy.minio.service.transfer.ParallelUploader;
 import com.kangaroohy.minio.utils.CustomUtil;
 import io.minio.*;
 import io.minio.errors.*;
@@ -18,13 +32,19 @@ import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * 类 MinioService 功能描述：
@@ -42,19 +62,105 @@ public class MinioService {
 
     private final MinioClient minioClient;
 
+    private final ParallelUploader parallelUploader;
+
+    private final ParallelDownloader parallelDownloader;
+
+    private final ParallelObjectLister parallelObjectLister;
+
+    private final BulkDeleter bulkDeleter;
+
+    private final PresignedUrlCache presignedUrlCache;
+
+    private final BucketMetadataCache bucketMetadataCache;
+
+    private final BulkPresigner bulkPresigner;
+
+    private final HedgedObjectReader hedgedObjectReader;
+
+    private final MultipartSessionStore multipartSessionStore;
+
+    private final DiskObjectCache objectCache;
+
+    private final OffHeapObjectCache memoryCache;
+
     public MinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, MinioClient minioClient) {
-        this.properties = properties;
-        this.minioAsyncClient = minioAsyncClient;
-        this.minioClient = minioClient;
+        this(properties, minioAsyncClient, minioClient, null);
+    }
+
+    /**
+     * @param multipartSessionStore 分片上传会话存储，为 null 时每次从 minio 列出分片
+     */
+    public MinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, MinioClient minioClient,
+                        MultipartSessionStore multipartSessionStore) {
+        this(properties, minioAsyncClient, minioClient, multipartSessionStore, null);
+    }
+
+    /**
+     * @param multipartSessionStore 分片上传会话存储，为 null 时每次从 minio 列出分片
+     * @param objectCache           文件本地缓存，为 null 时每次从 minio 读取
+     */
+    public MinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, MinioClient minioClient,
+                        MultipartSessionStore multipartSessionStore, DiskObjectCache objectCache) {
+        this(properties, minioAsyncClient, minioClient, multipartSessionStore, objectCache, null);
+    }
+
+    /**
+     * @param multipartSessionStore 分片上传会话存储，为 null 时每次从 minio 列出分片
+     * @param objectCache           文件本地缓存，为 null 时每次从 minio 读取
+     * @param memoryCache           小文件堆外内存缓存，位于本地缓存之前，为 null 时不使用
+     */
+    public MinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, MinioClient minioClient,
+                        MultipartSessionStore multipartSessionStore, DiskObjectCache objectCache, OffHeapObjectCache memoryCache) {
+        this(properties, minioAsyncClient, minioClient, multipartSessionStore, objectCache, memoryCache, null);
     }
 
     /**
-     * 查看指定bucket是否存在
+     * @param multipartSessionStore 分片上传会话存储，为 null 时每次从 minio 列出分片
+     * @param objectCache           文件本地缓存，为 null 时每次从 minio 读取
+     * @param memoryCache           小文件堆外内存缓存，位于本地缓存之前，为 null 时不使用
+     * @param executor              并行上传、下载、遍历及批量删除共用的线程池，为 null 时每次调用创建与并发数相同的线程池
+     */
+    public MinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, MinioClient minioClient,
+                        MultipartSessionStore multipartSessionStore, DiskObjectCache objectCache, OffHeapObjectCache memoryCache,
+                        Executor executor) {
+        this.properties = properties;
+        this.multipartSessionStore = multipartSessionStore;
+        this.objectCache = objectCache;
+        this.memoryCache = memoryCache;
+        this.minioAsyncClient = minioAsyncClient;
+        this.minioClient = minioClient;
+        boolean virtualThreads = properties.getExecutor().isVirtualThreads();
+        this.parallelUploader = new ParallelUploader(minioAsyncClient, virtualThreads, executor);
+        MinioProperties.Hedge hedge = properties.getHedge();
+        this.hedgedObjectReader = hedge.isEnabled()
+                ? new HedgedObjectReader(minioAsyncClient, hedge.getPercentile(), hedge.getMinDelay(), hedge.getInitialDelay()) : null;
+        this.parallelDownloader = new ParallelDownloader(minioClient, hedgedObjectReader, virtualThreads, executor);
+        this.parallelObjectLister = new ParallelObjectLister(minioClient, virtualThreads, executor);
+        this.bulkDeleter = new BulkDeleter(minioAsyncClient, executor);
+        MinioProperties.UrlCache urlCache = properties.getUrlCache();
+        this.presignedUrlCache = urlCache.isEnabled() ? new PresignedUrlCache(urlCache.getMaximumSize(), urlCache.getMinRemainingRatio()) : null;
+        MinioProperties.BucketCache bucketCache = properties.getBucketCache();
+        this.bucketMetadataCache = bucketCache.isEnabled() ? new BucketMetadataCache(bucketCache.getTtl().toMillis()) : null;
+        // 配置了 region 时分片地址在本地批量签名，AWS 的 virtual-host 地址仍交给 sdk 处理
+        this.bulkPresigner = StringUtils.hasText(properties.getRegion()) && !properties.getEndpoint().contains("amazonaws.com")
+                ? new BulkPresigner(properties.getEndpoint(), properties.getAccessKey(), properties.getSecretKey(), properties.getRegion()) : null;
+    }
+
+    /**
+     * 查看指定bucket是否存在，启用 bucket 缓存时优先读取缓存
      *
      * @param bucketName bucket名称
      * @return
      */
     public boolean bucketExists(String bucketName) throws MinioServiceException {
+        if (bucketMetadataCache != null) {
+            return bucketMetadataCache.exists(bucketName, () -> loadBucketExists(bucketName));
+        }
+        return loadBucketExists(bucketName);
+    }
+
+    private boolean loadBucketExists(String bucketName) throws MinioServiceException {
         try {
             return minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
         } catch (ErrorResponseException | IOException | InsufficientDataException
@@ -74,6 +180,10 @@ public class MinioService {
         try {
             if (!bucketExists(bucketName)) {
                 minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                if (bucketMetadataCache != null) {
+                    bucketMetadataCache.invalidate(bucketName);
+                    bucketMetadataCache.putExists(bucketName, true);
+                }
             }
             return true;
         } catch (ErrorResponseException | IOException | InsufficientDataException
@@ -91,16 +201,7 @@ public class MinioService {
      * @return
      */
     public boolean createBucket(String bucketName, PolicyType policyType) throws MinioServiceException {
-        try {
-            if (this.createBucket(bucketName)) {
-                minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(PolicyType.getPolicy(policyType, bucketName)).build());
-            }
-            return true;
-        } catch (ErrorResponseException | IOException | InsufficientDataException
-                 | InternalException | InvalidKeyException | InvalidResponseException
-                 | NoSuchAlgorithmException | XmlParserException | ServerException e) {
-            throw new MinioServiceException("Failed to create bucket: " + bucketName, e);
-        }
+        return createBucket(bucketName, PolicyType.getPolicy(policyType, bucketName));
     }
 
     /**
@@ -113,7 +214,7 @@ public class MinioService {
     public boolean createBucket(String bucketName, String policy) throws MinioServiceException {
         try {
             if (this.createBucket(bucketName)) {
-                minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(policy).build());
+                applyBucketPolicy(bucketName, policy);
             }
             return true;
         } catch (ErrorResponseException | IOException | InsufficientDataException
@@ -131,17 +232,7 @@ public class MinioService {
      * @return
      */
     public boolean setBucketPolicy(String bucketName, PolicyType policyType) throws MinioServiceException {
-        try {
-            if (!bucketExists(bucketName)) {
-                throw new MinioServiceException(bucketName + " bucket does not exist.");
-            }
-            minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(PolicyType.getPolicy(policyType, bucketName)).build());
-            return true;
-        } catch (ErrorResponseException | IOException | InsufficientDataException
-                 | InternalException | InvalidKeyException | InvalidResponseException
-                 | NoSuchAlgorithmException | XmlParserException | ServerException e) {
-            throw new MinioServiceException("Failed to set bucket policy for bucket: " + bucketName, e);
-        }
+        return setBucketPolicy(bucketName, PolicyType.getPolicy(policyType, bucketName));
     }
 
     /**
@@ -156,7 +247,7 @@ public class MinioService {
             if (!bucketExists(bucketName)) {
                 throw new MinioServiceException(bucketName + " bucket does not exist.");
             }
-            minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(policy).build());
+            applyBucketPolicy(bucketName, policy);
             return true;
         } catch (ErrorResponseException | IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | InvalidResponseException
@@ -166,11 +257,32 @@ public class MinioService {
     }
 
     /**
-     * 获得所有bucket
+     * 设置访问策略，缓存中记录的策略相同时跳过
+     */
+    private void applyBucketPolicy(String bucketName, String policy) throws ErrorResponseException, InsufficientDataException, InternalException,
+            InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        if (bucketMetadataCache != null && bucketMetadataCache.hasPolicy(bucketName, policy)) {
+            return;
+        }
+        minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(policy).build());
+        if (bucketMetadataCache != null) {
+            bucketMetadataCache.putPolicy(bucketName, policy);
+        }
+    }
+
+    /**
+     * 获得所有bucket，启用 bucket 缓存时返回不可修改的缓存列表
      *
      * @return
      */
     public List<Bucket> listBuckets() throws MinioServiceException {
+        if (bucketMetadataCache != null) {
+            return bucketMetadataCache.buckets(this::loadBuckets);
+        }
+        return loadBuckets();
+    }
+
+    private List<Bucket> loadBuckets() throws MinioServiceException {
         try {
             return minioClient.listBuckets();
         } catch (ErrorResponseException | IOException | InsufficientDataException
@@ -187,6 +299,9 @@ public class MinioService {
      * @return
      */
     public Optional<Bucket> getBucket(String bucketName) throws MinioServiceException {
+        if (bucketMetadataCache != null) {
+            return bucketMetadataCache.bucket(bucketName, this::loadBuckets);
+        }
         return listBuckets().stream().filter(item -> item.name().equals(bucketName)).findFirst();
     }
 
@@ -200,6 +315,11 @@ public class MinioService {
         try {
             if (bucketExists(bucketName)) {
                 minioClient.removeBucket(RemoveBucketArgs.builder().bucket(bucketName).build());
+                if (bucketMetadataCache != null) {
+                    bucketMetadataCache.invalidate(bucketName);
+                    bucketMetadataCache.putExists(bucketName, false);
+                }
+                invalidateCachePrefix(bucketName, "");
             }
             return true;
         } catch (ErrorResponseException | IOException | InsufficientDataException
@@ -283,6 +403,112 @@ public class MinioService {
         return objectList;
     }
 
+    /**
+     * 懒加载遍历文件，按页请求，消费到当前页末尾时才拉取下一页
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @return 遍历失败时 next() 抛出 UncheckedMinioServiceException
+     */
+    public Iterator<Item> iterateObjects(String bucketName, String prefix, boolean recursive) {
+        return iterateObjects(bucketName, prefix, recursive, null, null);
+    }
+
+    /**
+     * 懒加载遍历文件，按页请求，消费到当前页末尾时才拉取下一页
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @param pageSize   每页数量，为空时使用服务端默认值（1000）
+     * @param startAfter 从该 key 之后开始遍历，可用于断点续查
+     * @return 遍历失败时 next() 抛出 UncheckedMinioServiceException
+     */
+    public Iterator<Item> iterateObjects(String bucketName, String prefix, boolean recursive, Integer pageSize, String startAfter) {
+        return lazyListObjects(bucketName, prefix, recursive, pageSize, startAfter);
+    }
+
+    private LazyObjectIterator lazyListObjects(String bucketName, String prefix, boolean recursive, Integer pageSize, String startAfter) {
+        return new LazyObjectIterator(minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(recursive)
+                .maxKeys(pageSize == null ? 1000 : pageSize)
+                .startAfter(startAfter)
+                .build()), bucketName);
+    }
+
+    /**
+     * 以流的方式遍历文件，按页懒加载，内存占用与文件总数无关
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @return 遍历失败时抛出 UncheckedMinioServiceException
+     */
+    public Stream<Item> streamObjects(String bucketName, String prefix, boolean recursive) {
+        return streamObjects(bucketName, prefix, recursive, null, null);
+    }
+
+    /**
+     * 以流的方式遍历文件，按页懒加载，内存占用与文件总数无关
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @param pageSize   每页数量，为空时使用服务端默认值（1000）
+     * @param startAfter 从该 key 之后开始遍历，可用于断点续查
+     * @return 遍历失败时抛出 UncheckedMinioServiceException
+     */
+    public Stream<Item> streamObjects(String bucketName, String prefix, boolean recursive, Integer pageSize, String startAfter) {
+        return lazyListObjects(bucketName, prefix, recursive, pageSize, startAfter).stream();
+    }
+
+    /**
+     * 按第一级前缀并行遍历文件（递归），适用于文件数量巨大且有目录层级的 bucket，
+     * 返回的流使用完毕或提前放弃时需要关闭
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param sorted     是否按 key 顺序输出，无序时吞吐更高
+     * @return 遍历失败时抛出 UncheckedMinioServiceException
+     */
+    public Stream<Item> listObjectsParallel(String bucketName, String prefix, boolean sorted) throws MinioServiceException {
+        return listObjectsParallel(bucketName, prefix, properties.getTransfer().getListParallelism(), sorted);
+    }
+
+    /**
+     * 按第一级前缀并行遍历文件（递归），适用于文件数量巨大且有目录层级的 bucket，
+     * 返回的流使用完毕或提前放弃时需要关闭
+     *
+     * @param bucketName  bucket名称
+     * @param prefix      前缀，包括路径
+     * @param parallelism 同时遍历的前缀数
+     * @param sorted      是否按 key 顺序输出，无序时吞吐更高
+     * @return 遍历失败时抛出 UncheckedMinioServiceException
+     */
+    public Stream<Item> listObjectsParallel(String bucketName, String prefix, int parallelism, boolean sorted) throws MinioServiceException {
+        return parallelObjectLister.list(bucketName, prefix, parallelism, sorted);
+    }
+
+    /**
+     * 获取文件元数据（大小、ETag、最后修改时间、类型等）
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return
+     */
+    public StatObjectResponse statObject(String bucketName, String objectName) throws MinioServiceException {
+        try {
+            return minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build());
+        } catch (ErrorResponseException | IOException | InsufficientDataException
+                 | InternalException | InvalidKeyException | InvalidResponseException
+                 | NoSuchAlgorithmException | XmlParserException | ServerException e) {
+            throw new MinioServiceException("Failed to stat object: " + objectName + " from bucket: " + bucketName, e);
+        }
+    }
+
     /**
      * 获得指定文件 文件流
      *
@@ -294,16 +520,38 @@ public class MinioService {
     }
 
     /**
-     * 获得指定文件 文件流
+     * 获得指定文件 文件流，启用缓存时依次读取内存缓存、本地缓存
      *
      * @param bucketName
      * @param objectName
      * @return
      */
     public InputStream getObject(String bucketName, String objectName) throws MinioServiceException {
+        String object = CustomUtil.getObjectName(objectName);
+        if (memoryCache != null) {
+            try {
+                return memoryCache.get(bucketName, object, () -> readThrough(bucketName, object));
+            } catch (IOException e) {
+                throw new MinioServiceException("Failed to get object: " + objectName + " from bucket: " + bucketName, e);
+            }
+        }
+        return readThrough(bucketName, object);
+    }
+
+    /**
+     * 内存缓存之后的读取，启用本地缓存时优先读取本地缓存
+     */
+    private InputStream readThrough(String bucketName, String objectName) throws MinioServiceException {
+        if (objectCache != null) {
+            try {
+                return objectCache.get(bucketName, objectName, etag -> loadObject(bucketName, objectName, etag));
+            } catch (IOException e) {
+                throw new MinioServiceException("Failed to get object: " + objectName + " from bucket: " + bucketName, e);
+            }
+        }
         InputStream inputStream;
         try {
-            inputStream = minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build());
+            inputStream = readObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).build());
         } catch (ErrorResponseException | IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | InvalidResponseException
                  | NoSuchAlgorithmException | XmlParserException | ServerException e) {
@@ -323,7 +571,7 @@ public class MinioService {
     public InputStream getObject(String bucketName, String objectName, String versionId) throws MinioServiceException {
         InputStream inputStream;
         try {
-            inputStream = minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).versionId(versionId).build());
+            inputStream = readObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).versionId(versionId).build());
         } catch (ErrorResponseException | IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | InvalidResponseException
                  | NoSuchAlgorithmException | XmlParserException | ServerException e) {
@@ -344,7 +592,7 @@ public class MinioService {
     public InputStream getObject(String bucketName, String objectName, long length, Long offset) throws MinioServiceException {
         InputStream inputStream;
         try {
-            inputStream = minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).length(length).offset(offset).build());
+            inputStream = readObject(GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).length(length).offset(offset).build());
         } catch (ErrorResponseException | IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | InvalidResponseException
                  | NoSuchAlgorithmException | XmlParserException | ServerException e) {
@@ -353,6 +601,86 @@ public class MinioService {
         return inputStream;
     }
 
+    /**
+     * 按参数获得文件流，可同时指定范围、版本及 ETag 条件，不经过缓存
+     *
+     * @param args 参数，文件名称不再处理
+     * @return
+     */
+    public InputStream getObject(GetObjectArgs args) throws MinioServiceException {
+        InputStream inputStream;
+        try {
+            inputStream = readObject(args);
+        } catch (ErrorResponseException | IOException | InsufficientDataException
+                 | InternalException | InvalidKeyException | InvalidResponseException
+                 | NoSuchAlgorithmException | XmlParserException | ServerException e) {
+            throw new MinioServiceException("Failed to get object: " + args.object() + " from bucket: " + args.bucket(), e);
+        }
+        return inputStream;
+    }
+
+    /**
+     * 缓存未命中或过期时读取文件，etag 不为空时为条件请求，文件未变化返回 null
+     */
+    private GetObjectResponse loadObject(String bucketName, String objectName, String etag) throws MinioServiceException {
+        GetObjectArgs.Builder builder = GetObjectArgs.builder().bucket(bucketName).object(objectName);
+        if (etag != null) {
+            builder.notMatchETag(etag);
+        }
+        try {
+            return readObject(builder.build());
+        } catch (ServerException e) {
+            if (e.statusCode() == 304) {
+                return null;
+            }
+            throw new MinioServiceException("Failed to get object: " + objectName + " from bucket: " + bucketName, e);
+        } catch (MinioServiceException e) {
+            // 对冲读取包装了 sdk 异常
+            if (e.getCause() instanceof ServerException && ((ServerException) e.getCause()).statusCode() == 304) {
+                return null;
+            }
+            throw e;
+        } catch (ErrorResponseException | IOException | InsufficientDataException
+                 | InternalException | InvalidKeyException | InvalidResponseException
+                 | NoSuchAlgorithmException | XmlParserException e) {
+            throw new MinioServiceException("Failed to get object: " + objectName + " from bucket: " + bucketName, e);
+        }
+    }
+
+    /**
+     * 读取文件，启用对冲读取时慢请求会自动多发一次
+     */
+    private GetObjectResponse readObject(GetObjectArgs args) throws MinioServiceException, ErrorResponseException, InsufficientDataException,
+            InternalException, InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        return hedgedObjectReader != null ? hedgedObjectReader.getObject(args) : minioClient.getObject(args);
+    }
+
+    /**
+     * 并行分段下载文件到本地，分段大小及并发数使用 kangaroohy.minio.transfer 配置
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @param target     本地目标文件，已存在时覆盖
+     * @return 文件信息
+     */
+    public StatObjectResponse downloadObject(String bucketName, String objectName, Path target) throws MinioServiceException {
+        return downloadObject(bucketName, objectName, target, properties.getTransfer().getPartSize().toBytes(), properties.getTransfer().getConcurrency());
+    }
+
+    /**
+     * 并行分段下载文件到本地，每段直接写入文件对应位置，失败的分段单独重试
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param target      本地目标文件，已存在时覆盖
+     * @param rangeSize   每段大小
+     * @param parallelism 同时下载的段数
+     * @return 文件信息
+     */
+    public StatObjectResponse downloadObject(String bucketName, String objectName, Path target, long rangeSize, int parallelism) throws MinioServiceException {
+        return parallelDownloader.download(bucketName, objectName, target, rangeSize, parallelism, properties.getTransfer().getRangeRetries());
+    }
+
     /**
      * 获得外链，过期时间默认7天
      *
@@ -392,10 +720,18 @@ public class MinioService {
      * @param bucketName     bucket 名称
      * @param objectName     文件
      * @param replaceAddress 是否替换访问域名
-     * @param expires        过期时间，单位秒
+     * @param expires        过期时间，单位秒，为 null 时默认7天；启用地址缓存时按档位向上取整
      * @return
      */
     public String getObjectUrl(String bucketName, String objectName, boolean replaceAddress, Integer expires) throws MinioServiceException {
+        if (presignedUrlCache != null) {
+            return presignedUrlCache.get(bucketName, objectName, Method.GET, expires, replaceAddress,
+                    seconds -> signObjectUrl(bucketName, objectName, replaceAddress, seconds));
+        }
+        return signObjectUrl(bucketName, objectName, replaceAddress, expires != null ? expires : GetPresignedObjectUrlArgs.DEFAULT_EXPIRY_TIME);
+    }
+
+    private String signObjectUrl(String bucketName, String objectName, boolean replaceAddress, int expires) throws MinioServiceException {
         try {
             String objectUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).expiry(expires).method(Method.GET).build());
             return replaceAddress && properties.getAddress() != null ? objectUrl.replace(properties.getEndpoint(), properties.getAddress()) : objectUrl;
@@ -476,12 +812,12 @@ public class MinioService {
     public ObjectWriteResponse putObject(String bucketName, String objectName, String contentType,
                                          InputStream stream, long objectSize, long partSize) throws MinioServiceException {
         try {
-            return minioClient.putObject(PutObjectArgs.builder()
+            return written(bucketName, objectName, minioClient.putObject(PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(CustomUtil.getObjectName(objectName))
                     .stream(stream, objectSize, partSize)
                     .contentType(CustomUtil.getContentType(contentType))
-                    .build());
+                    .build()));
         } catch (ErrorResponseException | IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | InvalidResponseException
                  | NoSuchAlgorithmException | XmlParserException | ServerException e) {
@@ -489,6 +825,122 @@ public class MinioService {
         }
     }
 
+    /**
+     * 上传本地文件，分片大小、并发数及是否计算摘要使用 kangaroohy.minio.transfer 配置，
+     * 分片按文件大小计算，各上传线程通过 positional read 读取自己的分片
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称，如：2021/11/28/test.zip
+     * @param file       本地文件
+     * @return
+     */
+    public ObjectWriteResponse putObject(String bucketName, String objectName, Path file) throws MinioServiceException {
+        return putObject(bucketName, objectName, null, file);
+    }
+
+    /**
+     * 上传本地文件
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param file        本地文件
+     * @return
+     */
+    public ObjectWriteResponse putObject(String bucketName, String objectName, String contentType, Path file) throws MinioServiceException {
+        MinioProperties.Transfer transfer = properties.getTransfer();
+        return written(bucketName, objectName, parallelUploader.upload(bucketName, objectName, contentType, file,
+                transfer.getPartSize().toBytes(), transfer.getConcurrency(), transfer.isChecksum()));
+    }
+
+    /**
+     * 上传 FileChannel 中从当前 position 到末尾的数据，不改变 channel 的 position，channel 由调用方关闭
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param channel     文件通道
+     * @return
+     */
+    public ObjectWriteResponse putObject(String bucketName, String objectName, String contentType, FileChannel channel) throws MinioServiceException {
+        MinioProperties.Transfer transfer = properties.getTransfer();
+        return putObject(bucketName, objectName, contentType, channel, transfer.getPartSize().toBytes(), transfer.getConcurrency(), transfer.isChecksum());
+    }
+
+    /**
+     * 上传 FileChannel 中从当前 position 到末尾的数据，失败时自动取消分片上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param channel     文件通道
+     * @param partSize    分片大小，不小于 5MB，文件过大时自动调大
+     * @param concurrency 同时上传的分片数
+     * @param checksum    是否计算并发送分片摘要，关闭后不发送 Content-MD5，载荷使用 UNSIGNED-PAYLOAD
+     * @return
+     */
+    public ObjectWriteResponse putObject(String bucketName, String objectName, String contentType, FileChannel channel,
+                                         long partSize, int concurrency, boolean checksum) throws MinioServiceException {
+        return written(bucketName, objectName, parallelUploader.upload(bucketName, objectName, contentType, channel, partSize, concurrency, checksum));
+    }
+
+    /**
+     * 并行分片上传本地文件，分片大小及并发数使用 kangaroohy.minio.transfer 配置
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称，如：2021/11/28/test.zip
+     * @param file       本地文件
+     * @return
+     */
+    public ObjectWriteResponse putObjectParallel(String bucketName, String objectName, Path file) throws MinioServiceException {
+        return putObjectParallel(bucketName, objectName, null, file, properties.getTransfer().getPartSize().toBytes(), properties.getTransfer().getConcurrency());
+    }
+
+    /**
+     * 并行分片上传本地文件，失败时自动取消分片上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param file        本地文件
+     * @param partSize    分片大小，不小于 5MB
+     * @param concurrency 同时上传的分片数
+     * @return
+     */
+    public ObjectWriteResponse putObjectParallel(String bucketName, String objectName, String contentType,
+                                                 Path file, long partSize, int concurrency) throws MinioServiceException {
+        return written(bucketName, objectName, parallelUploader.upload(bucketName, objectName, contentType, file, partSize, concurrency,
+                properties.getTransfer().isChecksum()));
+    }
+
+    /**
+     * 并行分片上传文件流，流长度可以未知，分片大小及并发数使用 kangaroohy.minio.transfer 配置
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称，如：2021/11/28/test.zip
+     * @param stream     文件流
+     * @return
+     */
+    public ObjectWriteResponse putObjectParallel(String bucketName, String objectName, InputStream stream) throws MinioServiceException {
+        return putObjectParallel(bucketName, objectName, null, stream, properties.getTransfer().getPartSize().toBytes(), properties.getTransfer().getConcurrency());
+    }
+
+    /**
+     * 并行分片上传文件流，失败时自动取消分片上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param stream      文件流
+     * @param partSize    分片大小，不小于 5MB
+     * @param concurrency 同时上传的分片数
+     * @return
+     */
+    public ObjectWriteResponse putObjectParallel(String bucketName, String objectName, String contentType,
+                                                 InputStream stream, long partSize, int concurrency) throws MinioServiceException {
+        return written(bucketName, objectName, parallelUploader.upload(bucketName, objectName, contentType, stream, partSize, concurrency));
+    }
+
 
     /**
      * 上传大型对象的一部分到Minio存储桶，作为多部分上传过程的一部分。
@@ -527,7 +979,13 @@ public class MinioService {
     public void uploadPart(String bucketName, String region, String objectName, Object data, int length, String uploadId,
                            int partNumber, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams) throws MinioServiceException {
         try {
-            minioAsyncClient.uploadPart(bucketName, region, objectName, data, length, uploadId, partNumber, extraHeaders, extraQueryParams);
+            UploadPartResponse response = minioAsyncClient.uploadPart(bucketName, region, objectName, data, length, uploadId, partNumber, extraHeaders, extraQueryParams);
+            try {
+                recordUploadPart(uploadId, partNumber, response.etag(), length);
+            } catch (MinioServiceException e) {
+                // 分片已上传成功，记录失败只影响合并时能否直接使用本地记录，合并时会发现记录不完整并改为从 minio 列出分片
+                log.warn("Failed to record part {} of multipart upload: {}", partNumber, uploadId, e);
+            }
         } catch (IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | NoSuchAlgorithmException | XmlParserException |
                  ExecutionException |
@@ -556,6 +1014,7 @@ public class MinioService {
     public boolean removeObject(String bucketName, String objectName) throws MinioServiceException {
         try {
             minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build());
+            invalidateCache(bucketName, objectName);
             return true;
         } catch (ErrorResponseException | IOException | InsufficientDataException
                  | InternalException | InvalidKeyException | InvalidResponseException
@@ -565,28 +1024,72 @@ public class MinioService {
     }
 
     /**
-     * 批量删除
+     * 批量删除，按 1000 个一批同时发送多个批次
      *
      * @param bucketName
      * @param objectNames
-     * @return
+     * @return 删除失败的文件
      */
     public List<String> removeObjects(String bucketName, Collection<String> objectNames) throws MinioServiceException {
-        List<DeleteObject> objects = objectNames.stream().map(CustomUtil::getObjectName).map(DeleteObject::new).collect(Collectors.toList());
-        Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder().bucket(bucketName).objects(objects).build());
-        List<String> errorDeleteObjects = new ArrayList<>();
-        try {
-            for (Result<DeleteError> result : results) {
-                errorDeleteObjects.add(result.get().objectName());
-                log.error(String.format("Error in deleting object %s:%s, code=%s, message=%s",
-                        bucketName, result.get().objectName(), result.get().code(), result.get().message()));
-            }
-        } catch (ErrorResponseException | IOException | InsufficientDataException
-                 | InternalException | InvalidKeyException | InvalidResponseException
-                 | NoSuchAlgorithmException | XmlParserException | ServerException e) {
-            throw new MinioServiceException("Failed to remove objects from bucket: " + bucketName, e);
+        List<String> failed = bulkDeleter.delete(bucketName, objectNames.stream().map(CustomUtil::getObjectName).iterator(),
+                properties.getTransfer().getDeleteConcurrency());
+        objectNames.forEach(objectName -> invalidateCache(bucketName, objectName));
+        return failed;
+    }
+
+    /**
+     * 删除前缀下的所有文件（递归），边遍历边删除
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @return 删除失败的文件
+     */
+    public List<String> removeByPrefix(String bucketName, String prefix) throws MinioServiceException {
+        return removeByPrefix(bucketName, prefix, null);
+    }
+
+    /**
+     * 删除前缀下最后修改时间早于指定时间的文件（递归），边遍历边删除，适用于定期清理
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param olderThan  只删除早于该时间的文件，为空时全部删除
+     * @return 删除失败的文件
+     */
+    public List<String> removeByPrefix(String bucketName, String prefix, ZonedDateTime olderThan) throws MinioServiceException {
+        List<String> failed = bulkDeleter.deleteByPrefix(bucketName, prefix, olderThan, properties.getTransfer().getDeleteConcurrency());
+        invalidateCachePrefix(bucketName, prefix == null ? "" : CustomUtil.getObjectName(prefix));
+        return failed;
+    }
+
+    /**
+     * 写入成功后使该文件的缓存失效
+     */
+    private ObjectWriteResponse written(String bucketName, String objectName, ObjectWriteResponse response) {
+        invalidateCache(bucketName, objectName);
+        return response;
+    }
+
+    /**
+     * 通过本服务写入或删除文件后使内存缓存及本地缓存失效，其他途径的修改依赖缓存有效期
+     */
+    private void invalidateCache(String bucketName, String objectName) {
+        String object = CustomUtil.getObjectName(objectName);
+        if (memoryCache != null) {
+            memoryCache.invalidate(bucketName, object);
+        }
+        if (objectCache != null) {
+            objectCache.invalidate(bucketName, object);
+        }
+    }
+
+    private void invalidateCachePrefix(String bucketName, String prefix) {
+        if (memoryCache != null) {
+            memoryCache.invalidatePrefix(bucketName, prefix);
+        }
+        if (objectCache != null) {
+            objectCache.invalidatePrefix(bucketName, prefix);
         }
-        return errorDeleteObjects;
     }
 
     /**
@@ -852,26 +1355,12 @@ public class MinioService {
      */
     public MultiPartUploadInfo getPresignedMultipartUploadUrls(String bucketName, String path, String objectName, Integer partSize, String contentType, Integer time, TimeUnit timeUnit) throws MinioServiceException {
         String uploadId = "";
-        List<String> partUrlList = new ArrayList<>();
+        List<String> partUrlList;
         try {
             objectName = (StringUtils.hasText(path) ? CustomUtil.getPath(path) : "") + CustomUtil.getObjectName(objectName);
-            InitiateMultipartUploadResult uploadResponse = this.initMultiPartUpload(bucketName, objectName, contentType);
+            InitiateMultipartUploadResult uploadResponse = this.initMultiPartUpload(bucketName, null, objectName, contentType);
             uploadId = uploadResponse.uploadId();
-            Map<String, String> paramsMap = new HashMap<>(2);
-            paramsMap.put("uploadId", uploadId);
-            for (int i = 1; i <= partSize; i++) {
-                paramsMap.put("partNumber", String.valueOf(i));
-                // 获取上传 url
-                String uploadUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                        // 注意此处指定请求方法为 PUT，前端需对应，否则会报 `SignatureDoesNotMatch` 错误
-                        .method(Method.PUT)
-                        .bucket(bucketName)
-                        .object(objectName)
-                        // 指定上传连接有效期
-                        .expiry(time, timeUnit)
-                        .extraQueryParams(paramsMap).build());
-                partUrlList.add(uploadUrl);
-            }
+            partUrlList = presignUploadParts(bucketName, objectName, uploadId, IntStream.rangeClosed(1, partSize).boxed().collect(Collectors.toList()), time, timeUnit);
         } catch (IOException | InsufficientDataException | InternalException | InvalidKeyException |
                  NoSuchAlgorithmException | XmlParserException | ErrorResponseException | InvalidResponseException |
                  ServerException e) {
@@ -950,24 +1439,10 @@ public class MinioService {
      * @return
      */
     public MultiPartUploadInfo getPresignedMultipartUploadUrlsByPartNumbers(String uploadId, String bucketName, String path, String objectName, List<Integer> partNumbers, Integer time, TimeUnit timeUnit) throws MinioServiceException {
-        List<String> partUrlList = new ArrayList<>();
+        List<String> partUrlList;
         try {
             objectName = (StringUtils.hasText(path) ? CustomUtil.getPath(path) : "") + CustomUtil.getObjectName(objectName);
-            Map<String, String> paramsMap = new HashMap<>(2);
-            paramsMap.put("uploadId", uploadId);
-            for (Integer partNumber : partNumbers) {
-                paramsMap.put("partNumber", String.valueOf(partNumber));
-                // 获取上传 url
-                String uploadUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                        // 注意此处指定请求方法为 PUT，前端需对应，否则会报 `SignatureDoesNotMatch` 错误
-                        .method(Method.PUT)
-                        .bucket(bucketName)
-                        .object(objectName)
-                        // 指定上传连接有效期
-                        .expiry(time, timeUnit)
-                        .extraQueryParams(paramsMap).build());
-                partUrlList.add(uploadUrl);
-            }
+            partUrlList = presignUploadParts(bucketName, objectName, uploadId, partNumbers, time, timeUnit);
         } catch (IOException | InsufficientDataException | InternalException | InvalidKeyException |
                  NoSuchAlgorithmException | XmlParserException | ErrorResponseException | InvalidResponseException |
                  ServerException e) {
@@ -982,6 +1457,34 @@ public class MinioService {
                 .build();
     }
 
+    /**
+     * 生成分片上传预签名地址，配置了 region 时本地批量签名，否则逐个调用 sdk 签名
+     */
+    private List<String> presignUploadParts(String bucketName, String objectName, String uploadId, List<Integer> partNumbers,
+                                            Integer time, TimeUnit timeUnit) throws IOException, InsufficientDataException, InternalException,
+            InvalidKeyException, NoSuchAlgorithmException, XmlParserException, ErrorResponseException, InvalidResponseException, ServerException {
+        if (bulkPresigner != null) {
+            return bulkPresigner.presignUploadParts(bucketName, objectName, uploadId, partNumbers, time, timeUnit);
+        }
+        List<String> partUrlList = new ArrayList<>(partNumbers.size());
+        Map<String, String> paramsMap = new HashMap<>(2);
+        paramsMap.put("uploadId", uploadId);
+        for (Integer partNumber : partNumbers) {
+            paramsMap.put("partNumber", String.valueOf(partNumber));
+            // 获取上传 url
+            String uploadUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    // 注意此处指定请求方法为 PUT，前端需对应，否则会报 `SignatureDoesNotMatch` 错误
+                    .method(Method.PUT)
+                    .bucket(bucketName)
+                    .object(objectName)
+                    // 指定上传连接有效期
+                    .expiry(time, timeUnit)
+                    .extraQueryParams(paramsMap).build());
+            partUrlList.add(uploadUrl);
+        }
+        return partUrlList;
+    }
+
     /**
      * 初始化分片上传
      *
@@ -1029,7 +1532,18 @@ public class MinioService {
     public InitiateMultipartUploadResult initMultiPartUpload(String bucketName, String path, String objectName, String contentType) throws MinioServiceException {
         try {
             objectName = (StringUtils.hasText(path) ? CustomUtil.getPath(path) : "") + CustomUtil.getObjectName(objectName);
-            return minioAsyncClient.initMultiPartUpload(bucketName, null, objectName, CustomUtil.getHeader(contentType), null);
+            InitiateMultipartUploadResult result = minioAsyncClient.initMultiPartUpload(bucketName, null, objectName, CustomUtil.getHeader(contentType), null);
+            if (multipartSessionStore != null) {
+                LocalDateTime now = LocalDateTime.now();
+                multipartSessionStore.save(MultiPartSession.builder()
+                        .uploadId(result.uploadId())
+                        .bucketName(bucketName)
+                        .objectName(objectName)
+                        .createTime(now)
+                        .expiryTime(now.plus(properties.getMultipartSession().getTtl()))
+                        .build());
+            }
+            return result;
         } catch (IOException | InsufficientDataException | InternalException | InvalidKeyException |
                  NoSuchAlgorithmException | XmlParserException | ExecutionException | InterruptedException e) {
             throw new MinioServiceException("Failed to initiate multipart upload for object: " + objectName + " in bucket: " + bucketName, e);
@@ -1063,27 +1577,73 @@ public class MinioService {
 
 
     /**
-     * 合并分片
+     * 合并分片。本地记录的分片从 1 起连续、且 minio 上没有更大序号的分片时直接使用本地记录，
+     * 否则（未记录、有分片未上报或记录失败）按 partNumberMarker 逐页列出全部分片
      *
      * @param bucketName
      * @param objectName
      * @param uploadId
+     * @param maxParts 列出分片时每页数量，最大 1000
      * @return
      * @throws MinioException
      */
     public String mergeMultiPartUpload(String bucketName, String objectName, String uploadId, Integer maxParts) throws MinioServiceException {
-        try {
-            ListPartsResponse partsResponse = minioAsyncClient.listMultipart(bucketName, null, CustomUtil.getObjectName(objectName), maxParts, 0, uploadId, null, null);
-            if (null == partsResponse) {
+        Part[] parts;
+        MultiPartSession session = localSession(bucketName, objectName, uploadId);
+        if (session != null && isComplete(bucketName, objectName, uploadId, session.getParts())) {
+            parts = session.getParts().stream().map(part -> new Part(part.getPartNumber(), part.getEtag())).toArray(Part[]::new);
+        } else {
+            if (session != null) {
+                log.info("Recorded parts of multipart upload {} are incomplete, listing parts from minio", uploadId);
+            }
+            List<Part> partList = listAllParts(bucketName, objectName, uploadId, maxParts);
+            if (partList.isEmpty()) {
                 throw new MinioServiceException("No parts response available for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId);
             }
-            List<Part> partList = partsResponse.result().partList();
-            Part[] parts = new Part[partList.size()];
-            partList.toArray(parts);
+            parts = partList.toArray(new Part[0]);
+        }
+        return completeMultiPartUpload(bucketName, objectName, uploadId, parts);
+    }
+
+    /**
+     * 使用已知的分片 ETag 合并分片，不再列出分片
+     *
+     * @param objectName
+     * @param uploadId
+     * @param etags      partNumber 与 ETag，如前端直传时分片响应头中的 ETag
+     * @return
+     */
+    public String mergeMultiPartUpload(String objectName, String uploadId, Map<Integer, String> etags) throws MinioServiceException {
+        return mergeMultiPartUpload(getBucketName(), objectName, uploadId, etags);
+    }
+
+    /**
+     * 使用已知的分片 ETag 合并分片，不再列出分片
+     *
+     * @param bucketName
+     * @param objectName
+     * @param uploadId
+     * @param etags      partNumber 与 ETag，如前端直传时分片响应头中的 ETag
+     * @return
+     */
+    public String mergeMultiPartUpload(String bucketName, String objectName, String uploadId, Map<Integer, String> etags) throws MinioServiceException {
+        if (etags == null || etags.isEmpty()) {
+            throw new MinioServiceException("No parts provided for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId);
+        }
+        Part[] parts = new TreeMap<>(etags).entrySet().stream().map(entry -> new Part(entry.getKey(), entry.getValue())).toArray(Part[]::new);
+        return completeMultiPartUpload(bucketName, objectName, uploadId, parts);
+    }
+
+    private String completeMultiPartUpload(String bucketName, String objectName, String uploadId, Part[] parts) throws MinioServiceException {
+        try {
             ObjectWriteResponse writeResponse = minioAsyncClient.mergeMultipartUpload(bucketName, null, CustomUtil.getObjectName(objectName), uploadId, parts, null, null);
             if (null == writeResponse) {
                 throw new MinioServiceException("Failed to complete multipart upload for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId);
             }
+            if (multipartSessionStore != null) {
+                multipartSessionStore.remove(uploadId);
+            }
+            invalidateCache(bucketName, objectName);
             return getAddress(writeResponse.region());
         } catch (IOException | InsufficientDataException | InternalException |
                  InvalidKeyException | NoSuchAlgorithmException | XmlParserException |
@@ -1119,27 +1679,99 @@ public class MinioService {
     }
 
     /**
-     * 获取已上传的分片列表
+     * 获取已上传的分片列表。本地记录的分片完整时（与合并使用同一判断）直接返回本地记录，
+     * 否则（如通过预签名地址直传、未上报的分片）按 partNumberMarker 逐页列出全部分片
      *
      * @param bucketName
      * @param objectName
      * @param uploadId
-     * @param maxParts
+     * @param maxParts 每页数量，最大 1000，逐页列出全部分片
      * @return
      * @throws MinioException
      */
     public List<Integer> listUploadMultiPart(String bucketName, String objectName, String uploadId, Integer maxParts) throws MinioServiceException {
-        ListPartsResponse partsResponse;
+        MultiPartSession session = localSession(bucketName, objectName, uploadId);
+        if (session != null && isComplete(bucketName, objectName, uploadId, session.getParts())) {
+            return session.getParts().stream().map(MultiPartSessionPart::getPartNumber).collect(Collectors.toList());
+        }
+        return listAllParts(bucketName, objectName, uploadId, maxParts).stream().map(Part::partNumber).collect(Collectors.toList());
+    }
+
+    /**
+     * 按 partNumberMarker 逐页列出全部已上传分片
+     *
+     * @param maxParts 每页数量，最大 1000
+     */
+    private List<Part> listAllParts(String bucketName, String objectName, String uploadId, Integer maxParts) throws MinioServiceException {
+        List<Part> parts = new ArrayList<>();
+        int partNumberMarker = 0;
         try {
-            partsResponse = minioAsyncClient.listMultipart(bucketName, null, CustomUtil.getObjectName(objectName), maxParts, 0, uploadId, null, null);
+            while (true) {
+                ListPartsResponse partsResponse = minioAsyncClient.listMultipart(bucketName, null, CustomUtil.getObjectName(objectName), maxParts, partNumberMarker, uploadId, null, null);
+                if (null == partsResponse) {
+                    return parts;
+                }
+                ListPartsResult result = partsResponse.result();
+                parts.addAll(result.partList());
+                if (!result.isTruncated() || result.nextPartNumberMarker() <= partNumberMarker) {
+                    return parts;
+                }
+                partNumberMarker = result.nextPartNumberMarker();
+            }
         } catch (NoSuchAlgorithmException | IOException | InvalidKeyException | ExecutionException |
                  InterruptedException | InsufficientDataException | XmlParserException | InternalException e) {
             throw new MinioServiceException("Failed to list multipart upload parts for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId, e);
         }
-        if (null == partsResponse) {
-            return Collections.emptyList();
+    }
+
+    /**
+     * 本地记录的分片是否完整：序号为 1..n 连续，且 minio 上没有序号大于 n 的分片（只查一页、一条），
+     * 避免有分片未上报时合并出被截断的文件
+     */
+    private boolean isComplete(String bucketName, String objectName, String uploadId, List<MultiPartSessionPart> recorded) throws MinioServiceException {
+        for (int i = 0; i < recorded.size(); i++) {
+            if (recorded.get(i).getPartNumber() != i + 1) {
+                return false;
+            }
+        }
+        try {
+            ListPartsResponse partsResponse = minioAsyncClient.listMultipart(bucketName, null, CustomUtil.getObjectName(objectName), 1, recorded.size(), uploadId, null, null);
+            return partsResponse == null || partsResponse.result().partList().isEmpty();
+        } catch (NoSuchAlgorithmException | IOException | InvalidKeyException | ExecutionException |
+                 InterruptedException | InsufficientDataException | XmlParserException | InternalException e) {
+            throw new MinioServiceException("Failed to list multipart upload parts for object: " + objectName + " in bucket: " + bucketName + ", upload ID: " + uploadId, e);
         }
-        return partsResponse.result().partList().stream().map(Part::partNumber).collect(Collectors.toList());
+    }
+
+    /**
+     * 记录前端通过预签名地址直传完成的分片，ETag 取自分片上传响应头；
+     * 未配置会话存储或会话不存在时忽略。<br/>
+     * 部分分片未上报时，合并会发现记录不完整并改为从 minio 列出分片
+     *
+     * @param uploadId   上传标识
+     * @param partNumber 分片序号
+     * @param etag       分片 ETag
+     * @param size       分片大小，单位 字节
+     */
+    public void recordUploadPart(String uploadId, int partNumber, String etag, long size) throws MinioServiceException {
+        if (multipartSessionStore != null) {
+            multipartSessionStore.putPart(uploadId, new MultiPartSessionPart(partNumber, etag, size));
+        }
+    }
+
+    /**
+     * 会话存储中记录了分片的会话，bucket 与对象不一致或尚无分片时返回 null，此时回退到从 minio 列出分片
+     */
+    private MultiPartSession localSession(String bucketName, String objectName, String uploadId) throws MinioServiceException {
+        if (multipartSessionStore == null) {
+            return null;
+        }
+        MultiPartSession session = multipartSessionStore.get(uploadId);
+        if (session == null || session.getParts().isEmpty()
+                || !bucketName.equals(session.getBucketName()) || !CustomUtil.getObjectName(objectName).equals(session.getObjectName())) {
+            return null;
+        }
+        return session;
     }
 
     /**
@@ -1173,6 +1805,24 @@ public class MinioService {
         return url.replace(properties.getEndpoint(), address);
     }
 
+    /**
+     * 预签名下载地址缓存，未启用时为 null，可用于获取命中/未命中次数
+     *
+     * @return
+     */
+    public PresignedUrlCache getPresignedUrlCache() {
+        return presignedUrlCache;
+    }
+
+    /**
+     * bucket 元数据缓存，未启用时为 null，bucket 被其他途径修改后可调用 invalidateAll 清除
+     *
+     * @return
+     */
+    public BucketMetadataCache getBucketMetadataCache() {
+        return bucketMetadataCache;
+    }
+
     /**
      * 默认BucketName
      *
@@ -0,0 +1,162 @@
+package com.kangaroohy.minio.service;
+
+import com.kangaroohy.minio.configuration.MinioProperties;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.service.client.MinioClientProvider;
+import com.kangaroohy.minio.service.client.MinioClientProviderImpl;
+import com.kangaroohy.minio.service.multipart.MultipartSessionStore;
+import io.minio.MinioClient;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 类 MinioServiceRegistry 功能描述：<br/>
+ * 按 kangaroohy.minio.clients.&lt;name&gt;.* 配置的命名客户端获取对应的 MinioService / AsyncMinioService，
+ * 首次获取时创建，之后无锁读取；客户端由 MinioClientProvider 提供，共用同一个 HTTP 客户端。
+ * 每次获取都经过 MinioClientProvider，使用中的客户端不会被空闲移除；客户端被移除后对应的服务一并移除，
+ * 下次获取时随新客户端重新创建
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 09:30
+ */
+public class MinioServiceRegistry {
+
+    private final MinioProperties properties;
+
+    private final MinioClientProvider minioClientProvider;
+
+    private final MultipartSessionStore multipartSessionStore;
+
+    private final Executor executor;
+
+    /**
+     * 合并默认值后的命名客户端配置
+     */
+    private final ConcurrentMap<String, MinioProperties> clientProperties = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Registration<MinioService>> services = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Registration<AsyncMinioService>> asyncServices = new ConcurrentHashMap<>();
+
+    public MinioServiceRegistry(MinioProperties properties, MinioClientProvider minioClientProvider) {
+        this(properties, minioClientProvider, null);
+    }
+
+    /**
+     * @param multipartSessionStore 各客户端共用的分片上传会话存储，可为 null
+     */
+    public MinioServiceRegistry(MinioProperties properties, MinioClientProvider minioClientProvider, MultipartSessionStore multipartSessionStore) {
+        this(properties, minioClientProvider, multipartSessionStore, null);
+    }
+
+    /**
+     * @param multipartSessionStore 各客户端共用的分片上传会话存储，可为 null
+     * @param executor              各客户端共用的线程池（并行传输及异步回调），为 null 时同单客户端的默认行为
+     */
+    public MinioServiceRegistry(MinioProperties properties, MinioClientProvider minioClientProvider, MultipartSessionStore multipartSessionStore,
+                                Executor executor) {
+        this.properties = properties;
+        this.minioClientProvider = minioClientProvider;
+        this.multipartSessionStore = multipartSessionStore;
+        this.executor = executor;
+        if (minioClientProvider instanceof MinioClientProviderImpl) {
+            ((MinioClientProviderImpl) minioClientProvider).addEvictionListener(this::onClientEvicted);
+        }
+    }
+
+    /**
+     * 获取命名客户端对应的 MinioService
+     *
+     * @param name 客户端名称
+     * @return MinioService
+     * @throws MinioServiceException 未配置该名称时
+     */
+    public MinioService getService(String name) throws MinioServiceException {
+        MinioProperties clientProperties = clientProperties(name);
+        ExtendMinioAsyncClient asyncClient = minioClientProvider.getAsyncClient(clientProperties.getEndpoint(), clientProperties.getAccessKey(),
+                clientProperties.getSecretKey(), clientProperties.getRegion());
+        MinioClient client = minioClientProvider.getClient(clientProperties.getEndpoint(), clientProperties.getAccessKey(),
+                clientProperties.getSecretKey(), clientProperties.getRegion());
+        Registration<MinioService> registration = services.get(name);
+        if (registration != null && registration.matches(asyncClient, client)) {
+            return registration.service;
+        }
+        // 首次获取，或客户端已被移除后重建
+        return services.compute(name, (key, current) -> current != null && current.matches(asyncClient, client) ? current
+                : new Registration<>(new MinioService(clientProperties, asyncClient, client, multipartSessionStore, null, null, executor), asyncClient, client)).service;
+    }
+
+    /**
+     * 获取命名客户端对应的 AsyncMinioService
+     *
+     * @param name 客户端名称
+     * @return AsyncMinioService
+     * @throws MinioServiceException 未配置该名称时
+     */
+    public AsyncMinioService getAsyncService(String name) throws MinioServiceException {
+        MinioProperties clientProperties = clientProperties(name);
+        ExtendMinioAsyncClient asyncClient = minioClientProvider.getAsyncClient(clientProperties.getEndpoint(), clientProperties.getAccessKey(),
+                clientProperties.getSecretKey(), clientProperties.getRegion());
+        Registration<AsyncMinioService> registration = asyncServices.get(name);
+        if (registration != null && registration.matches(asyncClient, null)) {
+            return registration.service;
+        }
+        return asyncServices.compute(name, (key, current) -> current != null && current.matches(asyncClient, null) ? current
+                : new Registration<>(new AsyncMinioService(clientProperties, asyncClient, executor != null ? executor : ForkJoinPool.commonPool()),
+                asyncClient, null)).service;
+    }
+
+    /**
+     * 已配置的客户端名称
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(properties.getClients().keySet());
+    }
+
+    /**
+     * 客户端被 MinioClientProvider 移除后，移除使用它的服务，释放引用
+     */
+    private void onClientEvicted(Object client) {
+        services.values().removeIf(registration -> registration.uses(client));
+        asyncServices.values().removeIf(registration -> registration.uses(client));
+    }
+
+    private MinioProperties clientProperties(String name) throws MinioServiceException {
+        MinioProperties resolved = clientProperties.get(name);
+        if (resolved != null) {
+            return resolved;
+        }
+        MinioProperties.Client client = properties.getClients().get(name);
+        if (client == null) {
+            throw new MinioServiceException("未配置的 minio 客户端: " + name);
+        }
+        return clientProperties.computeIfAbsent(name, key -> properties.forClient(client));
+    }
+
+    private static final class Registration<S> {
+        private final S service;
+        private final ExtendMinioAsyncClient asyncClient;
+        private final MinioClient client;
+
+        private Registration(S service, ExtendMinioAsyncClient asyncClient, MinioClient client) {
+            this.service = service;
+            this.asyncClient = asyncClient;
+            this.client = client;
+        }
+
+        private boolean matches(ExtendMinioAsyncClient asyncClient, MinioClient client) {
+            return this.asyncClient == asyncClient && this.client == client;
+        }
+
+        private boolean uses(Object client) {
+            return asyncClient == client || this.client == client;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.kangaroohy.minio.service;
+
+import com.kangaroohy.minio.configuration.MinioProperties;
+import com.kangaroohy.minio.constant.MinioConstant;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.cache.ObjectCache;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.utils.CustomUtil;
+import com.kangaroohy.minio.utils.FutureUtil;
+import io.minio.*;
+import io.minio.messages.InitiateMultipartUploadResult;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import io.minio.messages.Prefix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 类 ReactiveMinioService 功能描述：<br/>
+ * MinioService 的响应式版本，基于 MinioAsyncClient 的 future 构建，供 WebFlux 应用使用：
+ * 上传接收 Flux&lt;DataBuffer&gt; 并按分片大小切分后并行上传，下载按需读取输出 Flux&lt;DataBuffer&gt;，
+ * 遍历按下游需求逐页请求，内存占用均有上限，异常统一为 MinioServiceException
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 18:00
+ */
+@Slf4j
+public class ReactiveMinioService {
+
+    /**
+     * 下载时每个 DataBuffer 的大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 上传已取消或失败的标记，不是合法的 uploadId
+     */
+    private static final String ABORTED = "";
+
+    private final MinioProperties properties;
+
+    private final ExtendMinioAsyncClient minioAsyncClient;
+
+    private final DataBufferFactory dataBufferFactory;
+
+    /**
+     * 与 MinioService 共用的文件缓存，通过本服务写入或删除文件后同样使其失效
+     */
+    private final List<ObjectCache> objectCaches;
+
+    public ReactiveMinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient) {
+        this(properties, minioAsyncClient, DefaultDataBufferFactory.sharedInstance);
+    }
+
+    public ReactiveMinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, DataBufferFactory dataBufferFactory) {
+        this(properties, minioAsyncClient, dataBufferFactory, Collections.emptyList());
+    }
+
+    /**
+     * @param dataBufferFactory 下载时创建 DataBuffer
+     * @param objectCaches      需要在写入、删除后失效的文件缓存，如 MinioService 使用的内存缓存及本地缓存
+     */
+    public ReactiveMinioService(MinioProperties properties, ExtendMinioAsyncClient minioAsyncClient, DataBufferFactory dataBufferFactory,
+                                List<? extends ObjectCache> objectCaches) {
+        this.properties = properties;
+        this.minioAsyncClient = minioAsyncClient;
+        this.dataBufferFactory = dataBufferFactory;
+        this.objectCaches = new ArrayList<>(objectCaches);
+    }
+
+    /**
+     * 获得文件信息
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return
+     */
+    public Mono<StatObjectResponse> statObject(String bucketName, String objectName) {
+        return mono(() -> FutureUtil.call("Failed to stat object: " + objectName + " in bucket: " + bucketName,
+                () -> minioAsyncClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build())));
+    }
+
+    /**
+     * 下载文件，下游请求时才从连接中读取下一块数据，取消订阅时关闭连接
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return
+     */
+    public Flux<DataBuffer> getObject(String bucketName, String objectName) {
+        return read(bucketName, objectName, GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build());
+    }
+
+    /**
+     * 下载文件的指定范围
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @param length     长度
+     * @param offset     起始位置
+     * @return
+     */
+    public Flux<DataBuffer> getObject(String bucketName, String objectName, long length, Long offset) {
+        return read(bucketName, objectName, GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).length(length).offset(offset).build());
+    }
+
+    private Flux<DataBuffer> read(String bucketName, String objectName, GetObjectArgs args) {
+        // 请求以非阻塞方式发出，响应体只能阻塞读取，按需读取放在 boundedElastic 上，不占用事件循环线程
+        return mono(() -> FutureUtil.call("Failed to get object: " + objectName + " from bucket: " + bucketName, () -> minioAsyncClient.getObject(args)))
+                .flatMapMany(response -> DataBufferUtils.readInputStream(() -> response, dataBufferFactory, BUFFER_SIZE)
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorMap(e -> !(e instanceof MinioServiceException),
+                        e -> new MinioServiceException("Failed to get object: " + objectName + " from bucket: " + bucketName, e));
+    }
+
+    /**
+     * 上传文件，分片大小及并发数使用 kangaroohy.minio.transfer 配置
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param content     文件内容
+     * @return
+     */
+    public Mono<ObjectWriteResponse> putObject(String bucketName, String objectName, String contentType, Flux<DataBuffer> content) {
+        return putObject(bucketName, objectName, contentType, content, properties.getTransfer().getPartSize().toBytes(), properties.getTransfer().getConcurrency());
+    }
+
+    /**
+     * 上传文件：DataBuffer 拷贝进分片后立即释放，满一个分片即上传，同时上传的分片数不超过 concurrency，
+     * 内存占用约为 (concurrency + 1) 个分片；内容不足一个分片时普通上传，失败或取消时自动取消分片上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称，如：2021/11/28/test.zip
+     * @param contentType 文件类型
+     * @param content     文件内容
+     * @param partSize    分片大小，不小于 5MB
+     * @param concurrency 同时上传的分片数
+     * @return
+     */
+    public Mono<ObjectWriteResponse> putObject(String bucketName, String objectName, String contentType, Flux<DataBuffer> content,
+                                               long partSize, int concurrency) {
+        String object = CustomUtil.getObjectName(objectName);
+        String message = "Failed to upload object: " + objectName + " to bucket: " + bucketName;
+        int size = (int) Math.min(Math.max(partSize, ObjectWriteArgs.MIN_MULTIPART_SIZE), Integer.MAX_VALUE - 8);
+        return Mono.defer(() -> {
+            PartAssembler assembler = new PartAssembler(size);
+            // 取消或失败后置为 ABORTED，此后才完成的初始化在回调中自行取消，保证每个 uploadId 只取消一次
+            AtomicReference<String> uploadId = new AtomicReference<>();
+            Mono<String> init = mono(() -> FutureUtil.call(message, () -> {
+                CompletableFuture<InitiateMultipartUploadResult> future = minioAsyncClient.initMultiPartUploadAsync(bucketName, null, object,
+                        CustomUtil.getHeader(contentType), null);
+                // 取消订阅时返回的 future 被取消，回调挂在 sdk 的 future 上，请求完成后仍能取消
+                future.thenAccept(result -> {
+                    if (!uploadId.compareAndSet(null, result.uploadId())) {
+                        abort(bucketName, object, result.uploadId());
+                    }
+                });
+                return future;
+            }))
+                    .map(InitiateMultipartUploadResult::uploadId)
+                    .cache();
+            AtomicReference<ObjectWriteResponse> single = new AtomicReference<>();
+            return content
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .concatMapIterable(assembler::append, 1)
+                    .concatWith(Mono.fromSupplier(assembler::finish).flatMapIterable(chunk -> chunk))
+                    .flatMapSequential(chunk -> {
+                        if (chunk.partNumber > ObjectWriteArgs.MAX_MULTIPART_COUNT) {
+                            return Mono.error(new MinioServiceException(message + ", part count exceeds " + ObjectWriteArgs.MAX_MULTIPART_COUNT));
+                        }
+                        if (chunk.partNumber == 1 && chunk.last) {
+                            // 不足一个分片，直接普通上传；分片大小不小于内容长度，sdk 不会再自行分片，取消时不会留下分片上传
+                            return ReactiveMinioService.<ObjectWriteResponse>mono(() -> FutureUtil.call(message, () -> minioAsyncClient.putObject(PutObjectArgs.builder()
+                                    .bucket(bucketName)
+                                    .object(object)
+                                    .stream(new ByteArrayInputStream(chunk.data, 0, chunk.length), chunk.length,
+                                            Math.max(chunk.length, ObjectWriteArgs.MIN_MULTIPART_SIZE))
+                                    .contentType(CustomUtil.getContentType(contentType))
+                                    .build())))
+                                    .doOnNext(single::set)
+                                    .then(Mono.<Part>empty());
+                        }
+                        return init.flatMap(id -> mono(() -> FutureUtil.call(message,
+                                        () -> minioAsyncClient.uploadPartAsync(bucketName, null, object, chunk.data, chunk.length, id, chunk.partNumber, null, null))))
+                                .map(response -> new Part(chunk.partNumber, response.etag()));
+                    }, Math.max(1, concurrency), 1)
+                    .collectList()
+                    .flatMap(parts -> {
+                        if (single.get() != null) {
+                            return Mono.just(single.get());
+                        }
+                        return init.flatMap(id -> mono(() -> FutureUtil.call(message,
+                                () -> minioAsyncClient.mergeMultipartUploadAsync(bucketName, null, object, id, parts.toArray(new Part[0]), null, null))));
+                    })
+                    .doOnNext(response -> invalidateCache(bucketName, object))
+                    .onErrorMap(e -> !(e instanceof MinioServiceException), e -> new MinioServiceException(message, e))
+                    .doOnError(e -> abort(bucketName, object, uploadId.getAndSet(ABORTED)))
+                    .doOnCancel(() -> abort(bucketName, object, uploadId.getAndSet(ABORTED)));
+        });
+    }
+
+    /**
+     * 通过本服务写入或删除文件后使缓存失效，与 MinioService 一致
+     */
+    private void invalidateCache(String bucketName, String object) {
+        objectCaches.forEach(cache -> cache.invalidate(bucketName, object));
+    }
+
+    private void abort(String bucketName, String object, String uploadId) {
+        if (uploadId == null || ABORTED.equals(uploadId)) {
+            return;
+        }
+        FutureUtil.call("Failed to abort multipart upload: " + uploadId,
+                        () -> minioAsyncClient.removeMultipartUploadAsync(bucketName, null, object, uploadId, null, null))
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        log.warn("Failed to abort multipart upload {} of {}/{}", uploadId, bucketName, object, e);
+                    }
+                });
+    }
+
+    /**
+     * 遍历文件，每页 1000 个
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @return
+     */
+    public Flux<Item> listObjects(String bucketName, String prefix, boolean recursive) {
+        return listObjects(bucketName, prefix, recursive, null);
+    }
+
+    /**
+     * 遍历文件，当前页被下游消费完才请求下一页，取消订阅后不再请求
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，包括路径
+     * @param recursive  是否递归查询
+     * @param pageSize   每页数量，为 null 时取 1000
+     * @return
+     */
+    public Flux<Item> listObjects(String bucketName, String prefix, boolean recursive, Integer pageSize) {
+        // 每次只展开一页，当前页的条目全部发出后 flatMap 才向 expand 请求下一页
+        return listPage(bucketName, prefix, recursive, pageSize, null)
+                .expand(result -> result.isTruncated() && StringUtils.hasText(result.nextContinuationToken())
+                        ? listPage(bucketName, prefix, recursive, pageSize, result.nextContinuationToken())
+                        : Mono.empty())
+                .flatMap(result -> {
+                    if (recursive) {
+                        return Flux.fromIterable(result.contents());
+                    }
+                    List<Item> items = new ArrayList<>(result.contents());
+                    result.commonPrefixes().stream().map(Prefix::toItem).forEach(items::add);
+                    return Flux.fromIterable(items);
+                }, 1, 1);
+    }
+
+    /**
+     * 下游请求时才发出列表请求：expand 在发出上一页后立即订阅下一页，订阅时请求会提前发出
+     */
+    private Mono<ListBucketResultV2> listPage(String bucketName, String prefix, boolean recursive, Integer pageSize, String continuationToken) {
+        return Mono.create(sink -> {
+            AtomicBoolean requested = new AtomicBoolean();
+            sink.onRequest(n -> {
+                if (!requested.compareAndSet(false, true)) {
+                    return;
+                }
+                FutureUtil.call("Failed to list objects in bucket: " + bucketName,
+                                () -> minioAsyncClient.listObjectsPageAsync(bucketName, prefix, recursive ? null : MinioConstant.URI_DELIMITER, null, pageSize, continuationToken))
+                        .whenComplete((response, e) -> {
+                            if (e != null) {
+                                sink.error(FutureUtil.unwrap(e));
+                            } else {
+                                sink.success(response.result());
+                            }
+                        });
+            });
+        });
+    }
+
+    /**
+     * 单个删除
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return
+     */
+    public Mono<Boolean> removeObject(String bucketName, String objectName) {
+        return mono(() -> FutureUtil.call("Failed to remove object: " + objectName + " from bucket: " + bucketName,
+                () -> minioAsyncClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName)).build())))
+                .then(Mono.fromRunnable(() -> invalidateCache(bucketName, CustomUtil.getObjectName(objectName))))
+                .thenReturn(true);
+    }
+
+    public String getBucketName() {
+        return properties.getBucketName();
+    }
+
+    /**
+     * 订阅时才发起请求
+     */
+    private static <T> Mono<T> mono(Supplier<CompletableFuture<T>> call) {
+        return Mono.defer(() -> Mono.fromFuture(call.get()));
+    }
+
+    /**
+     * 分片
+     */
+    private static class Chunk {
+
+        private final int partNumber;
+
+        private final byte[] data;
+
+        private final int length;
+
+        private final boolean last;
+
+        Chunk(int partNumber, byte[] data, int length, boolean last) {
+            this.partNumber = partNumber;
+            this.data = data;
+            this.length = length;
+            this.last = last;
+        }
+    }
+
+    /**
+     * 把任意大小的 DataBuffer 拼成固定大小的分片，每个 DataBuffer 拷贝后立即释放
+     */
+    private static class PartAssembler {
+
+        private final int partSize;
+
+        private byte[] current;
+
+        private int position;
+
+        private int partNumber;
+
+        PartAssembler(int partSize) {
+            this.partSize = partSize;
+        }
+
+        List<Chunk> append(DataBuffer buffer) {
+            try {
+                List<Chunk> chunks = Collections.emptyList();
+                while (buffer.readableByteCount() > 0) {
+                    if (current == null) {
+                        current = new byte[partSize];
+                        position = 0;
+                    }
+                    int length = Math.min(buffer.readableByteCount(), partSize - position);
+                    buffer.read(current, position, length);
+                    position += length;
+                    if (position == partSize) {
+                        if (chunks.isEmpty()) {
+                            chunks = new ArrayList<>(1);
+                        }
+                        chunks.add(new Chunk(++partNumber, current, partSize, false));
+                        current = null;
+                    }
+                }
+                return chunks;
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        /**
+         * 剩余数据作为最后一个分片；内容为空时也返回一个空分片，用于上传空文件
+         */
+        List<Chunk> finish() {
+            if (position > 0 && current != null) {
+                return Collections.singletonList(new Chunk(++partNumber, current, position, true));
+            }
+            return partNumber == 0 ? Collections.singletonList(new Chunk(++partNumber, new byte[0], 0, true)) : Collections.emptyList();
+        }
+    }
+}
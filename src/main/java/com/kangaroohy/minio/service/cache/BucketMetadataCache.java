@@ -0,0 +1,161 @@
+package com.kangaroohy.minio.service.cache;
+
+import io.minio.messages.Bucket;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类 BucketMetadataCache 功能描述：<br/>
+ * bucket 元数据缓存：是否存在、通过本服务设置的访问策略、bucket 列表，按 TTL 过期；
+ * 通过 MinioService 创建、删除 bucket 或设置策略时同步更新，其他途径的修改在 TTL 内不可见
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/25 10:15
+ */
+public class BucketMetadataCache {
+
+    private final ConcurrentHashMap<String, Timed<Boolean>> exists = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Timed<String>> policies = new ConcurrentHashMap<>();
+
+    private volatile Timed<BucketList> buckets;
+
+    private final long ttlMillis;
+
+    /**
+     * @param ttlMillis 缓存有效期，单位毫秒
+     */
+    public BucketMetadataCache(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttl must be greater than 0");
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 加载函数
+     */
+    @FunctionalInterface
+    public interface Loader<T, E extends Exception> {
+        T load() throws E;
+    }
+
+    /**
+     * bucket 是否存在，缓存过期时重新加载
+     *
+     * @param bucketName bucket名称
+     * @param loader     加载函数
+     * @return
+     */
+    public <E extends Exception> boolean exists(String bucketName, Loader<Boolean, E> loader) throws E {
+        Timed<Boolean> cached = exists.get(bucketName);
+        if (cached != null && !cached.isExpired()) {
+            return cached.value;
+        }
+        boolean value = loader.load();
+        putExists(bucketName, value);
+        return value;
+    }
+
+    public void putExists(String bucketName, boolean value) {
+        exists.put(bucketName, new Timed<>(value, expiresAt()));
+    }
+
+    /**
+     * 策略是否与最近一次通过本服务设置的相同（且未过期）
+     *
+     * @param bucketName bucket名称
+     * @param policy     访问策略
+     * @return
+     */
+    public boolean hasPolicy(String bucketName, String policy) {
+        Timed<String> cached = policies.get(bucketName);
+        return cached != null && !cached.isExpired() && cached.value.equals(policy);
+    }
+
+    public void putPolicy(String bucketName, String policy) {
+        policies.put(bucketName, new Timed<>(policy, expiresAt()));
+    }
+
+    /**
+     * 所有 bucket，缓存过期时重新加载
+     *
+     * @param loader 加载函数
+     * @return 不可修改的列表
+     */
+    public <E extends Exception> List<Bucket> buckets(Loader<List<Bucket>, E> loader) throws E {
+        return bucketList(loader).list;
+    }
+
+    /**
+     * 按名称获取 bucket，与 buckets 共用同一份缓存
+     *
+     * @param bucketName bucket名称
+     * @param loader     加载函数
+     * @return
+     */
+    public <E extends Exception> Optional<Bucket> bucket(String bucketName, Loader<List<Bucket>, E> loader) throws E {
+        return Optional.ofNullable(bucketList(loader).byName.get(bucketName));
+    }
+
+    private <E extends Exception> BucketList bucketList(Loader<List<Bucket>, E> loader) throws E {
+        Timed<BucketList> cached = buckets;
+        if (cached != null && !cached.isExpired()) {
+            return cached.value;
+        }
+        BucketList list = new BucketList(loader.load());
+        buckets = new Timed<>(list, expiresAt());
+        // 列表中的 bucket 一定存在，顺便刷新存在性缓存
+        list.byName.keySet().forEach(name -> putExists(name, true));
+        return list;
+    }
+
+    /**
+     * bucket 被创建或删除后调用，清除该 bucket 的策略及 bucket 列表
+     *
+     * @param bucketName bucket名称
+     */
+    public void invalidate(String bucketName) {
+        exists.remove(bucketName);
+        policies.remove(bucketName);
+        buckets = null;
+    }
+
+    public void invalidateAll() {
+        exists.clear();
+        policies.clear();
+        buckets = null;
+    }
+
+    private long expiresAt() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static final class BucketList {
+        private final List<Bucket> list;
+        private final Map<String, Bucket> byName;
+
+        private BucketList(List<Bucket> buckets) {
+            this.list = Collections.unmodifiableList(new ArrayList<>(buckets));
+            Map<String, Bucket> map = new HashMap<>(buckets.size() * 2);
+            buckets.forEach(bucket -> map.put(bucket.name(), bucket));
+            this.byName = map;
+        }
+    }
+
+    private static final class Timed<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private Timed(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.kangaroohy.minio.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import io.minio.GetObjectResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 类 DiskObjectCache 功能描述：<br/>
+ * 文件本地磁盘缓存：文件按版本写入缓存目录，命中时通过 FileChannel 读取本地文件，
+ * 缓存超过有效期后带 If-None-Match 向 minio 确认，未变化（304）时继续使用本地文件；
+ * 按文件大小限制总容量，超出时淘汰最久未访问的文件。没有 ETag 或超过单个文件上限的文件不缓存；
+ * 通过 MinioService 写入、删除文件时同步失效。每个实例在缓存目录下使用独立的子目录并持有其中的文件锁，
+ * 多个进程共用同一缓存目录时互不干扰，启动时只清理已退出实例（文件锁可获取）遗留的子目录
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 18:30
+ */
+@Slf4j
+public class DiskObjectCache implements ObjectCache, AutoCloseable {
+
+    private static final String FILE_SUFFIX = ".cache";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String INSTANCE_PREFIX = "instance-";
+
+    private static final String LOCK_FILE = "instance.lock";
+
+    /**
+     * 本实例的子目录
+     */
+    private final Path directory;
+
+    /**
+     * 持有本实例文件锁的通道，其他进程据此判断子目录是否仍在使用，关闭时释放
+     */
+    private final FileChannel lockChannel;
+
+    private final long maxSize;
+
+    private final long maxObjectSize;
+
+    private final long ttlMillis;
+
+    private final Cache<String, Entry> index;
+
+    /**
+     * 未命中及确认按 key 加锁，同一文件只向 minio 读取一次，其他文件的读取不受影响；命中时不加锁
+     */
+    private final ConcurrentMap<String, KeyLock> keyLocks = new ConcurrentHashMap<>();
+
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * 每次失效加一，读取期间发生失效时不写入索引，避免缓存失效前读到的旧内容
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder revalidations = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param directory     缓存目录，本实例使用其中独立的子目录，启动时清理已退出实例遗留的子目录
+     * @param maxSize       缓存总大小上限，单位字节
+     * @param maxObjectSize 单个文件大小上限，超过时不缓存，不大于 maxSize
+     * @param ttlMillis     缓存有效期，超过后向 minio 确认文件是否变化，单位毫秒
+     */
+    public DiskObjectCache(Path directory, long maxSize, long maxObjectSize, long ttlMillis) throws MinioServiceException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("max size must be greater than 0");
+        }
+        if (maxObjectSize <= 0) {
+            throw new IllegalArgumentException("max object size must be greater than 0");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.maxObjectSize = Math.min(Math.min(maxObjectSize, maxSize), Integer.MAX_VALUE);
+        this.ttlMillis = ttlMillis;
+        // 单个分段，容量按总大小计算，不被平均分到各分段
+        this.index = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maxSize)
+                .weigher((String key, Entry entry) -> (int) entry.length)
+                .removalListener(this::onRemoval)
+                .build();
+        try {
+            Files.createDirectories(directory);
+            cleanAbandoned(directory);
+            Path instance;
+            FileChannel channel;
+            do {
+                instance = Files.createDirectory(directory.resolve(INSTANCE_PREFIX + UUID.randomUUID()));
+                channel = lockInstance(instance);
+            } while (channel == null);
+            this.directory = instance;
+            this.lockChannel = channel;
+        } catch (IOException | UncheckedIOException e) {
+            throw new MinioServiceException("Failed to prepare object cache directory: " + directory, e);
+        }
+    }
+
+    /**
+     * 读取文件
+     */
+    @FunctionalInterface
+    public interface Loader<E extends Exception> {
+
+        /**
+         * @param etag 本地缓存的 ETag，不为空时作为 If-None-Match 发送
+         * @return 文件流，文件未变化（304）时返回 null
+         */
+        GetObjectResponse load(String etag) throws E;
+    }
+
+    /**
+     * 读取文件，缓存未命中时通过 loader 读取并写入缓存，返回的流由调用方关闭
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @param loader     读取函数
+     * @return 文件流
+     */
+    public <E extends Exception> InputStream get(String bucketName, String objectName, Loader<E> loader) throws E, IOException {
+        String key = bucketName + "/" + objectName;
+        InputStream cached = open(index.getIfPresent(key), false);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        KeyLock lock = lockKey(key);
+        try {
+            Entry entry = index.getIfPresent(key);
+            cached = open(entry, false);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            long loadGeneration = generation.get();
+            GetObjectResponse response = loader.load(entry != null ? entry.etag : null);
+            if (response == null) {
+                if (entry == null) {
+                    throw new IllegalStateException("Loader returned not modified without etag: " + key);
+                }
+                revalidations.increment();
+                entry.validatedAt = System.currentTimeMillis();
+                cached = open(entry, true);
+                if (cached != null) {
+                    hits.increment();
+                    return cached;
+                }
+                // 确认期间文件被淘汰，重新读取
+                response = loader.load(null);
+            }
+            misses.increment();
+            return store(key, response, loadGeneration);
+        } finally {
+            unlockKey(key, lock);
+        }
+    }
+
+    @Override
+    public void invalidate(String bucketName, String objectName) {
+        generation.incrementAndGet();
+        index.invalidate(bucketName + "/" + objectName);
+    }
+
+    @Override
+    public void invalidatePrefix(String bucketName, String prefix) {
+        generation.incrementAndGet();
+        String keyPrefix = bucketName + "/" + prefix;
+        index.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        index.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 确认文件未变化（304）的次数
+     */
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getSize() {
+        return size.get();
+    }
+
+    @Override
+    public long getCapacity() {
+        return maxSize;
+    }
+
+    /**
+     * 缓存文件所在的本实例子目录
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 删除本实例的缓存文件及子目录并释放文件锁
+     */
+    @Override
+    public void close() {
+        invalidateAll();
+        try {
+            deleteFiles(directory);
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Failed to clean object cache directory: {}", directory, e);
+        } finally {
+            closeQuietly(lockChannel);
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.debug("Failed to delete object cache directory: {}", directory, e);
+        }
+    }
+
+    /**
+     * 取得 key 对应的锁并加锁，没有线程使用时从 map 中移除
+     */
+    private KeyLock lockKey(String key) {
+        KeyLock lock = keyLocks.compute(key, (k, current) -> {
+            KeyLock value = current != null ? current : new KeyLock();
+            value.users++;
+            return value;
+        });
+        lock.lock();
+        return lock;
+    }
+
+    private void unlockKey(String key, KeyLock lock) {
+        lock.unlock();
+        keyLocks.computeIfPresent(key, (k, current) -> --current.users == 0 ? null : current);
+    }
+
+    /**
+     * 打开缓存文件，缓存过期（未强制）或文件已被删除时返回 null
+     */
+    private InputStream open(Entry entry, boolean force) throws IOException {
+        if (entry == null || !force && System.currentTimeMillis() - entry.validatedAt >= ttlMillis) {
+            return null;
+        }
+        try {
+            return Channels.newInputStream(FileChannel.open(entry.file, StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存并返回缓存文件的流；没有 ETag、长度未知或超过单个文件上限时直接返回 minio 的流
+     */
+    private InputStream store(String key, GetObjectResponse response, long loadGeneration) throws IOException {
+        String etag = etag(response);
+        long length = contentLength(response);
+        if (etag == null || length < 0 || length > maxObjectSize) {
+            index.invalidate(key);
+            return response;
+        }
+        Path temp = directory.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        Path file = directory.resolve(UUID.randomUUID() + FILE_SUFFIX);
+        try (GetObjectResponse input = response;
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, length))];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                wrapped.clear().limit(read);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        if (generation.get() != loadGeneration) {
+            // 读取期间缓存被失效，本次内容只返回给调用方，打开后即删除文件
+            InputStream stream = Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.debug("Failed to delete cache file: {}", file, e);
+            }
+            return stream;
+        }
+        Entry entry = new Entry(file, etag, Files.size(file), System.currentTimeMillis());
+        size.addAndGet(entry.length);
+        index.put(key, entry);
+        InputStream stream = open(entry, true);
+        if (stream == null) {
+            throw new NoSuchFileException(file.toString(), null, "cache file evicted before read");
+        }
+        return stream;
+    }
+
+    private void onRemoval(RemovalNotification<String, Entry> notification) {
+        Entry entry = notification.getValue();
+        if (entry == null) {
+            return;
+        }
+        size.addAndGet(-entry.length);
+        if (notification.wasEvicted()) {
+            evictions.increment();
+        }
+        try {
+            // 已打开的读取不受影响（Windows 下删除失败，留待下次启动清理）
+            Files.deleteIfExists(entry.file);
+        } catch (IOException e) {
+            log.debug("Failed to delete cache file: {}", entry.file, e);
+        }
+    }
+
+    /**
+     * 创建锁文件并加锁；加锁前其他进程可能把刚创建的子目录当作遗留目录清理，加锁后确认锁文件仍在
+     *
+     * @return 持有锁的通道，子目录已被清理时返回 null
+     */
+    private static FileChannel lockInstance(Path instance) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(instance.resolve(LOCK_FILE), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            channel.lock();
+            if (Files.exists(instance.resolve(LOCK_FILE))) {
+                return channel;
+            }
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        closeQuietly(channel);
+        return null;
+    }
+
+    /**
+     * 清理已退出实例遗留的子目录：文件锁可获取说明持有它的进程已退出，索引不持久化，其中的文件不会再被使用；
+     * 锁文件在持有锁时删除，正在启动的实例据此发现子目录已被清理
+     */
+    private static void cleanAbandoned(Path directory) throws IOException {
+        List<Path> instances;
+        try (Stream<Path> files = Files.list(directory)) {
+            instances = files.filter(file -> Files.isDirectory(file) && file.getFileName().toString().startsWith(INSTANCE_PREFIX))
+                    .collect(Collectors.toList());
+        }
+        for (Path instance : instances) {
+            try (FileChannel channel = FileChannel.open(instance.resolve(LOCK_FILE), StandardOpenOption.WRITE)) {
+                FileLock lock;
+                try {
+                    lock = channel.tryLock();
+                } catch (OverlappingFileLockException e) {
+                    // 同一进程中的其他实例
+                    continue;
+                }
+                if (lock == null) {
+                    continue;
+                }
+                deleteFiles(instance);
+            } catch (NoSuchFileException e) {
+                // 锁文件尚未创建（实例正在启动）或已被其他进程清理
+                continue;
+            } catch (IOException | UncheckedIOException e) {
+                log.debug("Failed to clean abandoned object cache directory: {}", instance, e);
+                continue;
+            }
+            try {
+                Files.deleteIfExists(instance);
+            } catch (IOException e) {
+                log.debug("Failed to delete abandoned object cache directory: {}", instance, e);
+            }
+        }
+    }
+
+    /**
+     * 删除目录中的文件，目录本身保留
+     */
+    private static void deleteFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close object cache lock file", e);
+        }
+    }
+
+    private static String etag(GetObjectResponse response) {
+        String etag = response.headers().get("ETag");
+        if (etag == null || etag.isEmpty()) {
+            return null;
+        }
+        return etag.replace("\"", "");
+    }
+
+    private static long contentLength(GetObjectResponse response) {
+        String value = response.headers().get("Content-Length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class KeyLock extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 持有或等待该锁的线程数，只在 ConcurrentHashMap.compute 中修改
+         */
+        private int users;
+    }
+
+    private static final class Entry {
+        private final Path file;
+        private final String etag;
+        private final long length;
+        private volatile long validatedAt;
+
+        private Entry(Path file, String etag, long length, long validatedAt) {
+            this.file = file;
+            this.etag = etag;
+            this.length = length;
+            this.validatedAt = validatedAt;
+        }
+    }
+}
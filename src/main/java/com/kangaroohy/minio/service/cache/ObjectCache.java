@@ -0,0 +1,58 @@
+package com.kangaroohy.minio.service.cache;
+
+/**
+ * 类 ObjectCache 功能描述：<br/>
+ * 文件内容缓存的公共部分：失效及统计，MinioService、AsyncMinioService、ReactiveMinioService 写入、删除文件后调用失效方法
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 18:50
+ */
+public interface ObjectCache {
+
+    /**
+     * 移除指定文件的缓存
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     */
+    void invalidate(String bucketName, String objectName);
+
+    /**
+     * 移除前缀下所有文件的缓存
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀，为空字符串时移除整个 bucket
+     */
+    void invalidatePrefix(String bucketName, String prefix);
+
+    void invalidateAll();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * 因容量不足被淘汰的文件数
+     */
+    long getEvictionCount();
+
+    /**
+     * 当前占用的缓存大小，单位字节
+     */
+    long getSize();
+
+    /**
+     * 缓存总大小上限，单位字节
+     */
+    long getCapacity();
+
+    /**
+     * 命中率，尚无请求时为 0
+     */
+    default double getHitRatio() {
+        long hit = getHitCount();
+        long total = hit + getMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
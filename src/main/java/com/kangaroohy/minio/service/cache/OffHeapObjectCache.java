@@ -0,0 +1,800 @@
+package com.kangaroohy.minio.service.cache;
+
+import io.minio.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类 OffHeapObjectCache 功能描述：<br/>
+ * 小文件堆外内存缓存：内存按 1MB 的 slab 申请（direct ByteBuffer），每个 slab 按大小档位（1KB 起按 2 倍递增）
+ * 切分为固定大小的块，文件内容存放在块中，命中时返回直接读取块的流，可不经堆内直接写入通道。
+ * 各档位按 CLOCK 近似 LRU 淘汰，容量已满时通过访问频率估计（count-min sketch）决定新文件能否替换被淘汰的文件；
+ * 内存用满后，空闲的 slab 可改划给其他档位，没有 slab 的档位从其他档位回收访问频率更低的 slab
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:00
+ */
+public class OffHeapObjectCache implements ObjectCache {
+
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private static final int SLAB_SIZE = 1024 * 1024;
+
+    private final long maxSize;
+
+    private final int maxObjectSize;
+
+    private final long ttlMillis;
+
+    private final int maxSlabs;
+
+    private final SizeClass[] sizeClasses;
+
+    /**
+     * 已分配的 slab，由 this 保护
+     */
+    private final List<Slab> slabs = new ArrayList<>();
+
+    private final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<>();
+
+    /**
+     * 正在读取的文件，同一文件并发未命中时只有一个线程通过 loader 读取，其余等待后读取缓存
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
+
+    private final FrequencySketch sketch;
+
+    /**
+     * 每次失效加一，读取期间发生失效时不写入缓存，避免缓存失效前读到的旧内容
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * 已占用的块大小之和，由 this 保护
+     */
+    private long used;
+
+    /**
+     * @param maxSize       堆外内存上限，单位字节，不小于 1MB
+     * @param maxObjectSize 单个文件大小上限，超过时不缓存，不大于 1MB
+     * @param ttlMillis     缓存有效期，单位毫秒，0 表示只在通过 MinioService 写入、删除时失效
+     */
+    public OffHeapObjectCache(long maxSize, int maxObjectSize, long ttlMillis) {
+        if (maxSize < SLAB_SIZE) {
+            throw new IllegalArgumentException("max size must be at least " + SLAB_SIZE + " bytes");
+        }
+        if (maxObjectSize <= 0 || maxObjectSize > SLAB_SIZE) {
+            throw new IllegalArgumentException("max object size must be in (0, " + SLAB_SIZE + "]");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.maxObjectSize = maxObjectSize;
+        this.ttlMillis = ttlMillis;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxSize / SLAB_SIZE);
+        this.sizeClasses = new SizeClass[sizeClass(maxObjectSize) + 1];
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass(MIN_CHUNK_SIZE << i);
+        }
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(256, maxSize / MIN_CHUNK_SIZE)));
+    }
+
+    /**
+     * 读取文件
+     */
+    @FunctionalInterface
+    public interface Loader<E extends Exception> {
+        InputStream load() throws E;
+    }
+
+    /**
+     * 读取文件，未命中时通过 loader 读取，不超过单个文件上限的写入缓存；返回的流需要关闭，关闭后缓存块才能被复用
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @param loader     读取函数
+     * @return 命中或写入缓存时为 {@link BufferInputStream}
+     */
+    public <E extends Exception> InputStream get(String bucketName, String objectName, Loader<E> loader) throws E, IOException {
+        String key = bucketName + "/" + objectName;
+        sketch.increment(key);
+        InputStream cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        CompletableFuture<Void> existing = loading.putIfAbsent(key, flight);
+        if (existing != null) {
+            await(existing);
+            cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            // 读取方没有写入缓存（超过上限、未通过准入、读取失败或期间被失效），各自读取
+            return load(key, loader);
+        }
+        try {
+            return load(key, loader);
+        } finally {
+            loading.remove(key, flight);
+            flight.complete(null);
+        }
+    }
+
+    /**
+     * 命中时返回流，已过期时移除
+     */
+    private InputStream lookup(String key) {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            remove(entry);
+            return null;
+        }
+        if (!entry.retain()) {
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return new BufferInputStream(entry);
+    }
+
+    private <E extends Exception> InputStream load(String key, Loader<E> loader) throws E, IOException {
+        misses.increment();
+        long loadGeneration = generation.get();
+        InputStream source = loader.load();
+        try {
+            return load(key, source, loadGeneration);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    private static void await(CompletableFuture<Void> flight) throws IOException {
+        try {
+            flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for object to be loaded");
+        } catch (ExecutionException e) {
+            // 只会正常完成
+        }
+    }
+
+    /**
+     * 把内容直接读入堆外块：长度已知时按 Content-Length 申请，未知时按 available() 估计（本地缓存文件为准确值），
+     * 块写满仍有内容时换成大一档的块继续读；超过单个文件上限或未通过准入时不缓存，直接返回（剩余的）原始流
+     */
+    private InputStream load(String key, InputStream source, long loadGeneration) throws IOException {
+        long expected = source instanceof GetObjectResponse ? contentLength((GetObjectResponse) source) : -1;
+        if (expected > maxObjectSize) {
+            return source;
+        }
+        int estimate = expected >= 0 ? (int) expected : Math.min(maxObjectSize, source.available());
+        Chunk chunk = reserve(sizeClasses[sizeClass(estimate)], key);
+        if (chunk == null) {
+            rejections.increment();
+            return source;
+        }
+        ByteBuffer target = chunk.buffer.duplicate();
+        target.clear().limit(Math.min(target.capacity(), maxObjectSize));
+        try {
+            while (true) {
+                readFully(source, target);
+                int next = target.hasRemaining() ? -1 : source.read();
+                if (next == -1) {
+                    break;
+                }
+                Chunk larger = target.limit() < maxObjectSize ? grow(chunk, target.position(), key) : null;
+                if (larger == null) {
+                    // 超过单个文件上限或更大的块未通过准入，已读部分复制到堆内与剩余内容拼接返回
+                    target.flip();
+                    byte[] head = new byte[target.remaining() + 1];
+                    target.get(head, 0, head.length - 1);
+                    head[head.length - 1] = (byte) next;
+                    freeChunk(chunk);
+                    chunk = null;
+                    return new SequenceInputStream(new ByteArrayInputStream(head), source);
+                }
+                int position = target.position();
+                chunk = larger;
+                target = chunk.buffer.duplicate();
+                target.clear().limit(Math.min(target.capacity(), maxObjectSize));
+                target.position(position);
+                target.put((byte) next);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (chunk != null) {
+                freeChunk(chunk);
+            }
+            throw e;
+        }
+        source.close();
+        return new BufferInputStream(commit(key, chunk, target.position(), loadGeneration));
+    }
+
+    @Override
+    public void invalidate(String bucketName, String objectName) {
+        generation.incrementAndGet();
+        Entry entry = index.get(bucketName + "/" + objectName);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    @Override
+    public void invalidatePrefix(String bucketName, String prefix) {
+        generation.incrementAndGet();
+        String keyPrefix = bucketName + "/" + prefix;
+        index.values().forEach(entry -> {
+            if (entry.key.startsWith(keyPrefix)) {
+                remove(entry);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        index.values().forEach(this::remove);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 容量已满且访问频率不高于被淘汰文件、未写入缓存的次数
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * 已占用的块大小之和，单位字节
+     */
+    @Override
+    public synchronized long getSize() {
+        return used;
+    }
+
+    @Override
+    public long getCapacity() {
+        return maxSize;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt >= ttlMillis;
+    }
+
+    /**
+     * 先标记失效再从索引中移除，标记成功的一方释放缓存持有的引用；之后已拿到该条目的读取无法再保留它
+     */
+    private boolean remove(Entry entry) {
+        if (!entry.expire()) {
+            return false;
+        }
+        index.remove(entry.key, entry);
+        entry.release();
+        return true;
+    }
+
+    /**
+     * 为读取中的文件申请块，未通过准入时返回 null；块在 commit 或 freeChunk 之前不属于任何条目，不会被淘汰
+     */
+    private synchronized Chunk reserve(SizeClass sizeClass, String key) {
+        Chunk chunk = allocate(sizeClass, key);
+        if (chunk != null) {
+            used += sizeClass.chunkSize;
+        }
+        return chunk;
+    }
+
+    /**
+     * 换成大一档的块并复制已读内容（堆外内存间复制），未通过准入时返回 null 且原块不变
+     */
+    private synchronized Chunk grow(Chunk chunk, int length, String key) {
+        int next = sizeClass(chunk.slab.sizeClass.chunkSize) + 1;
+        if (next >= sizeClasses.length) {
+            return null;
+        }
+        Chunk larger = reserve(sizeClasses[next], key);
+        if (larger == null) {
+            rejections.increment();
+            return null;
+        }
+        ByteBuffer source = chunk.buffer.duplicate();
+        source.clear().limit(length);
+        ByteBuffer target = larger.buffer.duplicate();
+        target.clear();
+        target.put(source);
+        freeChunk(chunk);
+        return larger;
+    }
+
+    /**
+     * 读取完成后生成条目；读取期间发生失效时条目不写入索引，只由返回的流持有，流关闭后归还块
+     *
+     * @return 已为调用方保留一次引用的条目
+     */
+    private synchronized Entry commit(String key, Chunk chunk, int length, long loadGeneration) {
+        boolean cached = generation.get() == loadGeneration;
+        Entry entry = new Entry(key, chunk, length, cached);
+        chunk.owner = entry;
+        if (cached) {
+            Entry previous = index.put(key, entry);
+            if (previous != null && previous.expire()) {
+                previous.release();
+            }
+        }
+        return entry;
+    }
+
+    private Chunk allocate(SizeClass sizeClass, String key) {
+        Chunk chunk = sizeClass.take();
+        if (chunk != null) {
+            return chunk;
+        }
+        if (slabs.size() < maxSlabs) {
+            Slab slab = new Slab(ByteBuffer.allocateDirect(SLAB_SIZE));
+            slabs.add(slab);
+            slab.assign(sizeClass);
+            return sizeClass.take();
+        }
+        for (Slab slab : slabs) {
+            if (slab.isIdle()) {
+                slab.assign(sizeClass);
+                return sizeClass.take();
+            }
+        }
+        int candidateFrequency = sketch.frequency(key);
+        if (sizeClass.slabs.isEmpty()) {
+            return reclaim(sizeClass, candidateFrequency) ? sizeClass.take() : null;
+        }
+        // 被淘汰文件仍在读取时块暂不可用，继续寻找下一个
+        for (int attempts = 0; attempts < sizeClass.chunks.size(); attempts++) {
+            Entry victim = sizeClass.nextVictim();
+            if (victim == null || candidateFrequency <= sketch.frequency(victim.key)) {
+                return null;
+            }
+            if (remove(victim)) {
+                evictions.increment();
+            }
+            chunk = sizeClass.take();
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从 slab 最多的档位中选出最高访问频率最低的 slab，低于新文件时淘汰其中所有文件并改划给 sizeClass；
+     * 其中仍有文件在读取时本次不成功
+     */
+    private boolean reclaim(SizeClass sizeClass, int candidateFrequency) {
+        SizeClass donor = null;
+        for (SizeClass other : sizeClasses) {
+            if (other != sizeClass && (donor == null || other.slabs.size() > donor.slabs.size())) {
+                donor = other;
+            }
+        }
+        if (donor == null || donor.slabs.isEmpty()) {
+            return false;
+        }
+        Slab coldest = null;
+        int coldestFrequency = Integer.MAX_VALUE;
+        for (Slab slab : donor.slabs) {
+            int frequency = 0;
+            for (Chunk chunk : slab.chunks) {
+                Entry owner = chunk.owner;
+                if (owner != null) {
+                    frequency = Math.max(frequency, sketch.frequency(owner.key));
+                }
+            }
+            if (frequency < coldestFrequency) {
+                coldest = slab;
+                coldestFrequency = frequency;
+            }
+        }
+        if (coldest == null || coldestFrequency >= candidateFrequency) {
+            return false;
+        }
+        for (Chunk chunk : coldest.chunks) {
+            Entry owner = chunk.owner;
+            if (owner != null && remove(owner)) {
+                evictions.increment();
+            }
+        }
+        if (!coldest.isIdle()) {
+            return false;
+        }
+        coldest.assign(sizeClass);
+        return true;
+    }
+
+    /**
+     * 引用计数归零后归还块，由最后一个释放者调用
+     */
+    private void free(Entry entry) {
+        freeChunk(entry.chunk);
+    }
+
+    private synchronized void freeChunk(Chunk chunk) {
+        chunk.owner = null;
+        chunk.slab.freeChunks++;
+        chunk.slab.sizeClass.free.add(chunk);
+        used -= chunk.slab.sizeClass.chunkSize;
+    }
+
+    private static int sizeClass(int length) {
+        if (length <= MIN_CHUNK_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * 读满 target 或读到末尾，通过通道直接写入堆外块，只使用通道内部的小缓冲区
+     */
+    private static void readFully(InputStream input, ByteBuffer target) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(input);
+        while (target.hasRemaining() && channel.read(target) != -1) {
+            // continue
+        }
+    }
+
+    private static long contentLength(GetObjectResponse response) {
+        String value = response.headers().get("Content-Length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 读取缓存块的流，关闭后释放引用
+     */
+    public final class BufferInputStream extends InputStream {
+
+        private final Entry entry;
+
+        private final ByteBuffer view;
+
+        private boolean closed;
+
+        private BufferInputStream(Entry entry) {
+            this.entry = entry;
+            this.view = entry.chunk.buffer.asReadOnlyBuffer();
+            this.view.limit(entry.length);
+        }
+
+        /**
+         * 把剩余内容直接从堆外块写入通道，不经过堆内缓冲区
+         *
+         * @param channel 目标通道，如 FileChannel、SocketChannel
+         * @return 写入的字节数
+         */
+        public long transferTo(WritableByteChannel channel) throws IOException {
+            ensureOpen();
+            long total = 0;
+            while (view.hasRemaining()) {
+                total += channel.write(view);
+            }
+            return total;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureOpen();
+            return view.hasRemaining() ? view.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (!view.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, view.remaining());
+            view.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            ensureOpen();
+            int count = (int) Math.max(0, Math.min(n, view.remaining()));
+            view.position(view.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ensureOpen();
+            return view.remaining();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                entry.release();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    private final class Entry {
+        private final String key;
+        private final Chunk chunk;
+        private final int length;
+        private final long loadedAt = System.currentTimeMillis();
+
+        /**
+         * 缓存本身持有一次（live 时），每个未关闭的流各持有一次，由 this 保护
+         */
+        private int refs;
+
+        /**
+         * 仍在索引中，失效后不能再被保留，由 this 保护
+         */
+        private boolean live;
+
+        /**
+         * CLOCK 访问标记
+         */
+        private volatile boolean referenced;
+
+        /**
+         * @param cached 是否写入索引，否则只由调用方的流持有
+         */
+        private Entry(String key, Chunk chunk, int length, boolean cached) {
+            this.key = key;
+            this.chunk = chunk;
+            this.length = length;
+            this.live = cached;
+            this.refs = cached ? 2 : 1;
+        }
+
+        private synchronized boolean retain() {
+            if (!live) {
+                return false;
+            }
+            refs++;
+            return true;
+        }
+
+        /**
+         * 标记失效，只有第一次调用返回 true，调用方随后释放缓存持有的引用
+         */
+        private synchronized boolean expire() {
+            if (!live) {
+                return false;
+            }
+            live = false;
+            return true;
+        }
+
+        private void release() {
+            boolean last;
+            synchronized (this) {
+                last = --refs == 0;
+            }
+            if (last) {
+                free(this);
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer buffer;
+        private final Slab slab;
+        private Entry owner;
+
+        private Chunk(ByteBuffer buffer, Slab slab) {
+            this.buffer = buffer;
+            this.slab = slab;
+        }
+    }
+
+    /**
+     * 1MB 堆外内存，划给一个档位后切分为该档位大小的块，字段由外部类的锁保护
+     */
+    private static final class Slab {
+        private final ByteBuffer memory;
+        private SizeClass sizeClass;
+        private List<Chunk> chunks = new ArrayList<>();
+        private int freeChunks;
+
+        private Slab(ByteBuffer memory) {
+            this.memory = memory;
+        }
+
+        private boolean isIdle() {
+            return freeChunks == chunks.size();
+        }
+
+        /**
+         * 从原档位移除（要求所有块空闲）后按新档位重新切分
+         */
+        private void assign(SizeClass target) {
+            if (sizeClass != null) {
+                sizeClass.slabs.remove(this);
+                sizeClass.chunks.removeIf(chunk -> chunk.slab == this);
+                sizeClass.free.removeIf(chunk -> chunk.slab == this);
+                sizeClass.hand = 0;
+            }
+            sizeClass = target;
+            chunks = new ArrayList<>(SLAB_SIZE / target.chunkSize);
+            for (int offset = 0; offset + target.chunkSize <= SLAB_SIZE; offset += target.chunkSize) {
+                ByteBuffer slice = memory.duplicate();
+                slice.limit(offset + target.chunkSize).position(offset);
+                chunks.add(new Chunk(slice.slice(), this));
+            }
+            freeChunks = chunks.size();
+            target.slabs.add(this);
+            target.chunks.addAll(chunks);
+            target.free.addAll(chunks);
+        }
+    }
+
+    /**
+     * 一个大小档位，字段由外部类的锁保护
+     */
+    private static final class SizeClass {
+        private final int chunkSize;
+        private final List<Slab> slabs = new ArrayList<>();
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final ArrayDeque<Chunk> free = new ArrayDeque<>();
+        private int hand;
+
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        private Chunk take() {
+            Chunk chunk = free.poll();
+            if (chunk != null) {
+                chunk.slab.freeChunks--;
+            }
+            return chunk;
+        }
+
+        /**
+         * CLOCK：跳过空闲块，清除最近访问过的条目的标记，返回第一个未被访问的条目
+         */
+        private Entry nextVictim() {
+            int size = chunks.size();
+            for (int i = 0; i < size * 2; i++) {
+                Chunk chunk = chunks.get(hand);
+                hand = (hand + 1) % size;
+                Entry entry = chunk.owner;
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    continue;
+                }
+                return entry;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 访问频率估计，4 行 count-min sketch，计数上限 15，累计次数达到阈值后全部减半以淡化旧的访问；
+     * 并发更新不加锁，允许少量计数丢失
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xc3a5c85d, 0x9e3779b9, 0x85ebca6b};
+
+        private final int[] table;
+        private final int width;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int expectedEntries) {
+            this.width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+            this.table = new int[width * DEPTH];
+            this.sampleSize = width * 10;
+        }
+
+        private void increment(String key) {
+            int hash = spread(key.hashCode());
+            for (int i = 0; i < DEPTH; i++) {
+                int slot = slot(hash, i);
+                if (table[slot] < MAX_COUNT) {
+                    table[slot]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, table[slot(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] >>>= 1;
+            }
+            additions = 0;
+        }
+
+        private int slot(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            h ^= h >>> 16;
+            return row * width + (h & (width - 1));
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
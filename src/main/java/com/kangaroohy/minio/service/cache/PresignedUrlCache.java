@@ -0,0 +1,137 @@
+package com.kangaroohy.minio.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.http.Method;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类 PresignedUrlCache 功能描述：<br/>
+ * 预签名地址缓存，按 (bucket, object, method, 有效期档位) 缓存签名结果，剩余有效期不足时视为未命中，
+ * 超过容量时淘汰最久未访问的地址。有效期按档位向上取整后签名（1 小时内按分钟、1 天内按 15 分钟、之后按小时，
+ * 不超过 7 天），相近的有效期共用同一个地址
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/22 14:30
+ */
+public class PresignedUrlCache {
+
+    private static final int MINUTE = 60;
+
+    private static final int HOUR = 60 * MINUTE;
+
+    private static final int DAY = 24 * HOUR;
+
+    private final Cache<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final double minRemainingRatio;
+
+    /**
+     * @param maximumSize       最大缓存数量
+     * @param minRemainingRatio 剩余有效期占总有效期的最小比例，低于该比例不再返回缓存
+     */
+    public PresignedUrlCache(int maximumSize, double minRemainingRatio) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be greater than 0");
+        }
+        if (minRemainingRatio < 0 || minRemainingRatio >= 1) {
+            throw new IllegalArgumentException("min remaining ratio must be in [0, 1)");
+        }
+        this.entries = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.minRemainingRatio = minRemainingRatio;
+    }
+
+    /**
+     * 签名函数
+     */
+    @FunctionalInterface
+    public interface Signer<E extends Exception> {
+
+        /**
+         * @param expires 按档位取整后的有效期，单位秒
+         */
+        String sign(int expires) throws E;
+    }
+
+    /**
+     * 获取预签名地址，缓存未命中或剩余有效期不足时重新签名
+     *
+     * @param bucketName     bucket名称
+     * @param objectName     文件名称
+     * @param method         请求方法
+     * @param expires        有效期，单位秒，为 null 时默认 7 天
+     * @param replaceAddress 是否替换了访问域名
+     * @param signer         签名函数
+     * @return
+     */
+    public <E extends Exception> String get(String bucketName, String objectName, Method method, Integer expires,
+                                            boolean replaceAddress, Signer<E> signer) throws E {
+        int requested = expires != null ? expires : GetPresignedObjectUrlArgs.DEFAULT_EXPIRY_TIME;
+        int bucketed = bucket(requested);
+        Key key = new Key(bucketName, objectName, method, bucketed, replaceAddress);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && entry.expiresAt - now >= (long) (requested * 1000L * minRemainingRatio)) {
+            hits.increment();
+            return entry.url;
+        }
+        misses.increment();
+        String url = signer.sign(bucketed);
+        entries.put(key, new Entry(url, now + bucketed * 1000L));
+        return url;
+    }
+
+    /**
+     * 有效期向上取整到档位，不超过 7 天；不大于 0 的值原样交给 sdk 校验
+     */
+    static int bucket(int expires) {
+        if (expires <= 0) {
+            return expires;
+        }
+        int step = expires <= HOUR ? MINUTE : expires <= DAY ? 15 * MINUTE : HOUR;
+        long rounded = ((long) expires + step - 1) / step * step;
+        return (int) Math.min(rounded, Math.max(expires, (int) TimeUnit.DAYS.toSeconds(7)));
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return (int) entries.size();
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+        private final String bucketName;
+        private final String objectName;
+        private final Method method;
+        private final int expires;
+        private final boolean replaceAddress;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry {
+        private final String url;
+        private final long expiresAt;
+    }
+}
@@ -1,17 +1,32 @@
 package com.kangaroohy.minio.service.client;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.kangaroohy.minio.utils.CustomUtil;
 import io.minio.*;
+import io.minio.credentials.Credentials;
 import io.minio.errors.InsufficientDataException;
 import io.minio.errors.InternalException;
 import io.minio.errors.XmlParserException;
+import io.minio.http.HttpUtils;
+import io.minio.http.Method;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.InitiateMultipartUploadResult;
 import io.minio.messages.Part;
+import okhttp3.Call;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
  * 类 ExtendMinioClient 功能描述：
@@ -21,8 +36,51 @@ import java.util.concurrent.ExecutionException;
  * @date 2021/12/01 17:20
  */
 public class ExtendMinioAsyncClient extends MinioAsyncClient {
+
+    /**
+     * 调用方预先计算的请求体摘要，仅在本类内部传递，createRequest 时取出，不会发送到服务端
+     */
+    private static final String PAYLOAD_MD5 = "X-Kangaroohy-Payload-Md5";
+
+    private static final String PAYLOAD_SHA256 = "X-Kangaroohy-Payload-Sha256";
+
+    /**
+     * 不发送对应摘要
+     */
+    private static final String NO_HASH = "-";
+
+    /**
+     * 调用方指定的请求标记，仅在本类内部传递，createRequest 时取出作为 OkHttp 请求的 tag，不会发送到服务端
+     */
+    private static final String REQUEST_TAG = "X-Kangaroohy-Request-Tag";
+
+    /**
+     * 请求完成后回调执行的线程池，为 null 时在 OkHttp 线程中执行
+     */
+    private final Executor callbackExecutor;
+
     protected ExtendMinioAsyncClient(MinioAsyncClient client) {
+        this(client, null);
+    }
+
+    protected ExtendMinioAsyncClient(MinioAsyncClient client, Executor callbackExecutor) {
         super(client);
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 配置了回调线程池时，响应到达后切换到该线程池，响应解析及调用方的后续处理不占用 OkHttp 线程；
+     * 带标记的读取（对冲读取）只返回响应流，不切换线程，在该线程池中阻塞等待的并行下载不会因线程池占满而互相等待
+     */
+    @Override
+    protected CompletableFuture<Response> executeAsync(Method method, String bucketName, String objectName, String region, Headers headers,
+                                                       Multimap<String, String> queryParamMap, Object body, int length)
+            throws InsufficientDataException, InternalException, InvalidKeyException, IOException, NoSuchAlgorithmException, XmlParserException {
+        CompletableFuture<Response> future = super.executeAsync(method, bucketName, objectName, region, headers, queryParamMap, body, length);
+        if (callbackExecutor == null || headers != null && headers.get(REQUEST_TAG) != null) {
+            return future;
+        }
+        return future.thenApplyAsync(response -> response, callbackExecutor);
     }
 
     /**
@@ -45,7 +103,17 @@ public class ExtendMinioAsyncClient extends MinioAsyncClient {
                                                              Multimap<String, String> headers, Multimap<String, String> extraQueryParams)
             throws InsufficientDataException, NoSuchAlgorithmException, IOException,
             InvalidKeyException, XmlParserException, InternalException, ExecutionException, InterruptedException {
-        return this.createMultipartUploadAsync(bucketName, region, objectName, headers, extraQueryParams).get().result();
+        return this.initMultiPartUploadAsync(bucketName, region, objectName, headers, extraQueryParams).get();
+    }
+
+    /**
+     * 获取uploadId，非阻塞
+     */
+    public CompletableFuture<InitiateMultipartUploadResult> initMultiPartUploadAsync(String bucketName, String region, String objectName,
+                                                                                     Multimap<String, String> headers, Multimap<String, String> extraQueryParams)
+            throws InsufficientDataException, NoSuchAlgorithmException, IOException,
+            InvalidKeyException, XmlParserException, InternalException {
+        return this.createMultipartUploadAsync(bucketName, region, objectName, headers, extraQueryParams).thenApply(CreateMultipartUploadResponse::result);
     }
 
     /**
@@ -57,6 +125,126 @@ public class ExtendMinioAsyncClient extends MinioAsyncClient {
         return this.uploadPartAsync(bucketName, region, objectName, data, length, uploadId, partNumber, extraHeaders, extraQueryParams).get();
     }
 
+    /**
+     * 上传分片数据，非阻塞
+     */
+    @Override
+    public CompletableFuture<UploadPartResponse> uploadPartAsync(String bucketName, String region, String objectName, Object data, long length, String uploadId,
+                                                                 int partNumber, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams)
+            throws InsufficientDataException, IOException, NoSuchAlgorithmException, InvalidKeyException, XmlParserException, InternalException {
+        return super.uploadPartAsync(bucketName, region, objectName, data, length, uploadId, partNumber, extraHeaders, extraQueryParams);
+    }
+
+    /**
+     * 上传分片数据，请求体摘要由调用方在读取数据时一并算好，sdk 不再遍历请求体重复计算，非阻塞
+     *
+     * @param data       分片数据
+     * @param length     有效长度
+     * @param md5Hash    base64 编码的 MD5，作为 Content-MD5 发送，为 null 时不发送
+     * @param sha256Hash 十六进制 SHA-256，用于 http 下的载荷签名（https 时忽略），为 null 时使用 UNSIGNED-PAYLOAD
+     */
+    public CompletableFuture<UploadPartResponse> uploadPartAsync(String bucketName, String objectName, byte[] data, int length, String uploadId,
+                                                                 int partNumber, String md5Hash, String sha256Hash)
+            throws InsufficientDataException, IOException, NoSuchAlgorithmException, InvalidKeyException, XmlParserException, InternalException {
+        return this.uploadPartAsync(bucketName, null, objectName, data, length, uploadId, partNumber, payloadHeaders(null, md5Hash, sha256Hash), null);
+    }
+
+    /**
+     * 普通上传，请求体摘要由调用方算好，参数含义同 {@link #uploadPartAsync(String, String, byte[], int, String, int, String, String)}，非阻塞
+     */
+    public CompletableFuture<ObjectWriteResponse> putObjectAsync(String bucketName, String objectName, String contentType, byte[] data, int length,
+                                                                 String md5Hash, String sha256Hash)
+            throws InsufficientDataException, IOException, NoSuchAlgorithmException, InvalidKeyException, XmlParserException, InternalException {
+        return this.putObjectAsync(bucketName, null, objectName, data, length, payloadHeaders(contentType, md5Hash, sha256Hash), null);
+    }
+
+    /**
+     * 读取文件，请求带上调用方指定的标记，之后可通过 {@link #cancel(String)} 取消，非阻塞
+     *
+     * @param args       读取参数
+     * @param requestTag 请求标记，需唯一
+     */
+    public CompletableFuture<GetObjectResponse> getObject(GetObjectArgs args, String requestTag)
+            throws InsufficientDataException, InternalException, InvalidKeyException, IOException, NoSuchAlgorithmException, XmlParserException {
+        checkArgs(args);
+        if (args.ssec() != null && !baseUrl.isHttps()) {
+            throw new IllegalArgumentException("SSE-C operations must be performed over a secure connection.");
+        }
+        Multimap<String, String> headers = HashMultimap.create(args.getHeaders());
+        headers.put(REQUEST_TAG, requestTag);
+        Multimap<String, String> queryParams = HashMultimap.create();
+        if (args.versionId() != null) {
+            queryParams.put("versionId", args.versionId());
+        }
+        return executeGetAsync(args, headers, queryParams)
+                .thenApply(response -> new GetObjectResponse(response.headers(), args.bucket(), args.region(), args.object(), response.body().byteStream()));
+    }
+
+    /**
+     * 取消带有指定标记、排队中或执行中的请求，已返回给调用方的响应不受影响
+     *
+     * @param requestTag 请求标记
+     */
+    public void cancel(String requestTag) {
+        for (Call call : httpClient.dispatcher().queuedCalls()) {
+            if (requestTag.equals(call.request().tag(String.class))) {
+                call.cancel();
+            }
+        }
+        for (Call call : httpClient.dispatcher().runningCalls()) {
+            if (requestTag.equals(call.request().tag(String.class))) {
+                call.cancel();
+            }
+        }
+    }
+
+    /**
+     * 是否 https，https 时 sdk 使用 UNSIGNED-PAYLOAD，无需计算 SHA-256
+     */
+    public boolean isHttps() {
+        return baseUrl.isHttps();
+    }
+
+    private static Multimap<String, String> payloadHeaders(String contentType, String md5Hash, String sha256Hash) {
+        Multimap<String, String> headers = CustomUtil.getHeader(contentType);
+        headers.put(PAYLOAD_MD5, md5Hash == null ? NO_HASH : md5Hash);
+        headers.put(PAYLOAD_SHA256, sha256Hash == null ? NO_HASH : sha256Hash);
+        return headers;
+    }
+
+    /**
+     * 带有请求标记时取出标记作为 OkHttp 请求的 tag；
+     * 带有预先计算摘要的请求：先以空请求体生成请求，再换上实际请求体与摘要，
+     * 避免 sdk 对 byte[] 请求体再做一遍 MD5（以及 http 下的 SHA-256）
+     */
+    @Override
+    protected Request createRequest(HttpUrl url, Method method, Headers headers, Object body, int length, Credentials creds)
+            throws InsufficientDataException, InternalException, IOException, NoSuchAlgorithmException {
+        String requestTag = headers == null ? null : headers.get(REQUEST_TAG);
+        if (requestTag != null) {
+            Request request = createRequest(url, method, headers.newBuilder().removeAll(REQUEST_TAG).build(), body, length, creds);
+            return request.newBuilder().tag(String.class, requestTag).build();
+        }
+        String md5Hash = headers == null ? null : headers.get(PAYLOAD_MD5);
+        String sha256Hash = headers == null ? null : headers.get(PAYLOAD_SHA256);
+        if (md5Hash == null || sha256Hash == null || !(body instanceof byte[])) {
+            return super.createRequest(url, method, headers, body, length, creds);
+        }
+        Headers stripped = headers.newBuilder().removeAll(PAYLOAD_MD5).removeAll(PAYLOAD_SHA256).build();
+        Request request = super.createRequest(url, method, stripped, HttpUtils.EMPTY_BODY, 0, creds);
+        Request.Builder builder = request.newBuilder()
+                .method(method.toString(), RequestBody.create((byte[]) body, request.body() == null ? null : request.body().contentType(), 0, length));
+        if (NO_HASH.equals(md5Hash)) {
+            builder.removeHeader("Content-MD5");
+        } else {
+            builder.header("Content-MD5", md5Hash);
+        }
+        if (!url.isHttps()) {
+            builder.header("x-amz-content-sha256", NO_HASH.equals(sha256Hash) ? "UNSIGNED-PAYLOAD" : sha256Hash);
+        }
+        return builder.build();
+    }
+
     /**
      * 完成分片上传
      */
@@ -64,7 +252,16 @@ public class ExtendMinioAsyncClient extends MinioAsyncClient {
                                                     Part[] parts, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams)
             throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException,
             InternalException, ExecutionException, InterruptedException {
-        return this.completeMultipartUploadAsync(bucketName, region, objectName, uploadId, parts, extraHeaders, extraQueryParams).get();
+        return this.mergeMultipartUploadAsync(bucketName, region, objectName, uploadId, parts, extraHeaders, extraQueryParams).get();
+    }
+
+    /**
+     * 完成分片上传，非阻塞
+     */
+    public CompletableFuture<ObjectWriteResponse> mergeMultipartUploadAsync(String bucketName, String region, String objectName, String uploadId,
+                                                                            Part[] parts, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams)
+            throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException, InternalException {
+        return this.completeMultipartUploadAsync(bucketName, region, objectName, uploadId, parts, extraHeaders, extraQueryParams);
     }
 
     /**
@@ -74,7 +271,16 @@ public class ExtendMinioAsyncClient extends MinioAsyncClient {
                                                               Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams)
             throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException,
             InternalException, ExecutionException, InterruptedException {
-        return this.abortMultipartUploadAsync(bucketName, region, objectName, uploadId, extraHeaders, extraQueryParams).get();
+        return this.removeMultipartUploadAsync(bucketName, region, objectName, uploadId, extraHeaders, extraQueryParams).get();
+    }
+
+    /**
+     * 取消分片上传，非阻塞
+     */
+    public CompletableFuture<AbortMultipartUploadResponse> removeMultipartUploadAsync(String bucketName, String region, String objectName, String uploadId,
+                                                                                      Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams)
+            throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException, InternalException {
+        return this.abortMultipartUploadAsync(bucketName, region, objectName, uploadId, extraHeaders, extraQueryParams);
     }
 
     public ListPartsResponse listMultipart(String bucketName, String region, String objectName, Integer maxParts,
@@ -82,6 +288,62 @@ public class ExtendMinioAsyncClient extends MinioAsyncClient {
                                            Multimap<String, String> extraQueryParams)
             throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException,
             InternalException, ExecutionException, InterruptedException {
-        return this.listPartsAsync(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams).get();
+        return this.listMultipartAsync(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams).get();
+    }
+
+    /**
+     * 获取已上传的分片，非阻塞
+     */
+    public CompletableFuture<ListPartsResponse> listMultipartAsync(String bucketName, String region, String objectName, Integer maxParts,
+                                                                   Integer partNumberMarker, String uploadId, Multimap<String, String> extraHeaders,
+                                                                   Multimap<String, String> extraQueryParams)
+            throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException, InternalException {
+        return this.listPartsAsync(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams);
+    }
+
+    /**
+     * 批量删除（单次最多 1000 个），非阻塞
+     *
+     * @param bucketName bucket名称
+     * @param objects    待删除对象
+     * @param quiet      为 true 时只返回删除失败的对象
+     * @return
+     */
+    public CompletableFuture<DeleteObjectsResponse> removeObjectsAsync(String bucketName, List<DeleteObject> objects, boolean quiet)
+            throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException, InternalException {
+        return this.deleteObjectsAsync(bucketName, null, objects, quiet, false, null, null);
+    }
+
+    /**
+     * 分页遍历文件（ListObjectsV2 单页），非阻塞
+     *
+     * @param bucketName        bucket名称
+     * @param prefix            前缀
+     * @param delimiter         分隔符，为 null 时递归遍历
+     * @param startAfter        从该 key 之后开始
+     * @param maxKeys           单页数量，为 null 时取 1000
+     * @param continuationToken 上一页返回的 nextContinuationToken
+     * @return
+     */
+    public CompletableFuture<ListObjectsV2Response> listObjectsPageAsync(String bucketName, String prefix, String delimiter, String startAfter,
+                                                                         Integer maxKeys, String continuationToken)
+            throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException, InternalException {
+        return this.listObjectsV2Async(bucketName, null, delimiter, null, startAfter, maxKeys == null ? 1000 : maxKeys, prefix, continuationToken, false, false, null, null);
+    }
+
+    /**
+     * 分页列出未完成的分片上传，非阻塞
+     *
+     * @param bucketName     bucket名称
+     * @param prefix         前缀
+     * @param keyMarker      上一页返回的 nextKeyMarker
+     * @param uploadIdMarker 上一页返回的 nextUploadIdMarker
+     * @param maxUploads     单页数量，最大 1000
+     * @return
+     */
+    public CompletableFuture<ListMultipartUploadsResponse> listMultipartUploadsPageAsync(String bucketName, String prefix, String keyMarker,
+                                                                                         String uploadIdMarker, Integer maxUploads)
+            throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, XmlParserException, InternalException {
+        return this.listMultipartUploadsAsync(bucketName, null, null, null, keyMarker, maxUploads, prefix, uploadIdMarker, null, null);
     }
 }
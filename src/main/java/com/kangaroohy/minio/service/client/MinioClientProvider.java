@@ -28,4 +28,30 @@ public interface MinioClientProvider {
      * @return MinioClient
      */
     MinioClient getClient(String endpoint, String accessKey, String secretKey);
+
+    /**
+     * 获取一个指定区域的MinioAsyncClient
+     *
+     * @param endpoint  端点
+     * @param accessKey accessKey
+     * @param secretKey secretKey
+     * @param region    区域，为空时按需查询
+     * @return MinioClient
+     */
+    default ExtendMinioAsyncClient getAsyncClient(String endpoint, String accessKey, String secretKey, String region) {
+        return getAsyncClient(endpoint, accessKey, secretKey);
+    }
+
+    /**
+     * 获取一个指定区域的MinioClient
+     *
+     * @param endpoint  端点
+     * @param accessKey accessKey
+     * @param secretKey secretKey
+     * @param region    区域，为空时按需查询
+     * @return MinioClient
+     */
+    default MinioClient getClient(String endpoint, String accessKey, String secretKey, String region) {
+        return getClient(endpoint, accessKey, secretKey);
+    }
 }
@@ -2,10 +2,28 @@ package com.kangaroohy.minio.service.client;
 
 import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * 类 MinioClientProviderImpl 功能描述：
+ * 类 MinioClientProviderImpl 功能描述：<br/>
+ * 按 endpoint、accessKey、secretKey、region 缓存客户端，不同参数得到不同的客户端；
+ * 命中时无锁读取，未命中时只对同一个 key 加锁创建，所有客户端共用同一个 HTTP 客户端；
+ * 固定的客户端（如默认配置对应的 bean）不参与空闲移除，移除客户端时通知监听方释放对其的引用
  *
  * @author kangaroo hy
  * @version 0.0.1
@@ -14,33 +32,223 @@ import org.springframework.stereotype.Service;
 @Service
 public class MinioClientProviderImpl implements MinioClientProvider {
 
-    private volatile ExtendMinioAsyncClient minioAsyncClient;
+    private final ConcurrentMap<ClientKey, Entry<ExtendMinioAsyncClient>> asyncClients = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<ClientKey, Entry<MinioClient>> clients = new ConcurrentHashMap<>();
+
+    /**
+     * 共享的 HTTP 客户端，为 null 时使用 sdk 默认配置
+     */
+    private final OkHttpClient httpClient;
+
+    /**
+     * 空闲超时（毫秒），不大于 0 时不移除
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * 异步客户端请求完成后回调执行的线程池，为 null 时在 OkHttp 线程中执行
+     */
+    private final Executor callbackExecutor;
+
+    /**
+     * 下次检查空闲客户端的时间
+     */
+    private final AtomicLong nextEviction = new AtomicLong();
+
+    /**
+     * 不参与空闲移除的客户端
+     */
+    private final Set<ClientKey> pinned = ConcurrentHashMap.newKeySet();
+
+    private final List<Consumer<Object>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    public MinioClientProviderImpl() {
+        this(null);
+    }
+
+    public MinioClientProviderImpl(OkHttpClient httpClient) {
+        this(httpClient, Duration.ZERO);
+    }
+
+    /**
+     * @param httpClient  共享的 HTTP 客户端，为 null 时使用 sdk 默认配置
+     * @param idleTimeout 客户端超过该时长未被获取时从缓存中移除，为 null 或 0 时不移除
+     */
+    public MinioClientProviderImpl(OkHttpClient httpClient, Duration idleTimeout) {
+        this(httpClient, idleTimeout, null);
+    }
 
-    private volatile MinioClient minioClient;
+    /**
+     * @param httpClient       共享的 HTTP 客户端，为 null 时使用 sdk 默认配置
+     * @param idleTimeout      客户端超过该时长未被获取时从缓存中移除，为 null 或 0 时不移除
+     * @param callbackExecutor 异步客户端请求完成后回调执行的线程池，为 null 时在 OkHttp 线程中执行
+     */
+    public MinioClientProviderImpl(OkHttpClient httpClient, Duration idleTimeout, Executor callbackExecutor) {
+        this.httpClient = httpClient;
+        this.callbackExecutor = callbackExecutor;
+        this.idleTimeoutMillis = idleTimeout == null ? 0 : idleTimeout.toMillis();
+        this.nextEviction.set(System.currentTimeMillis() + idleTimeoutMillis);
+    }
 
     @Override
     public ExtendMinioAsyncClient getAsyncClient(String endpoint, String accessKey, String secretKey) {
-        // 通过double check来创建单例的Client
-        if (minioAsyncClient == null) {
-            synchronized (MinioClientProviderImpl.class) {
-                if (minioAsyncClient == null) {
-                    minioAsyncClient = new ExtendMinioAsyncClient(MinioAsyncClient.builder().endpoint(endpoint).credentials(accessKey, secretKey).build());
-                }
+        return getAsyncClient(endpoint, accessKey, secretKey, null);
+    }
+
+    @Override
+    public ExtendMinioAsyncClient getAsyncClient(String endpoint, String accessKey, String secretKey, String region) {
+        return lookup(asyncClients, new ClientKey(endpoint, accessKey, secretKey, region), key -> {
+            MinioAsyncClient.Builder builder = MinioAsyncClient.builder().endpoint(key.endpoint).credentials(key.accessKey, key.secretKey);
+            if (httpClient != null) {
+                builder.httpClient(httpClient);
             }
-        }
-        return minioAsyncClient;
+            if (StringUtils.hasText(key.region)) {
+                builder.region(key.region);
+            }
+            return new ExtendMinioAsyncClient(builder.build(), callbackExecutor);
+        });
     }
 
     @Override
     public MinioClient getClient(String endpoint, String accessKey, String secretKey) {
-        // 通过double check来创建单例的Client
-        if (minioClient == null) {
-            synchronized (MinioClientProviderImpl.class) {
-                if (minioClient == null) {
-                    minioClient = MinioClient.builder().endpoint(endpoint).credentials(accessKey, secretKey).build();
-                }
+        return getClient(endpoint, accessKey, secretKey, null);
+    }
+
+    @Override
+    public MinioClient getClient(String endpoint, String accessKey, String secretKey, String region) {
+        return lookup(clients, new ClientKey(endpoint, accessKey, secretKey, region), key -> {
+            MinioClient.Builder builder = MinioClient.builder().endpoint(key.endpoint).credentials(key.accessKey, key.secretKey);
+            if (httpClient != null) {
+                builder.httpClient(httpClient);
+            }
+            if (StringUtils.hasText(key.region)) {
+                builder.region(key.region);
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * 固定指定参数的客户端，不参与空闲移除，用于被长期持有的客户端（如 spring 容器中的默认客户端）
+     *
+     * @param endpoint  端点
+     * @param accessKey accessKey
+     * @param secretKey secretKey
+     * @param region    区域
+     */
+    public void pin(String endpoint, String accessKey, String secretKey, String region) {
+        pinned.add(new ClientKey(endpoint, accessKey, secretKey, region));
+    }
+
+    /**
+     * 添加客户端移除监听，参数为被移除的 MinioClient 或 ExtendMinioAsyncClient，
+     * 持有客户端的一方（如 MinioServiceRegistry）据此释放引用
+     *
+     * @param listener 监听
+     */
+    public void addEvictionListener(Consumer<Object> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * 移除超过空闲时间未被获取的客户端，固定的客户端除外。<br/>
+     * 移除后不会关闭客户端：调用方可能仍持有引用，共享的 HTTP 客户端也不能随之关闭，
+     * 未共享时其连接池与线程在空闲后自行回收
+     *
+     * @return 移除的数量
+     */
+    public int evictIdle() {
+        if (idleTimeoutMillis <= 0) {
+            return 0;
+        }
+        long deadline = System.currentTimeMillis() - idleTimeoutMillis;
+        List<Object> evicted = new ArrayList<>();
+        evictIdle(asyncClients, deadline, evicted);
+        evictIdle(clients, deadline, evicted);
+        for (Object client : evicted) {
+            evictionListeners.forEach(listener -> listener.accept(client));
+        }
+        return evicted.size();
+    }
+
+    private <T> void evictIdle(ConcurrentMap<ClientKey, Entry<T>> cache, long deadline, List<Object> evicted) {
+        cache.entrySet().removeIf(entry -> {
+            if (entry.getValue().lastAccess >= deadline || pinned.contains(entry.getKey())) {
+                return false;
+            }
+            evicted.add(entry.getValue().client);
+            return true;
+        });
+    }
+
+    /**
+     * 当前缓存的客户端数量
+     */
+    public int size() {
+        return asyncClients.size() + clients.size();
+    }
+
+    private <T> T lookup(ConcurrentMap<ClientKey, Entry<T>> cache, ClientKey key, Function<ClientKey, T> factory) {
+        Entry<T> entry = cache.get(key);
+        if (entry == null) {
+            entry = cache.computeIfAbsent(key, k -> new Entry<>(factory.apply(k)));
+        }
+        long now = System.currentTimeMillis();
+        entry.lastAccess = now;
+        evictIfDue(now);
+        return entry.client;
+    }
+
+    /**
+     * 在获取客户端时顺带清理，每个空闲周期最多检查一次，不额外占用线程
+     */
+    private void evictIfDue(long now) {
+        long next = nextEviction.get();
+        if (idleTimeoutMillis > 0 && now >= next && nextEviction.compareAndSet(next, now + idleTimeoutMillis)) {
+            evictIdle();
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T client;
+        private volatile long lastAccess;
+
+        private Entry(T client) {
+            this.client = client;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    private static final class ClientKey {
+        private final String endpoint;
+        private final String accessKey;
+        private final String secretKey;
+        private final String region;
+
+        private ClientKey(String endpoint, String accessKey, String secretKey, String region) {
+            this.endpoint = endpoint;
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            this.region = StringUtils.hasText(region) ? region : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClientKey that = (ClientKey) o;
+            return Objects.equals(endpoint, that.endpoint) && Objects.equals(accessKey, that.accessKey)
+                    && Objects.equals(secretKey, that.secretKey) && Objects.equals(region, that.region);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endpoint, accessKey, secretKey, region);
         }
-        return minioClient;
     }
 }
@@ -0,0 +1,189 @@
+package com.kangaroohy.minio.service.delete;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.exceptions.UncheckedMinioServiceException;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.service.listing.LazyObjectIterator;
+import com.kangaroohy.minio.utils.FutureUtil;
+import io.minio.DeleteObjectsResponse;
+import io.minio.ListObjectsArgs;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * 类 BulkDeleter 功能描述：<br/>
+ * 批量删除：按 1000 个一批（DeleteObjects 单次上限）边读取边发送，同时在途的批次数可配；
+ * 按前缀删除时直接把遍历结果送入删除批次，不会先加载全部 key
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/24 16:30
+ */
+@Slf4j
+public class BulkDeleter {
+
+    /**
+     * DeleteObjects 单次最多删除数量
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final ExtendMinioAsyncClient minioAsyncClient;
+
+    /**
+     * 处理删除结果所用的线程池，为 null 时在响应线程中处理
+     */
+    private final Executor executor;
+
+    public BulkDeleter(ExtendMinioAsyncClient minioAsyncClient) {
+        this(minioAsyncClient, null);
+    }
+
+    public BulkDeleter(ExtendMinioAsyncClient minioAsyncClient, Executor executor) {
+        this.minioAsyncClient = minioAsyncClient;
+        this.executor = executor;
+    }
+
+    /**
+     * 批量删除
+     *
+     * @param bucketName  bucket名称
+     * @param objectNames 待删除的文件，按需读取
+     * @param concurrency 同时发送的批次数
+     * @return 删除失败的文件
+     */
+    public List<String> delete(String bucketName, Iterator<String> objectNames, int concurrency) throws MinioServiceException {
+        String message = "Failed to remove objects from bucket: " + bucketName;
+        int window = Math.max(1, concurrency);
+        Semaphore permits = new Semaphore(window);
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            try {
+                send(bucketName, objectNames, permits, errors, failure, message);
+            } catch (UncheckedMinioServiceException e) {
+                // 遍历失败，已发出的批次仍需等待结束
+                failure.compareAndSet(null, e.getCause());
+            }
+            // 取回全部许可即表示在途批次都已结束
+            permits.acquire(window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioServiceException(message, e);
+        }
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw cause instanceof MinioServiceException ? (MinioServiceException) cause : new MinioServiceException(message, cause);
+        }
+        return new ArrayList<>(errors);
+    }
+
+    private void send(String bucketName, Iterator<String> objectNames, Semaphore permits, Queue<String> errors,
+                      AtomicReference<Throwable> failure, String message) throws InterruptedException {
+        while (objectNames.hasNext() && failure.get() == null) {
+            List<DeleteObject> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            while (batch.size() < MAX_BATCH_SIZE && objectNames.hasNext()) {
+                batch.add(new DeleteObject(objectNames.next()));
+            }
+            permits.acquire();
+            CompletableFuture<DeleteObjectsResponse> future = FutureUtil.call(message, () -> minioAsyncClient.removeObjectsAsync(bucketName, batch, true));
+            BiConsumer<DeleteObjectsResponse, Throwable> handler = (response, e) -> {
+                try {
+                    if (e != null) {
+                        failure.compareAndSet(null, FutureUtil.unwrap(e));
+                        return;
+                    }
+                    for (DeleteError error : response.result().errorList()) {
+                        errors.add(error.objectName());
+                        log.error(String.format("Error in deleting object %s:%s, code=%s, message=%s",
+                                bucketName, error.objectName(), error.code(), error.message()));
+                    }
+                } finally {
+                    permits.release();
+                }
+            };
+            if (executor == null) {
+                future.whenComplete(handler);
+            } else {
+                // 线程池拒绝时仍在响应线程中处理，保证许可归还
+                future.whenCompleteAsync(handler, executor).exceptionally(e -> {
+                    if (FutureUtil.unwrap(e) instanceof RejectedExecutionException) {
+                        future.whenComplete(handler);
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * 删除前缀下的文件（递归），遍历与删除同时进行
+     *
+     * @param bucketName  bucket名称
+     * @param prefix      前缀
+     * @param olderThan   只删除最后修改时间早于该时间的文件，为空时全部删除
+     * @param concurrency 同时发送的批次数
+     * @return 删除失败的文件
+     */
+    public List<String> deleteByPrefix(String bucketName, String prefix, ZonedDateTime olderThan, int concurrency) throws MinioServiceException {
+        LazyObjectIterator items = new LazyObjectIterator(minioAsyncClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(true)
+                .build()), bucketName);
+        return delete(bucketName, new FilteringIterator(items, olderThan), concurrency);
+    }
+
+    /**
+     * 跳过目录及不满足时间条件的文件，只返回文件名
+     */
+    private static final class FilteringIterator implements Iterator<String> {
+
+        private final Iterator<Item> items;
+
+        private final ZonedDateTime olderThan;
+
+        private String next;
+
+        private FilteringIterator(Iterator<Item> items, ZonedDateTime olderThan) {
+            this.items = items;
+            this.olderThan = olderThan;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && items.hasNext()) {
+                Item item = items.next();
+                if (!item.isDir() && (olderThan == null || item.lastModified().isBefore(olderThan))) {
+                    next = item.objectName();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String objectName = next;
+            next = null;
+            return objectName;
+        }
+    }
+}
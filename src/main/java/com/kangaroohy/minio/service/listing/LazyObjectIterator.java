@@ -0,0 +1,60 @@
+package com.kangaroohy.minio.service.listing;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.exceptions.UncheckedMinioServiceException;
+import io.minio.Result;
+import io.minio.messages.Item;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 类 LazyObjectIterator 功能描述：<br/>
+ * 按页懒加载的对象遍历，只在消费到当前页末尾时才请求下一页，内存占用与总数量无关；
+ * 遍历失败时抛出 UncheckedMinioServiceException
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/24 09:40
+ */
+public class LazyObjectIterator implements Iterator<Item> {
+
+    private final Iterator<Result<Item>> results;
+
+    private final String bucketName;
+
+    public LazyObjectIterator(Iterable<Result<Item>> results, String bucketName) {
+        this.results = results.iterator();
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return results.hasNext();
+    }
+
+    @Override
+    public Item next() {
+        if (!results.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return results.next().get();
+        } catch (Exception e) {
+            throw new UncheckedMinioServiceException(new MinioServiceException("Failed to list objects in bucket: " + bucketName, e));
+        }
+    }
+
+    /**
+     * 转为顺序流
+     *
+     * @return
+     */
+    public Stream<Item> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
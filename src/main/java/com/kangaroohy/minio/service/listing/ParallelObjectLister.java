@@ -0,0 +1,387 @@
+package com.kangaroohy.minio.service.listing;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.exceptions.UncheckedMinioServiceException;
+import com.kangaroohy.minio.utils.ThreadUtil;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 类 ParallelObjectLister 功能描述：<br/>
+ * 按前缀分片的并行遍历：先用分隔符列出第一级公共前缀，再在线程池中同时递归遍历最多 parallelism 个前缀，
+ * 结果合并为一个流。有序模式按前缀顺序输出（与单游标遍历顺序一致），无序模式谁先返回先输出；
+ * 每个分片只缓存少量页，内存占用与文件总数无关。<br/>
+ * 第一级的文件会在发现阶段一次性加载，扁平（无目录）的 bucket 请直接使用单游标遍历
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/24 14:10
+ */
+@Slf4j
+public class ParallelObjectLister {
+
+    private static final String DELIMITER = "/";
+
+    /**
+     * 每次入队的文件数
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * 每个分片最多缓存的块数，写满后分片暂停遍历
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    private final MinioClient minioClient;
+
+    /**
+     * 遍历线程是否使用虚拟线程
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * 遍历所用的线程池，为 null 时每次遍历创建与并发数相同的线程池
+     */
+    private final Executor executor;
+
+    public ParallelObjectLister(MinioClient minioClient) {
+        this(minioClient, false);
+    }
+
+    public ParallelObjectLister(MinioClient minioClient, boolean virtualThreads) {
+        this(minioClient, virtualThreads, null);
+    }
+
+    public ParallelObjectLister(MinioClient minioClient, boolean virtualThreads, Executor executor) {
+        this.minioClient = minioClient;
+        this.virtualThreads = virtualThreads;
+        this.executor = executor;
+    }
+
+    /**
+     * 并行遍历前缀下的所有文件（递归），返回的流使用完毕或提前放弃时需要关闭
+     *
+     * @param bucketName  bucket名称
+     * @param prefix      前缀，为空时遍历整个 bucket
+     * @param parallelism 同时遍历的前缀数
+     * @param sorted      是否按 key 顺序输出
+     * @return 遍历失败时抛出 UncheckedMinioServiceException
+     */
+    public Stream<Item> list(String bucketName, String prefix, int parallelism, boolean sorted) throws MinioServiceException {
+        List<Shard> shards = discover(bucketName, prefix);
+        int window = Math.max(1, parallelism);
+        ExecutorService ownExecutor = executor == null ? ThreadUtil.newFixedThreadPool("minio-list", window, virtualThreads) : null;
+        Executor listExecutor = executor != null ? executor : ownExecutor;
+        ShardIterator iterator = sorted
+                ? new SortedIterator(bucketName, shards, window, listExecutor, ownExecutor)
+                : new UnorderedIterator(bucketName, shards, window, listExecutor, ownExecutor);
+        int characteristics = sorted ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 列出第一级：公共前缀各为一个分片，相邻的文件合并为一个已加载分片，保持原有顺序
+     */
+    private List<Shard> discover(String bucketName, String prefix) throws MinioServiceException {
+        List<Shard> shards = new ArrayList<>();
+        List<Item> objects = new ArrayList<>();
+        try {
+            for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .delimiter(DELIMITER)
+                    .build())) {
+                Item item = result.get();
+                if (item.isDir()) {
+                    if (!objects.isEmpty()) {
+                        shards.add(new Shard(null, objects));
+                        objects = new ArrayList<>();
+                    }
+                    shards.add(new Shard(item.objectName(), null));
+                } else {
+                    objects.add(item);
+                }
+            }
+        } catch (Exception e) {
+            throw new MinioServiceException("Failed to list prefixes in bucket: " + bucketName, e);
+        }
+        if (!objects.isEmpty()) {
+            shards.add(new Shard(null, objects));
+        }
+        return shards;
+    }
+
+    private void produce(String bucketName, String prefix, BlockingQueue<Chunk> queue, AtomicBoolean closed) {
+        try {
+            List<Item> items = new ArrayList<>(CHUNK_SIZE);
+            for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .recursive(true)
+                    .build())) {
+                if (closed.get()) {
+                    return;
+                }
+                items.add(result.get());
+                if (items.size() == CHUNK_SIZE) {
+                    queue.put(new Chunk(items, null));
+                    items = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!items.isEmpty()) {
+                queue.put(new Chunk(items, null));
+            }
+            queue.put(Chunk.END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (closed.get()) {
+                return;
+            }
+            log.debug("Failed to list prefix {} in bucket {}", prefix, bucketName, e);
+            try {
+                queue.put(new Chunk(Collections.emptyList(), e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private abstract class ShardIterator implements Iterator<Item> {
+
+        final String bucketName;
+
+        final Executor executor;
+
+        /**
+         * 本次遍历创建的线程池，使用共享线程池时为 null
+         */
+        final ExecutorService ownExecutor;
+
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * 正在执行遍历任务的线程，关闭时只中断这些线程，不影响共享线程池中的其他任务
+         */
+        final Set<Thread> producers = new HashSet<>();
+
+        Iterator<Item> current = Collections.emptyIterator();
+
+        ShardIterator(String bucketName, Executor executor, ExecutorService ownExecutor) {
+            this.bucketName = bucketName;
+            this.executor = executor;
+            this.ownExecutor = ownExecutor;
+        }
+
+        void submit(Runnable task) {
+            executor.execute(() -> {
+                Thread thread = Thread.currentThread();
+                synchronized (producers) {
+                    producers.add(thread);
+                }
+                try {
+                    if (!closed.get()) {
+                        task.run();
+                    }
+                } finally {
+                    synchronized (producers) {
+                        producers.remove(thread);
+                    }
+                    // 清除关闭时发出的中断，线程归还共享线程池后不影响后续任务
+                    Thread.interrupted();
+                }
+            });
+        }
+
+        /**
+         * 切换到下一块，没有更多数据时返回 false
+         */
+        abstract boolean advance() throws InterruptedException;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!current.hasNext()) {
+                    if (closed.get() || !advance()) {
+                        close();
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new UncheckedMinioServiceException(new MinioServiceException("Interrupted while listing objects in bucket: " + bucketName, e));
+            }
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        Iterator<Item> items(Chunk chunk) {
+            if (chunk.error != null) {
+                close();
+                throw new UncheckedMinioServiceException(new MinioServiceException("Failed to list objects in bucket: " + bucketName, chunk.error));
+            }
+            return chunk.items.iterator();
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                // 中断阻塞在入队上的分片
+                synchronized (producers) {
+                    producers.forEach(Thread::interrupt);
+                }
+                if (ownExecutor != null) {
+                    ownExecutor.shutdownNow();
+                }
+            }
+        }
+    }
+
+    /**
+     * 有序：最多同时遍历 window 个相邻分片，按分片顺序依次读取，后面的分片缓存写满后暂停
+     */
+    private final class SortedIterator extends ShardIterator {
+
+        private final List<Shard> shards;
+
+        private final int window;
+
+        private final Deque<BlockingQueue<Chunk>> active = new ArrayDeque<>();
+
+        private int next;
+
+        SortedIterator(String bucketName, List<Shard> shards, int window, Executor executor, ExecutorService ownExecutor) {
+            super(bucketName, executor, ownExecutor);
+            this.shards = shards;
+            this.window = window;
+        }
+
+        @Override
+        boolean advance() throws InterruptedException {
+            while (true) {
+                while (active.size() < window && next < shards.size()) {
+                    active.addLast(start(shards.get(next++)));
+                }
+                BlockingQueue<Chunk> head = active.peekFirst();
+                if (head == null) {
+                    return false;
+                }
+                Chunk chunk = head.take();
+                if (chunk == Chunk.END) {
+                    active.pollFirst();
+                    continue;
+                }
+                current = items(chunk);
+                return true;
+            }
+        }
+
+        private BlockingQueue<Chunk> start(Shard shard) {
+            BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            if (shard.objects != null) {
+                queue.add(new Chunk(shard.objects, null));
+                queue.add(Chunk.END);
+            } else {
+                submit(() -> produce(bucketName, shard.prefix, queue, closed));
+            }
+            return queue;
+        }
+    }
+
+    /**
+     * 无序：window 个任务依次领取未遍历的分片，所有分片写入同一个有界队列
+     */
+    private final class UnorderedIterator extends ShardIterator {
+
+        private final Deque<Chunk> loaded = new ArrayDeque<>();
+
+        private final BlockingQueue<Chunk> queue;
+
+        private int pending;
+
+        UnorderedIterator(String bucketName, List<Shard> shards, int window, Executor executor, ExecutorService ownExecutor) {
+            super(bucketName, executor, ownExecutor);
+            this.queue = new ArrayBlockingQueue<>(window * QUEUE_CAPACITY);
+            Queue<String> prefixes = new ConcurrentLinkedQueue<>();
+            for (Shard shard : shards) {
+                if (shard.objects != null) {
+                    loaded.add(new Chunk(shard.objects, null));
+                } else {
+                    pending++;
+                    prefixes.add(shard.prefix);
+                }
+            }
+            for (int i = 0; i < Math.min(window, pending); i++) {
+                submit(() -> {
+                    String prefix;
+                    while (!closed.get() && (prefix = prefixes.poll()) != null) {
+                        produce(bucketName, prefix, queue, closed);
+                    }
+                });
+            }
+        }
+
+        @Override
+        boolean advance() throws InterruptedException {
+            while (true) {
+                if (!loaded.isEmpty()) {
+                    current = items(loaded.poll());
+                    return true;
+                }
+                if (pending == 0) {
+                    return false;
+                }
+                Chunk chunk = queue.take();
+                if (chunk == Chunk.END) {
+                    pending--;
+                    continue;
+                }
+                current = items(chunk);
+                return true;
+            }
+        }
+    }
+
+    private static final class Shard {
+        private final String prefix;
+        private final List<Item> objects;
+
+        private Shard(String prefix, List<Item> objects) {
+            this.prefix = prefix;
+            this.objects = objects;
+        }
+    }
+
+    private static final class Chunk {
+        private static final Chunk END = new Chunk(Collections.emptyList(), null);
+
+        private final List<Item> items;
+        private final Exception error;
+
+        private Chunk(List<Item> items, Exception error) {
+            this.items = items;
+            this.error = error;
+        }
+    }
+}
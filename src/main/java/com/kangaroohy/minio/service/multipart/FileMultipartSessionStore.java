@@ -0,0 +1,280 @@
+package com.kangaroohy.minio.service.multipart;
+
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.entity.MultiPartSessionPart;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 类 FileMultipartSessionStore 功能描述：<br/>
+ * 基于本地目录的分片上传会话存储，每个会话一个文件：首行为会话信息，之后每完成一个分片追加一行，
+ * 进程重启后仍可续传；多实例挂载同一目录即可共享
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 17:00
+ */
+public class FileMultipartSessionStore implements MultipartSessionStore {
+
+    private static final String SUFFIX = ".session";
+
+    private static final String SESSION = "S";
+
+    private static final String PART = "P";
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 按 uploadId 分段加锁，同一会话的写入串行
+     */
+    private final Object[] locks = new Object[64];
+
+    private final Path directory;
+
+    private final AtomicLong nextPurge = new AtomicLong(System.currentTimeMillis() + PURGE_INTERVAL_MILLIS);
+
+    /**
+     * @param directory 会话文件目录，不存在时自动创建
+     */
+    public FileMultipartSessionStore(Path directory) throws MinioServiceException {
+        this.directory = directory;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new MinioServiceException("Failed to create multipart session directory: " + directory, e);
+        }
+    }
+
+    @Override
+    public void save(MultiPartSession session) throws MinioServiceException {
+        StringBuilder content = new StringBuilder()
+                .append(String.join(" ", SESSION, encode(session.getBucketName()), encode(session.getObjectName()),
+                        String.valueOf(session.getCreateTime()), String.valueOf(session.getExpiryTime())))
+                .append('\n');
+        if (session.getParts() != null) {
+            session.getParts().forEach(part -> content.append(partLine(part)));
+        }
+        Path file = file(session.getUploadId());
+        synchronized (lock(session.getUploadId())) {
+            try {
+                // 先写临时文件再替换，避免读到写了一半的会话
+                Path temp = Files.createTempFile(directory, "session", ".tmp");
+                Files.write(temp, content.toString().getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new MinioServiceException("Failed to save multipart session: " + session.getUploadId(), e);
+            }
+        }
+        purgeIfDue();
+    }
+
+    @Override
+    public MultiPartSession get(String uploadId) throws MinioServiceException {
+        Path file = file(uploadId);
+        MultiPartSession session;
+        synchronized (lock(uploadId)) {
+            try {
+                session = read(uploadId, file);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new MinioServiceException("Failed to read multipart session: " + uploadId, e);
+            }
+        }
+        if (session != null && isExpired(session, LocalDateTime.now())) {
+            remove(uploadId);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void putPart(String uploadId, MultiPartSessionPart part) throws MinioServiceException {
+        Path file = file(uploadId);
+        synchronized (lock(uploadId)) {
+            try {
+                // 不带 CREATE，会话不存在时忽略
+                Files.write(file, partLine(part).getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (NoSuchFileException e) {
+                // ignore
+            } catch (IOException e) {
+                throw new MinioServiceException("Failed to record part " + part.getPartNumber() + " of multipart session: " + uploadId, e);
+            }
+        }
+    }
+
+    @Override
+    public void remove(String uploadId) throws MinioServiceException {
+        synchronized (lock(uploadId)) {
+            try {
+                Files.deleteIfExists(file(uploadId));
+            } catch (IOException e) {
+                throw new MinioServiceException("Failed to remove multipart session: " + uploadId, e);
+            }
+        }
+    }
+
+    @Override
+    public int removeExpired() throws MinioServiceException {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> expired = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).forEach(file -> {
+                String name = file.getFileName().toString();
+                String uploadId = decode(name.substring(0, name.length() - SUFFIX.length()));
+                try {
+                    MultiPartSession session = read(uploadId, file);
+                    if (session == null || isExpired(session, now)) {
+                        expired.add(uploadId);
+                    }
+                } catch (NoSuchFileException e) {
+                    // 已被删除
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            throw new MinioServiceException("Failed to list multipart session directory: " + directory, e);
+        }
+        for (String uploadId : expired) {
+            remove(uploadId);
+        }
+        return expired.size();
+    }
+
+    @Override
+    public List<MultiPartSession> listCreatedBefore(LocalDateTime createdBefore, String afterUploadId, int limit) throws MinioServiceException {
+        String marker = afterUploadId == null ? "" : afterUploadId;
+        List<String> uploadIds;
+        try (Stream<Path> files = Files.list(directory)) {
+            uploadIds = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> decode(name.substring(0, name.length() - SUFFIX.length())))
+                    .filter(uploadId -> uploadId.compareTo(marker) > 0)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            throw new MinioServiceException("Failed to list multipart session directory: " + directory, e);
+        }
+        List<MultiPartSession> sessions = new ArrayList<>();
+        for (String uploadId : uploadIds) {
+            if (sessions.size() >= limit) {
+                break;
+            }
+            MultiPartSession session;
+            synchronized (lock(uploadId)) {
+                try {
+                    session = read(uploadId, file(uploadId));
+                } catch (NoSuchFileException e) {
+                    continue;
+                } catch (IOException e) {
+                    throw new MinioServiceException("Failed to read multipart session: " + uploadId, e);
+                }
+            }
+            if (session != null && session.getCreateTime() != null && session.getCreateTime().isBefore(createdBefore)) {
+                session.setParts(new ArrayList<>());
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * 读取会话文件，同一 partNumber 以最后一行为准；末尾写了一半的行忽略
+     *
+     * @return 会话，首行不完整时返回 null
+     */
+    private static MultiPartSession read(String uploadId, Path file) throws IOException {
+        MultiPartSession session = null;
+        TreeMap<Integer, MultiPartSessionPart> parts = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ", -1);
+                try {
+                    if (session == null && fields.length == 5 && SESSION.equals(fields[0])) {
+                        session = MultiPartSession.builder()
+                                .uploadId(uploadId)
+                                .bucketName(decode(fields[1]))
+                                .objectName(decode(fields[2]))
+                                .createTime(parseTime(fields[3]))
+                                .expiryTime(parseTime(fields[4]))
+                                .build();
+                    } else if (session != null && fields.length == 4 && PART.equals(fields[0])) {
+                        MultiPartSessionPart part = new MultiPartSessionPart(Integer.parseInt(fields[1]), decode(fields[2]), Long.parseLong(fields[3]));
+                        parts.put(part.getPartNumber(), part);
+                    }
+                } catch (RuntimeException e) {
+                    // 进程在追加时退出留下的残行
+                }
+            }
+        }
+        if (session != null) {
+            session.setParts(new ArrayList<>(parts.values()));
+        }
+        return session;
+    }
+
+    private static String partLine(MultiPartSessionPart part) {
+        return String.join(" ", PART, String.valueOf(part.getPartNumber()), encode(part.getEtag()), String.valueOf(part.getSize())) + '\n';
+    }
+
+    private static boolean isExpired(MultiPartSession session, LocalDateTime now) {
+        return session.getExpiryTime() != null && session.getExpiryTime().isBefore(now);
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return "null".equals(value) ? null : LocalDateTime.parse(value);
+    }
+
+    private Path file(String uploadId) {
+        return directory.resolve(encode(uploadId) + SUFFIX);
+    }
+
+    private Object lock(String uploadId) {
+        return locks[(uploadId.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    private void purgeIfDue() throws MinioServiceException {
+        long now = System.currentTimeMillis();
+        long next = nextPurge.get();
+        if (now >= next && nextPurge.compareAndSet(next, now + PURGE_INTERVAL_MILLIS)) {
+            removeExpired();
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.kangaroohy.minio.service.multipart;
+
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.entity.MultiPartSessionPart;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 类 InMemoryMultipartSessionStore 功能描述：<br/>
+ * 基于进程内存的分片上传会话存储，仅适用于单实例；过期会话在保存新会话时顺带清理
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:55
+ */
+public class InMemoryMultipartSessionStore implements MultipartSessionStore {
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ConcurrentMap<String, Entry> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 下次清理过期会话的时间
+     */
+    private final AtomicLong nextPurge = new AtomicLong(System.currentTimeMillis() + PURGE_INTERVAL_MILLIS);
+
+    @Override
+    public void save(MultiPartSession session) {
+        Entry entry = new Entry(session);
+        if (session.getParts() != null) {
+            session.getParts().forEach(part -> entry.parts.put(part.getPartNumber(), part));
+        }
+        sessions.put(session.getUploadId(), entry);
+        purgeIfDue();
+    }
+
+    @Override
+    public MultiPartSession get(String uploadId) {
+        Entry entry = sessions.get(uploadId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(LocalDateTime.now())) {
+            sessions.remove(uploadId, entry);
+            return null;
+        }
+        MultiPartSession session = copy(uploadId, entry);
+        session.setParts(new ArrayList<>(entry.parts.values()));
+        return session;
+    }
+
+    @Override
+    public void putPart(String uploadId, MultiPartSessionPart part) {
+        Entry entry = sessions.get(uploadId);
+        if (entry != null) {
+            entry.parts.put(part.getPartNumber(), part);
+        }
+    }
+
+    @Override
+    public void remove(String uploadId) {
+        sessions.remove(uploadId);
+    }
+
+    @Override
+    public int removeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int before = sessions.size();
+        sessions.values().removeIf(entry -> entry.isExpired(now));
+        return before - sessions.size();
+    }
+
+    @Override
+    public List<MultiPartSession> listCreatedBefore(LocalDateTime createdBefore, String afterUploadId, int limit) {
+        String marker = afterUploadId == null ? "" : afterUploadId;
+        return sessions.entrySet().stream()
+                .filter(e -> e.getKey().compareTo(marker) > 0)
+                .filter(e -> e.getValue().session.getCreateTime() != null && e.getValue().session.getCreateTime().isBefore(createdBefore))
+                .sorted(Map.Entry.comparingByKey())
+                .limit(limit)
+                .map(e -> copy(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 当前保存的会话数量
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    private static MultiPartSession copy(String uploadId, Entry entry) {
+        return MultiPartSession.builder()
+                .uploadId(uploadId)
+                .bucketName(entry.session.getBucketName())
+                .objectName(entry.session.getObjectName())
+                .createTime(entry.session.getCreateTime())
+                .expiryTime(entry.session.getExpiryTime())
+                .build();
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        long next = nextPurge.get();
+        if (now >= next && nextPurge.compareAndSet(next, now + PURGE_INTERVAL_MILLIS)) {
+            removeExpired();
+        }
+    }
+
+    private static final class Entry {
+        private final MultiPartSession session;
+        private final ConcurrentSkipListMap<Integer, MultiPartSessionPart> parts = new ConcurrentSkipListMap<>();
+
+        private Entry(MultiPartSession session) {
+            this.session = session;
+        }
+
+        private boolean isExpired(LocalDateTime now) {
+            return session.getExpiryTime() != null && session.getExpiryTime().isBefore(now);
+        }
+    }
+}
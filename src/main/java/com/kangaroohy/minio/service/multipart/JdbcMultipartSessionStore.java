@@ -0,0 +1,271 @@
+package com.kangaroohy.minio.service.multipart;
+
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.entity.MultiPartSessionPart;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 类 JdbcMultipartSessionStore 功能描述：<br/>
+ * 基于数据库的分片上传会话存储，适用于多实例部署，只使用标准 SQL，
+ * 建表语句见 classpath:META-INF/minio/multipart-session-schema.sql（默认前缀）：
+ * <pre>
+ * {prefix}_session(upload_id, bucket_name, object_name, create_time, expiry_time)
+ * {prefix}_part(upload_id, part_number, etag, part_size)
+ * </pre>
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 17:10
+ */
+public class JdbcMultipartSessionStore implements MultipartSessionStore {
+
+    /**
+     * 默认表名前缀对应的建表语句
+     */
+    public static final String SCHEMA_LOCATION = "classpath:META-INF/minio/multipart-session-schema.sql";
+
+    private static final Pattern TABLE_PREFIX = Pattern.compile("[A-Za-z0-9_.]+");
+
+    private final DataSource dataSource;
+
+    private final String insertSession;
+
+    private final String selectSession;
+
+    private final String deleteSession;
+
+    private final String selectSessionsCreatedBefore;
+
+    private final String deleteExpiredSessions;
+
+    private final String insertPart;
+
+    private final String insertPartIfSessionExists;
+
+    private final String updatePart;
+
+    private final String selectParts;
+
+    private final String deleteParts;
+
+    private final String deleteExpiredParts;
+
+    /**
+     * @param dataSource  数据源
+     * @param tablePrefix 表名前缀，会话表为 {prefix}_session，分片表为 {prefix}_part
+     */
+    public JdbcMultipartSessionStore(DataSource dataSource, String tablePrefix) {
+        if (tablePrefix == null || !TABLE_PREFIX.matcher(tablePrefix).matches()) {
+            throw new IllegalArgumentException("Invalid table prefix: " + tablePrefix);
+        }
+        this.dataSource = dataSource;
+        String sessionTable = tablePrefix + "_session";
+        String partTable = tablePrefix + "_part";
+        this.insertSession = "INSERT INTO " + sessionTable + " (upload_id, bucket_name, object_name, create_time, expiry_time) VALUES (?, ?, ?, ?, ?)";
+        this.selectSession = "SELECT bucket_name, object_name, create_time, expiry_time FROM " + sessionTable + " WHERE upload_id = ?";
+        this.deleteSession = "DELETE FROM " + sessionTable + " WHERE upload_id = ?";
+        this.selectSessionsCreatedBefore = "SELECT upload_id, bucket_name, object_name, create_time, expiry_time FROM " + sessionTable
+                + " WHERE create_time < ? AND upload_id > ? ORDER BY upload_id";
+        this.deleteExpiredSessions = "DELETE FROM " + sessionTable + " WHERE expiry_time < ?";
+        this.insertPart = "INSERT INTO " + partTable + " (upload_id, part_number, etag, part_size) VALUES (?, ?, ?, ?)";
+        // 会话不存在时不插入，避免为未记录的上传留下孤立分片
+        this.insertPartIfSessionExists = "INSERT INTO " + partTable + " (upload_id, part_number, etag, part_size) SELECT upload_id, ?, ?, ? FROM " + sessionTable + " WHERE upload_id = ?";
+        this.updatePart = "UPDATE " + partTable + " SET etag = ?, part_size = ? WHERE upload_id = ? AND part_number = ?";
+        this.selectParts = "SELECT part_number, etag, part_size FROM " + partTable + " WHERE upload_id = ? ORDER BY part_number";
+        this.deleteParts = "DELETE FROM " + partTable + " WHERE upload_id = ?";
+        this.deleteExpiredParts = "DELETE FROM " + partTable + " WHERE upload_id IN (SELECT upload_id FROM " + sessionTable + " WHERE expiry_time < ?)";
+    }
+
+    @Override
+    public void save(MultiPartSession session) throws MinioServiceException {
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                execute(connection, deleteParts, session.getUploadId());
+                execute(connection, deleteSession, session.getUploadId());
+                execute(connection, insertSession, session.getUploadId(), session.getBucketName(), session.getObjectName(),
+                        timestamp(session.getCreateTime()), timestamp(session.getExpiryTime()));
+                if (session.getParts() != null && !session.getParts().isEmpty()) {
+                    try (PreparedStatement statement = connection.prepareStatement(insertPart)) {
+                        for (MultiPartSessionPart part : session.getParts()) {
+                            statement.setString(1, session.getUploadId());
+                            statement.setInt(2, part.getPartNumber());
+                            statement.setString(3, part.getEtag());
+                            statement.setLong(4, part.getSize());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new MinioServiceException("Failed to save multipart session: " + session.getUploadId(), e);
+        }
+    }
+
+    @Override
+    public MultiPartSession get(String uploadId) throws MinioServiceException {
+        MultiPartSession session;
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(selectSession)) {
+                statement.setString(1, uploadId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return null;
+                    }
+                    session = MultiPartSession.builder()
+                            .uploadId(uploadId)
+                            .bucketName(resultSet.getString(1))
+                            .objectName(resultSet.getString(2))
+                            .createTime(localDateTime(resultSet.getTimestamp(3)))
+                            .expiryTime(localDateTime(resultSet.getTimestamp(4)))
+                            .build();
+                }
+            }
+            if (session.getExpiryTime() != null && session.getExpiryTime().isBefore(LocalDateTime.now())) {
+                inTransaction(connection, () -> {
+                    execute(connection, deleteParts, uploadId);
+                    execute(connection, deleteSession, uploadId);
+                });
+                return null;
+            }
+            List<MultiPartSessionPart> parts = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(selectParts)) {
+                statement.setString(1, uploadId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        parts.add(new MultiPartSessionPart(resultSet.getInt(1), resultSet.getString(2), resultSet.getLong(3)));
+                    }
+                }
+            }
+            session.setParts(parts);
+            return session;
+        } catch (SQLException e) {
+            throw new MinioServiceException("Failed to read multipart session: " + uploadId, e);
+        }
+    }
+
+    @Override
+    public void putPart(String uploadId, MultiPartSessionPart part) throws MinioServiceException {
+        try (Connection connection = dataSource.getConnection()) {
+            // 与 save 一样在事务中提交，连接池 autoCommit=false 时关闭连接不会回滚已记录的分片
+            inTransaction(connection, () -> {
+                if (updatePart(connection, uploadId, part) > 0) {
+                    return;
+                }
+                // 先设保存点：PostgreSQL 等数据库语句失败后整个事务不可用，需回滚到保存点才能继续
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    execute(connection, insertPartIfSessionExists, part.getPartNumber(), part.getEtag(), part.getSize(), uploadId);
+                } catch (SQLException e) {
+                    // 同一分片并发重传，另一方已插入，改为更新
+                    if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                        throw e;
+                    }
+                    connection.rollback(savepoint);
+                    updatePart(connection, uploadId, part);
+                }
+            });
+        } catch (SQLException e) {
+            throw new MinioServiceException("Failed to record part " + part.getPartNumber() + " of multipart session: " + uploadId, e);
+        }
+    }
+
+    @Override
+    public void remove(String uploadId) throws MinioServiceException {
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                execute(connection, deleteParts, uploadId);
+                execute(connection, deleteSession, uploadId);
+            });
+        } catch (SQLException e) {
+            throw new MinioServiceException("Failed to remove multipart session: " + uploadId, e);
+        }
+    }
+
+    @Override
+    public int removeExpired() throws MinioServiceException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] removed = new int[1];
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                execute(connection, deleteExpiredParts, now);
+                removed[0] = execute(connection, deleteExpiredSessions, now);
+            });
+        } catch (SQLException e) {
+            throw new MinioServiceException("Failed to remove expired multipart sessions", e);
+        }
+        return removed[0];
+    }
+
+    @Override
+    public List<MultiPartSession> listCreatedBefore(LocalDateTime createdBefore, String afterUploadId, int limit) throws MinioServiceException {
+        List<MultiPartSession> sessions = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(selectSessionsCreatedBefore)) {
+            statement.setTimestamp(1, timestamp(createdBefore));
+            statement.setString(2, afterUploadId == null ? "" : afterUploadId);
+            statement.setMaxRows(limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sessions.add(MultiPartSession.builder()
+                            .uploadId(resultSet.getString(1))
+                            .bucketName(resultSet.getString(2))
+                            .objectName(resultSet.getString(3))
+                            .createTime(localDateTime(resultSet.getTimestamp(4)))
+                            .expiryTime(localDateTime(resultSet.getTimestamp(5)))
+                            .build());
+                }
+            }
+        } catch (SQLException e) {
+            throw new MinioServiceException("Failed to list multipart sessions created before: " + createdBefore, e);
+        }
+        return sessions;
+    }
+
+    private int updatePart(Connection connection, String uploadId, MultiPartSessionPart part) throws SQLException {
+        return execute(connection, updatePart, part.getEtag(), part.getSize(), uploadId, part.getPartNumber());
+    }
+
+    private static int execute(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void inTransaction(Connection connection, SqlAction action) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            action.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    private static LocalDateTime localDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,68 @@
+package com.kangaroohy.minio.service.multipart;
+
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.entity.MultiPartSessionPart;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 类 MultipartSessionStore 功能描述：<br/>
+ * 分片上传会话存储，MinioService 在初始化分片上传时保存会话，uploadPart 成功后记录分片，
+ * 查询已上传分片与合并时优先读取这里，不再每次从 minio 列出分片
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:50
+ */
+public interface MultipartSessionStore {
+
+    /**
+     * 保存会话，已存在时整体覆盖
+     *
+     * @param session 会话
+     */
+    void save(MultiPartSession session) throws MinioServiceException;
+
+    /**
+     * 获取会话
+     *
+     * @param uploadId 上传标识
+     * @return 会话，不存在或已过期时返回 null
+     */
+    MultiPartSession get(String uploadId) throws MinioServiceException;
+
+    /**
+     * 记录已完成的分片，同一 partNumber 以最后一次为准；会话不存在时忽略
+     *
+     * @param uploadId 上传标识
+     * @param part     分片
+     */
+    void putPart(String uploadId, MultiPartSessionPart part) throws MinioServiceException;
+
+    /**
+     * 删除会话
+     *
+     * @param uploadId 上传标识
+     */
+    void remove(String uploadId) throws MinioServiceException;
+
+    /**
+     * 删除已过期的会话
+     *
+     * @return 删除的会话数量
+     */
+    int removeExpired() throws MinioServiceException;
+
+    /**
+     * 按 uploadId 升序列出发起时间早于 createdBefore 的会话（不含分片），包括已过期尚未删除的会话，
+     * 供 MultipartUploadReaper 取消被放弃的分片上传
+     *
+     * @param createdBefore 发起时间上限
+     * @param afterUploadId 只返回 uploadId 大于该值的会话，为 null 时从头开始
+     * @param limit         最多返回的数量
+     * @return 会话
+     */
+    List<MultiPartSession> listCreatedBefore(LocalDateTime createdBefore, String afterUploadId, int limit) throws MinioServiceException;
+}
@@ -0,0 +1,312 @@
+package com.kangaroohy.minio.service.multipart;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.utils.FutureUtil;
+import io.minio.AbortMultipartUploadResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ListMultipartUploadsResult;
+import io.minio.messages.Upload;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类 MultipartUploadReaper 功能描述：<br/>
+ * 清理被放弃的分片上传：配置了会话存储时，从存储中按页取出发起时间早于 maxAge 的会话，按 uploadId 逐个取消；
+ * 未配置时按页列出各 bucket 中未完成的分片上传再取消。minio 的 ListMultipartUploads 必须指定对象名作为前缀，
+ * 不支持列出整个 bucket，因此连接 minio 时需配置会话存储，未经本服务发起的上传由 minio 的 api stale_uploads_expiry 清理；
+ * 取消请求按速率限制发出，避免清理大量积压时影响正常请求；可手动调用 reap 或通过 start 定时执行
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 17:30
+ */
+@Slf4j
+public class MultipartUploadReaper implements AutoCloseable {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final ExtendMinioAsyncClient minioAsyncClient;
+
+    private final List<String> bucketNames;
+
+    private final Duration maxAge;
+
+    private final int concurrency;
+
+    private final Semaphore permits;
+
+    private final RateLimiter rateLimiter;
+
+    private final MultipartSessionStore multipartSessionStore;
+
+    private final AtomicLong scannedCount = new AtomicLong();
+
+    private final AtomicLong abortedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile long lastRunNanos;
+
+    /**
+     * reap 串行执行，与 start / close 使用不同的锁，close 时可中断正在执行的清理
+     */
+    private final Object reapLock = new Object();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param minioAsyncClient      客户端
+     * @param bucketNames           需要清理的 bucket
+     * @param maxAge                发起时间早于该时长的分片上传视为已放弃，需大于最长的正常上传耗时
+     * @param concurrency           同时进行的取消请求数
+     * @param abortsPerSecond       每秒最多发出的取消请求数，0 表示不限制
+     * @param multipartSessionStore 会话存储，不为 null 时从中取出待清理的上传，取消后同步删除会话；
+     *                              为 null 时列出 bucket 中未完成的上传（minio 不支持）
+     */
+    public MultipartUploadReaper(ExtendMinioAsyncClient minioAsyncClient, List<String> bucketNames, Duration maxAge, int concurrency,
+                                 double abortsPerSecond, MultipartSessionStore multipartSessionStore) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.minioAsyncClient = minioAsyncClient;
+        this.bucketNames = new ArrayList<>(bucketNames);
+        this.maxAge = maxAge;
+        this.concurrency = concurrency;
+        this.permits = new Semaphore(concurrency);
+        this.rateLimiter = abortsPerSecond > 0 ? RateLimiter.create(abortsPerSecond) : null;
+        this.multipartSessionStore = multipartSessionStore;
+    }
+
+    /**
+     * 按固定间隔在后台线程中执行 reap，首次在一个间隔之后执行
+     *
+     * @param interval 间隔
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "minio-multipart-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reap, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 清理所有配置的 bucket，单个 bucket 失败时记录日志并继续
+     *
+     * @return 本次取消的分片上传数量
+     */
+    public int reap() {
+        synchronized (reapLock) {
+            long start = System.nanoTime();
+            int total = 0;
+            if (multipartSessionStore != null) {
+                try {
+                    total = reapSessions(new HashSet<>(bucketNames));
+                } catch (MinioServiceException | RuntimeException e) {
+                    log.warn("Failed to reap multipart uploads of buckets: {}", bucketNames, e);
+                }
+            } else {
+                for (String bucketName : bucketNames) {
+                    try {
+                        total += reapBucket(bucketName);
+                    } catch (MinioServiceException | RuntimeException e) {
+                        log.warn("Failed to reap multipart uploads in bucket: {}", bucketName, e);
+                    }
+                }
+            }
+            lastRunNanos = System.nanoTime() - start;
+            if (total > 0) {
+                log.info("Aborted {} abandoned multipart uploads in {} ms", total, TimeUnit.NANOSECONDS.toMillis(lastRunNanos));
+            }
+            return total;
+        }
+    }
+
+    /**
+     * 清理指定 bucket，等待已发出的取消请求全部完成后返回
+     *
+     * @param bucketName bucket名称
+     * @return 取消的分片上传数量
+     */
+    public int reap(String bucketName) throws MinioServiceException {
+        synchronized (reapLock) {
+            return multipartSessionStore != null ? reapSessions(Collections.singleton(bucketName)) : reapBucket(bucketName);
+        }
+    }
+
+    /**
+     * 按 uploadId 分页取出会话，取消失败的会话保留在存储中，下次继续尝试
+     */
+    private int reapSessions(Set<String> buckets) throws MinioServiceException {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        AtomicInteger aborted = new AtomicInteger();
+        String marker = null;
+        try {
+            while (true) {
+                List<MultiPartSession> sessions = multipartSessionStore.listCreatedBefore(cutoff, marker, PAGE_SIZE);
+                for (MultiPartSession session : sessions) {
+                    if (!buckets.contains(session.getBucketName())) {
+                        continue;
+                    }
+                    scannedCount.incrementAndGet();
+                    acquire();
+                    abort(session.getBucketName(), session.getObjectName(), session.getUploadId(), aborted);
+                }
+                if (sessions.size() < PAGE_SIZE) {
+                    break;
+                }
+                marker = sessions.get(sessions.size() - 1).getUploadId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioServiceException("Interrupted while reaping multipart uploads of buckets: " + buckets, e);
+        } finally {
+            awaitAborts();
+        }
+        return aborted.get();
+    }
+
+    /**
+     * 列出整个 bucket 的未完成上传，适用于 AWS S3 等支持不带前缀列出的服务，minio 返回空结果
+     */
+    private int reapBucket(String bucketName) throws MinioServiceException {
+        ZonedDateTime cutoff = ZonedDateTime.now().minus(maxAge);
+        AtomicInteger aborted = new AtomicInteger();
+        String keyMarker = null;
+        String uploadIdMarker = null;
+        try {
+            while (true) {
+                ListMultipartUploadsResult result = minioAsyncClient.listMultipartUploadsPageAsync(bucketName, null, keyMarker, uploadIdMarker, PAGE_SIZE)
+                        .get().result();
+                for (Upload upload : result.uploads()) {
+                    scannedCount.incrementAndGet();
+                    if (upload.initiated() == null || upload.initiated().isAfter(cutoff)) {
+                        continue;
+                    }
+                    acquire();
+                    abort(bucketName, upload.objectName(), upload.uploadId(), aborted);
+                }
+                if (!result.isTruncated() || result.nextKeyMarker() == null) {
+                    break;
+                }
+                keyMarker = result.nextKeyMarker();
+                uploadIdMarker = result.nextUploadIdMarker();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioServiceException("Interrupted while reaping multipart uploads in bucket: " + bucketName, e);
+        } catch (Exception e) {
+            throw new MinioServiceException("Failed to list multipart uploads in bucket: " + bucketName, FutureUtil.unwrap(e));
+        } finally {
+            awaitAborts();
+        }
+        return aborted.get();
+    }
+
+    private void acquire() throws InterruptedException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        permits.acquire();
+    }
+
+    /**
+     * 等待在途的取消请求
+     */
+    private void awaitAborts() {
+        permits.acquireUninterruptibly(concurrency);
+        permits.release(concurrency);
+    }
+
+    private void abort(String bucketName, String objectName, String uploadId, AtomicInteger aborted) {
+        CompletableFuture<AbortMultipartUploadResponse> future;
+        try {
+            future = minioAsyncClient.removeMultipartUploadAsync(bucketName, null, objectName, uploadId, null, null);
+        } catch (Exception e) {
+            future = FutureUtil.failed(e);
+        }
+        future.whenComplete((response, e) -> {
+            try {
+                Throwable cause = e == null ? null : FutureUtil.unwrap(e);
+                if (cause == null) {
+                    abortedCount.incrementAndGet();
+                    aborted.incrementAndGet();
+                    removeSession(uploadId);
+                } else if (isNoSuchUpload(cause)) {
+                    // 列出之后已完成或已被取消
+                    removeSession(uploadId);
+                } else {
+                    failedCount.incrementAndGet();
+                    log.warn("Failed to abort multipart upload {} of object {} in bucket: {}", uploadId, objectName, bucketName, cause);
+                }
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private void removeSession(String uploadId) {
+        if (multipartSessionStore == null) {
+            return;
+        }
+        try {
+            multipartSessionStore.remove(uploadId);
+        } catch (MinioServiceException e) {
+            log.warn("Failed to remove multipart session: {}", uploadId, e);
+        }
+    }
+
+    private static boolean isNoSuchUpload(Throwable cause) {
+        return cause instanceof ErrorResponseException && "NoSuchUpload".equals(((ErrorResponseException) cause).errorResponse().code());
+    }
+
+    /**
+     * 累计检查的分片上传数量
+     */
+    public long getScannedCount() {
+        return scannedCount.get();
+    }
+
+    /**
+     * 累计取消的分片上传数量
+     */
+    public long getAbortedCount() {
+        return abortedCount.get();
+    }
+
+    /**
+     * 累计取消失败的数量
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * 最近一次 reap() 的耗时
+     */
+    public Duration getLastRunDuration() {
+        return Duration.ofNanos(lastRunNanos);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.kangaroohy.minio.service.presign;
+
+import io.minio.S3Escaper;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 类 BulkPresigner 功能描述：<br/>
+ * 离线批量预签名（AWS SigV4 query 签名，path-style），region 取自配置，不发起任何请求；
+ * 签名密钥按 日期 + region 派生一次后复用，分片数较多时并行计算
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/23 10:20
+ */
+public class BulkPresigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter SIGNER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd", Locale.US).withZone(ZoneOffset.UTC);
+
+    /**
+     * 预签名最长有效期 7 天
+     */
+    private static final long MAX_EXPIRY = TimeUnit.DAYS.toSeconds(7);
+
+    /**
+     * 分片数达到该值时并行签名
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final HttpUrl baseUrl;
+
+    private final String host;
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final String region;
+
+    /**
+     * 当天的签名密钥
+     */
+    private volatile SigningKey signingKey;
+
+    public BulkPresigner(String endpoint, String accessKey, String secretKey, String region) {
+        HttpUrl url = HttpUrl.parse(endpoint);
+        if (url == null) {
+            throw new IllegalArgumentException("invalid endpoint: " + endpoint);
+        }
+        this.baseUrl = url;
+        this.host = hostHeader(url);
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * 批量生成分片上传预签名地址，与 partNumbers 顺序一致
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param uploadId    上传ID
+     * @param partNumbers 分片序号
+     * @param time        有效期
+     * @param timeUnit    有效期单位
+     * @return
+     */
+    public List<String> presignUploadParts(String bucketName, String objectName, String uploadId,
+                                           List<Integer> partNumbers, long time, TimeUnit timeUnit) {
+        long expires = timeUnit.toSeconds(time);
+        if (expires < 1 || expires > MAX_EXPIRY) {
+            throw new IllegalArgumentException("expiry must be minimum 1 second to maximum 7 days");
+        }
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        SigningKey key = signingKey(now);
+        String amzDate = AMZ_DATE_FORMAT.format(now);
+        String encodedPath = baseUrl.newBuilder()
+                .addEncodedPathSegment(S3Escaper.encode(bucketName))
+                .addEncodedPathSegments(S3Escaper.encodePath(objectName))
+                .build().encodedPath();
+        String urlPrefix = baseUrl.newBuilder().encodedPath(encodedPath).build() + "?";
+        String encodedUploadId = S3Escaper.encode(uploadId);
+
+        // 除 partNumber 外的 query 参数都相同，按 key 排序后拆成前后两段，partNumber 插在中间
+        TreeMap<String, String> params = new TreeMap<>();
+        params.put("X-Amz-Algorithm", ALGORITHM);
+        params.put("X-Amz-Credential", S3Escaper.encode(accessKey + "/" + key.scope));
+        params.put("X-Amz-Date", amzDate);
+        params.put("X-Amz-Expires", Long.toString(expires));
+        params.put("X-Amz-SignedHeaders", "host");
+        params.put("uploadId", encodedUploadId);
+        String before = join(params.headMap("partNumber"));
+        String after = join(params.tailMap("partNumber"));
+        String canonicalSuffix = "\nhost:" + host + "\n\nhost\n" + UNSIGNED_PAYLOAD;
+        String stringToSignPrefix = ALGORITHM + "\n" + amzDate + "\n" + key.scope + "\n";
+
+        IntStream indexes = IntStream.range(0, partNumbers.size());
+        if (partNumbers.size() >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        return indexes.mapToObj(i -> {
+            String query = before + "&partNumber=" + partNumbers.get(i) + "&" + after;
+            String canonicalRequest = Method.PUT + "\n" + encodedPath + "\n" + query + canonicalSuffix;
+            String stringToSign = stringToSignPrefix + hex(SHA256.get().digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+            return urlPrefix + query + "&X-Amz-Signature=" + hex(hmac(key.key, stringToSign));
+        }).collect(Collectors.toList());
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    private SigningKey signingKey(ZonedDateTime now) {
+        String date = SIGNER_DATE_FORMAT.format(now);
+        SigningKey key = signingKey;
+        if (key == null || !key.date.equals(date)) {
+            byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+            byte[] dateRegionKey = hmac(dateKey, region);
+            byte[] dateRegionServiceKey = hmac(dateRegionKey, "s3");
+            key = new SigningKey(date, date + "/" + region + "/s3/aws4_request", hmac(dateRegionServiceKey, "aws4_request"));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = MAC.get();
+            mac.init(new SecretKeySpec(key, HMAC_SHA256));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String join(SortedMap<String, String> params) {
+        return params.entrySet().stream().map(entry -> entry.getKey() + "=" + entry.getValue()).collect(Collectors.joining("&"));
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 与 sdk 一致：默认端口不带端口号
+     */
+    private static String hostHeader(HttpUrl url) {
+        String host = url.host().contains(":") ? "[" + url.host() + "]" : url.host();
+        if (url.port() == HttpUrl.defaultPort(url.scheme())) {
+            return host;
+        }
+        return host + ":" + url.port();
+    }
+
+    private static final class SigningKey {
+        private final String date;
+        private final String scope;
+        private final byte[] key;
+
+        private SigningKey(String date, String scope, byte[] key) {
+            this.date = date;
+            this.scope = scope;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.kangaroohy.minio.service.transfer;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.utils.FutureUtil;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类 HedgedObjectReader 功能描述：<br/>
+ * 对冲读取：发出 GetObject 后，若超过近期首字节耗时的指定分位数仍未返回，再发出一个相同的请求，
+ * 先返回响应的一个胜出，另一个请求随即取消（已返回的直接关闭）。延迟阈值随近期耗时自适应，
+ * 只记录胜出请求自身的耗时（对冲请求不含等待的对冲延迟），正常情况下只有尾部约 (1 - 分位数) 的请求会多发一次
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 16:30
+ */
+@Slf4j
+public class HedgedObjectReader {
+
+    /**
+     * 统计最近多少个请求的耗时
+     */
+    private static final int WINDOW = 1024;
+
+    /**
+     * 样本数达到该值前使用初始延迟
+     */
+    private static final int MIN_SAMPLES = 64;
+
+    /**
+     * 每记录多少个样本重新计算一次阈值
+     */
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "minio-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExtendMinioAsyncClient minioAsyncClient;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final long initialDelayNanos;
+
+    /**
+     * 最近的耗时样本，读写都在 this 上同步
+     */
+    private final long[] samples = new long[WINDOW];
+
+    private long recorded;
+
+    private final AtomicLong hedged = new AtomicLong();
+
+    private volatile long thresholdNanos;
+
+    /**
+     * @param minioAsyncClient 异步客户端
+     * @param percentile       触发对冲的耗时分位数，如 0.95
+     * @param minDelay         对冲延迟下限
+     * @param initialDelay     样本不足时的对冲延迟
+     */
+    public HedgedObjectReader(ExtendMinioAsyncClient minioAsyncClient, double percentile, Duration minDelay, Duration initialDelay) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+        this.minioAsyncClient = minioAsyncClient;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.thresholdNanos = Math.max(minDelayNanos, initialDelayNanos);
+    }
+
+    /**
+     * 读取文件，返回的流由调用方关闭
+     *
+     * @param args 读取参数
+     * @return 文件流
+     */
+    public GetObjectResponse getObject(GetObjectArgs args) throws MinioServiceException {
+        CompletableFuture<GetObjectResponse> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        String primary = UUID.randomUUID().toString();
+        String secondary = UUID.randomUUID().toString();
+        // 对冲请求已发出时胜出方才需要取消另一方，未对冲（绝大多数情况）不扫描调度器的请求队列
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+        send(args, result, pending, hedgeSent, primary, secondary);
+        ScheduledFuture<?> hedge = SCHEDULER.schedule(() -> {
+            // 先置标记再检查结果：胜出方读到 false 时，这里必然看到结果已完成而不再发出
+            hedgeSent.set(true);
+            if (!result.isDone()) {
+                pending.incrementAndGet();
+                hedged.incrementAndGet();
+                send(args, result, pending, hedgeSent, secondary, primary);
+            }
+        }, thresholdNanos, TimeUnit.NANOSECONDS);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hedge.cancel(false);
+            minioAsyncClient.cancel(primary);
+            minioAsyncClient.cancel(secondary);
+            result.thenAccept(HedgedObjectReader::closeQuietly);
+            throw new MinioServiceException("Interrupted while getting object: " + args.object(), e);
+        } catch (ExecutionException e) {
+            throw new MinioServiceException("Failed to get object: " + args.object() + " from bucket: " + args.bucket(), FutureUtil.unwrap(e));
+        } finally {
+            hedge.cancel(false);
+        }
+    }
+
+    /**
+     * 当前对冲延迟
+     */
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    /**
+     * 已发出的对冲请求数
+     */
+    public long getHedgedCount() {
+        return hedged.get();
+    }
+
+    /**
+     * @param hedgeSent 对冲请求是否可能已发出
+     * @param tag       本次请求的标记
+     * @param other     另一个请求的标记，本次胜出且已对冲时取消它
+     */
+    private void send(GetObjectArgs args, CompletableFuture<GetObjectResponse> result, AtomicInteger pending, AtomicBoolean hedgeSent,
+                      String tag, String other) {
+        long start = System.nanoTime();
+        CompletableFuture<GetObjectResponse> future;
+        try {
+            future = minioAsyncClient.getObject(args, tag);
+        } catch (Exception e) {
+            future = FutureUtil.failed(e);
+        }
+        future.whenComplete((response, error) -> {
+            if (error == null) {
+                if (result.complete(response)) {
+                    if (hedgeSent.get()) {
+                        minioAsyncClient.cancel(other);
+                    }
+                    record(System.nanoTime() - start);
+                } else {
+                    closeQuietly(response);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private synchronized void record(long elapsedNanos) {
+        long count = recorded++;
+        samples[(int) (count % WINDOW)] = elapsedNanos;
+        if (count + 1 >= MIN_SAMPLES && (count + 1) % RECOMPUTE_INTERVAL == 0) {
+            long[] snapshot = Arrays.copyOf(samples, (int) Math.min(count + 1, WINDOW));
+            Arrays.sort(snapshot);
+            long value = snapshot[(int) Math.min(snapshot.length - 1, Math.ceil(percentile * snapshot.length) - 1)];
+            thresholdNanos = Math.max(minDelayNanos, value);
+        }
+    }
+
+    private static void closeQuietly(GetObjectResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            log.debug("Failed to close hedged response", e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.kangaroohy.minio.service.transfer;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.utils.CustomUtil;
+import com.kangaroohy.minio.utils.FutureUtil;
+import com.kangaroohy.minio.utils.ThreadUtil;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类 ParallelDownloader 功能描述：<br/>
+ * 并行分段下载：先获取文件大小，再按 rangeSize 切分为多个 Range 请求同时下载，
+ * 每段通过 FileChannel 直接写入目标文件的对应位置，单段失败只重试该段，重试前按指数退避加随机抖动等待；
+ * 412（下载过程中文件被覆盖）及其他 4xx 不会因重试成功，直接失败；启用对冲读取时慢分段会自动多发一次
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/21 15:20
+ */
+@Slf4j
+public class ParallelDownloader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 分段第一次重试的退避上限，之后每次翻倍，实际退避在 [0, 上限] 内随机
+     */
+    private static final long RETRY_BASE_DELAY_MILLIS = 100;
+
+    /**
+     * 分段单次退避的最大值
+     */
+    private static final long RETRY_MAX_DELAY_MILLIS = 2000;
+
+    private final MinioClient minioClient;
+
+    /**
+     * 对冲读取，为 null 时不对冲
+     */
+    private final HedgedObjectReader hedgedObjectReader;
+
+    /**
+     * 下载线程是否使用虚拟线程
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * 下载所用的线程池，为 null 时每次下载创建与并发数相同的线程池
+     */
+    private final Executor executor;
+
+    public ParallelDownloader(MinioClient minioClient) {
+        this(minioClient, null);
+    }
+
+    public ParallelDownloader(MinioClient minioClient, HedgedObjectReader hedgedObjectReader) {
+        this(minioClient, hedgedObjectReader, false);
+    }
+
+    public ParallelDownloader(MinioClient minioClient, HedgedObjectReader hedgedObjectReader, boolean virtualThreads) {
+        this(minioClient, hedgedObjectReader, virtualThreads, null);
+    }
+
+    public ParallelDownloader(MinioClient minioClient, HedgedObjectReader hedgedObjectReader, boolean virtualThreads, Executor executor) {
+        this.minioClient = minioClient;
+        this.hedgedObjectReader = hedgedObjectReader;
+        this.virtualThreads = virtualThreads;
+        this.executor = executor;
+    }
+
+    /**
+     * 并行下载文件到本地，同时最多 parallelism 个任务在线程池中依次领取分段下载
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param target      本地目标文件，已存在时覆盖
+     * @param rangeSize   每段大小
+     * @param parallelism 同时下载的段数
+     * @param retries     每段最多尝试次数
+     * @return 文件信息
+     */
+    public StatObjectResponse download(String bucketName, String objectName, Path target,
+                                       long rangeSize, int parallelism, int retries) throws MinioServiceException {
+        String object = CustomUtil.getObjectName(objectName);
+        String message = "Failed to download object: " + objectName + " from bucket: " + bucketName;
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("range size must be greater than 0");
+        }
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(object).build());
+        } catch (Exception e) {
+            throw new MinioServiceException(message, e);
+        }
+
+        long rangeCount = (stat.size() + rangeSize - 1) / rangeSize;
+        int workers = (int) Math.max(1, Math.min(Math.max(1, parallelism), rangeCount));
+        ExecutorService ownExecutor = executor == null ? ThreadUtil.newFixedThreadPool("minio-download", workers, virtualThreads) : null;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            AtomicLong nextOffset = new AtomicLong();
+            AtomicBoolean failed = new AtomicBoolean();
+            List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    long start;
+                    while (!failed.get() && (start = nextOffset.getAndAdd(rangeSize)) < stat.size()) {
+                        try {
+                            downloadRange(bucketName, object, stat.etag(), channel, start, Math.min(rangeSize, stat.size() - start), retries, message);
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }, executor != null ? executor : ownExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            return stat;
+        } catch (Exception e) {
+            deleteQuietly(target);
+            Throwable cause = FutureUtil.unwrap(e);
+            throw cause instanceof MinioServiceException ? (MinioServiceException) cause : new MinioServiceException(message, cause);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void downloadRange(String bucketName, String object, String etag, FileChannel channel,
+                               long start, long length, int retries, String message) {
+        Exception last = null;
+        for (int attempt = 1; attempt <= Math.max(1, retries); attempt++) {
+            // 按 ETag 读取，下载过程中文件被覆盖时直接失败，避免拼出混合内容
+            GetObjectArgs args = GetObjectArgs.builder().bucket(bucketName).object(object).offset(start).length(length).matchETag(etag).build();
+            try (InputStream stream = hedgedObjectReader != null ? hedgedObjectReader.getObject(args) : minioClient.getObject(args)) {
+                byte[] bytes = new byte[(int) Math.min(BUFFER_SIZE, length)];
+                long position = start;
+                int read;
+                while ((read = stream.read(bytes)) > 0) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+                if (position - start != length) {
+                    throw new IOException("range " + start + "-" + (start + length - 1) + " ended early at " + position);
+                }
+                return;
+            } catch (Exception e) {
+                last = e;
+                log.debug("Range {}-{} of {}/{} failed, attempt {}", start, start + length - 1, bucketName, object, attempt, e);
+                if (!isRetryable(e) || attempt >= retries) {
+                    break;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    last.addSuppressed(ie);
+                    break;
+                }
+            }
+        }
+        throw new CompletionException(new MinioServiceException(message + ", range: " + start + "-" + (start + length - 1), last));
+    }
+
+    /**
+     * 4xx 重试也不会成功（412 为下载过程中文件被覆盖），只有 408、429 可重试；对冲读取会把 sdk 异常包装一层
+     */
+    private static boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ErrorResponseException) {
+                int code = ((ErrorResponseException) cause).response().code();
+                return code < 400 || code >= 500 || code == 408 || code == 429;
+            }
+            if (cause instanceof InterruptedException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 全抖动退避：[0, min(maxDelay, baseDelay * 2^(n-1))] 内随机，避免各分段同时重试
+     */
+    private static long backoff(int attempt) {
+        long ceiling = Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << Math.min(20, attempt - 1));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void deleteQuietly(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            log.warn("Failed to delete incomplete file {}", target, e);
+        }
+    }
+}
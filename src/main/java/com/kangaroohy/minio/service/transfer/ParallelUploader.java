@@ -0,0 +1,469 @@
+package com.kangaroohy.minio.service.transfer;
+
+import com.google.common.io.BaseEncoding;
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.utils.CustomUtil;
+import com.kangaroohy.minio.utils.FutureUtil;
+import com.kangaroohy.minio.utils.ThreadUtil;
+import io.minio.ObjectWriteArgs;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 类 ParallelUploader 功能描述：<br/>
+ * 服务端并行分片上传：按分片读取数据源，通过 uploadPartAsync 同时上传多个分片（并发窗口可配），
+ * 全部完成后合并，任一分片失败则取消整个分片上传
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/21 09:40
+ */
+@Slf4j
+public class ParallelUploader {
+
+    /**
+     * 读取文件时每块的大小，块内数据读入后立即计算摘要
+     */
+    private static final int DIGEST_CHUNK_SIZE = 1024 * 1024;
+
+    private final ExtendMinioAsyncClient minioAsyncClient;
+
+    /**
+     * 上传线程是否使用虚拟线程
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * 读取分片所用的线程池，为 null 时每次上传创建与并发数相同的线程池
+     */
+    private final Executor executor;
+
+    public ParallelUploader(ExtendMinioAsyncClient minioAsyncClient) {
+        this(minioAsyncClient, false);
+    }
+
+    public ParallelUploader(ExtendMinioAsyncClient minioAsyncClient, boolean virtualThreads) {
+        this(minioAsyncClient, virtualThreads, null);
+    }
+
+    public ParallelUploader(ExtendMinioAsyncClient minioAsyncClient, boolean virtualThreads, Executor executor) {
+        this.minioAsyncClient = minioAsyncClient;
+        this.virtualThreads = virtualThreads;
+        this.executor = executor;
+    }
+
+    /**
+     * 分片数据读取
+     */
+    @FunctionalInterface
+    interface PartReader {
+        /**
+         * 读取下一个分片到 buffer，尽量读满
+         *
+         * @return 实际读取的字节数，0 表示已读完
+         */
+        int read(byte[] buffer) throws IOException;
+    }
+
+    /**
+     * 并行上传本地文件
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param contentType 文件类型
+     * @param file        本地文件
+     * @param partSize    分片大小，文件过大时会自动调大以满足 10000 个分片的限制
+     * @param concurrency 同时上传的分片数
+     * @return
+     */
+    public ObjectWriteResponse upload(String bucketName, String objectName, String contentType,
+                                      Path file, long partSize, int concurrency) throws MinioServiceException {
+        return upload(bucketName, objectName, contentType, file, partSize, concurrency, true);
+    }
+
+    /**
+     * 并行上传本地文件
+     *
+     * @param checksum 是否计算并发送分片摘要（Content-MD5，http 下另有 SHA-256 载荷签名）
+     * @see #upload(String, String, String, FileChannel, long, int, boolean)
+     */
+    public ObjectWriteResponse upload(String bucketName, String objectName, String contentType,
+                                      Path file, long partSize, int concurrency, boolean checksum) throws MinioServiceException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return upload(bucketName, objectName, contentType, channel, partSize, concurrency, checksum);
+        } catch (IOException e) {
+            throw new MinioServiceException("Failed to upload object: " + objectName + " to bucket: " + bucketName, e);
+        }
+    }
+
+    /**
+     * 并行上传 FileChannel 中从当前 position 到末尾的数据，不会改变 channel 的 position。
+     * 同时进行 concurrency 路上传，每路持有一个分片缓冲区，按分片号通过 positional read 直接读取自己的分片，互不共享读取位置，
+     * 摘要在读取时按块计算（数据仍在 cpu 缓存中），sdk 不再遍历请求体重复计算。
+     * 读取在线程池中进行，上传完成后再提交下一个分片的读取，线程池中的线程不会阻塞等待请求结束
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param contentType 文件类型
+     * @param channel     文件通道，由调用方关闭
+     * @param partSize    分片大小，文件过大时会自动调大以满足 10000 个分片的限制
+     * @param concurrency 同时上传的分片数
+     * @param checksum    是否计算并发送分片摘要，关闭后不发送 Content-MD5，载荷使用 UNSIGNED-PAYLOAD
+     * @return
+     */
+    public ObjectWriteResponse upload(String bucketName, String objectName, String contentType,
+                                      FileChannel channel, long partSize, int concurrency, boolean checksum) throws MinioServiceException {
+        String object = CustomUtil.getObjectName(objectName);
+        String message = "Failed to upload object: " + objectName + " to bucket: " + bucketName;
+        boolean sha256 = checksum && !minioAsyncClient.isHttps();
+        long offset;
+        long size;
+        try {
+            offset = channel.position();
+            size = Math.max(0, channel.size() - offset);
+        } catch (IOException e) {
+            throw new MinioServiceException(message, e);
+        }
+        long actualPartSize = partSize(size, partSize);
+        if (size <= actualPartSize) {
+            // 不足一个分片，直接普通上传
+            byte[] data = new byte[(int) size];
+            String[] digest = read(channel, offset, data, (int) size, checksum, sha256, message);
+            return join(FutureUtil.call(message,
+                    () -> minioAsyncClient.putObjectAsync(bucketName, object, contentType, data, data.length, digest[0], digest[1])), message);
+        }
+        int partCount = (int) ((size + actualPartSize - 1) / actualPartSize);
+        String uploadId = join(FutureUtil.call(message,
+                () -> minioAsyncClient.initMultiPartUploadAsync(bucketName, null, object, CustomUtil.getHeader(contentType), null)), message).uploadId();
+        int workers = Math.min(Math.max(1, concurrency), partCount);
+        ExecutorService ownExecutor = executor == null ? ThreadUtil.newFixedThreadPool("minio-upload", workers, virtualThreads) : null;
+        FileUpload upload = new FileUpload(bucketName, object, uploadId, channel, offset, size, actualPartSize, partCount,
+                checksum, sha256, message, executor != null ? executor : ownExecutor);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(upload.next(new byte[(int) actualPartSize]));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            if (upload.failure.get() != null) {
+                throw upload.failure.get();
+            }
+            return join(FutureUtil.call(message,
+                    () -> minioAsyncClient.mergeMultipartUploadAsync(bucketName, null, object, uploadId, upload.parts, null, null)), message);
+        } catch (Throwable e) {
+            abort(bucketName, object, uploadId, Collections.emptyList());
+            Throwable cause = FutureUtil.unwrap(e);
+            throw cause instanceof MinioServiceException ? (MinioServiceException) cause : new MinioServiceException(message, cause);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 一次文件分片上传的状态，每一路上传按分片号依次领取分片：读取 -> 上传 -> 领取下一个
+     */
+    private class FileUpload {
+
+        private final String bucketName;
+
+        private final String object;
+
+        private final String uploadId;
+
+        private final FileChannel channel;
+
+        private final long offset;
+
+        private final long size;
+
+        private final long partSize;
+
+        private final int partCount;
+
+        private final boolean checksum;
+
+        private final boolean sha256;
+
+        private final String message;
+
+        private final Executor readExecutor;
+
+        private final Part[] parts;
+
+        private final AtomicInteger nextPart = new AtomicInteger(1);
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        FileUpload(String bucketName, String object, String uploadId, FileChannel channel, long offset, long size, long partSize,
+                   int partCount, boolean checksum, boolean sha256, String message, Executor readExecutor) {
+            this.bucketName = bucketName;
+            this.object = object;
+            this.uploadId = uploadId;
+            this.channel = channel;
+            this.offset = offset;
+            this.size = size;
+            this.partSize = partSize;
+            this.partCount = partCount;
+            this.checksum = checksum;
+            this.sha256 = sha256;
+            this.message = message;
+            this.readExecutor = readExecutor;
+            this.parts = new Part[partCount];
+        }
+
+        /**
+         * 使用 buffer 上传下一个分片，完成后继续领取，直到分片领完或出现失败
+         */
+        CompletableFuture<Void> next(byte[] buffer) {
+            int partNumber;
+            if (failure.get() != null || (partNumber = nextPart.getAndIncrement()) > partCount) {
+                return CompletableFuture.completedFuture(null);
+            }
+            long start = (partNumber - 1) * partSize;
+            int length = (int) Math.min(partSize, size - start);
+            CompletableFuture<String[]> digest = new CompletableFuture<>();
+            try {
+                readExecutor.execute(() -> {
+                    try {
+                        digest.complete(read(channel, offset + start, buffer, length, checksum, sha256, message));
+                    } catch (Throwable e) {
+                        digest.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                digest.completeExceptionally(new MinioServiceException(message, e));
+            }
+            // 请求结束后缓冲区才会被下一个分片复用
+            return digest.thenCompose(value -> FutureUtil.call(message,
+                            () -> minioAsyncClient.uploadPartAsync(bucketName, object, buffer, length, uploadId, partNumber, value[0], value[1])))
+                    .handle((response, e) -> {
+                        if (e != null) {
+                            failure.compareAndSet(null, FutureUtil.unwrap(e));
+                        } else {
+                            parts[partNumber - 1] = new Part(partNumber, response.etag());
+                        }
+                        return null;
+                    })
+                    .thenCompose(ignored -> next(buffer));
+        }
+    }
+
+    /**
+     * 并行上传数据流，流的长度可以未知
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param contentType 文件类型
+     * @param stream      文件流
+     * @param partSize    分片大小
+     * @param concurrency 同时上传的分片数
+     * @return
+     */
+    public ObjectWriteResponse upload(String bucketName, String objectName, String contentType,
+                                      InputStream stream, long partSize, int concurrency) throws MinioServiceException {
+        return upload(bucketName, objectName, contentType, buffer -> readFully(stream, buffer), partSize(-1, partSize), concurrency);
+    }
+
+    ObjectWriteResponse upload(String bucketName, String objectName, String contentType,
+                               PartReader reader, long partSize, int concurrency) throws MinioServiceException {
+        String object = CustomUtil.getObjectName(objectName);
+        String message = "Failed to upload object: " + objectName + " to bucket: " + bucketName;
+        int window = Math.max(1, concurrency);
+        // 分片缓冲区循环使用，取不到缓冲区即表示并发窗口已满
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(window);
+        byte[] first = new byte[(int) partSize];
+        int firstLength;
+        try {
+            firstLength = reader.read(first);
+        } catch (IOException e) {
+            throw new MinioServiceException(message, e);
+        }
+        if (firstLength < partSize) {
+            // 不足一个分片，直接普通上传
+            return putObject(bucketName, object, contentType, first, firstLength, message);
+        }
+        for (int i = 1; i < window; i++) {
+            buffers.add(new byte[(int) partSize]);
+        }
+
+        String uploadId = join(FutureUtil.call(message,
+                () -> minioAsyncClient.initMultiPartUploadAsync(bucketName, null, object, CustomUtil.getHeader(contentType), null)), message).uploadId();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Part>> futures = new ArrayList<>();
+        try {
+            byte[] buffer = first;
+            int length = firstLength;
+            int partNumber = 1;
+            while (true) {
+                if (partNumber > ObjectWriteArgs.MAX_MULTIPART_COUNT) {
+                    throw new MinioServiceException(message + ", part count exceeds " + ObjectWriteArgs.MAX_MULTIPART_COUNT);
+                }
+                futures.add(uploadPart(bucketName, object, uploadId, partNumber, buffer, length, buffers, failure, message));
+                if (length < partSize) {
+                    break;
+                }
+                buffer = buffers.take();
+                if (failure.get() != null) {
+                    break;
+                }
+                length = reader.read(buffer);
+                if (length == 0) {
+                    break;
+                }
+                partNumber++;
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            Part[] parts = futures.stream().map(CompletableFuture::join).sorted(Comparator.comparingInt(Part::partNumber)).toArray(Part[]::new);
+            return join(FutureUtil.call(message,
+                    () -> minioAsyncClient.mergeMultipartUploadAsync(bucketName, null, object, uploadId, parts, null, null)), message);
+        } catch (Exception e) {
+            abort(bucketName, object, uploadId, futures);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = failure.get() != null ? failure.get() : FutureUtil.unwrap(e);
+            throw cause instanceof MinioServiceException ? (MinioServiceException) cause : new MinioServiceException(message, cause);
+        }
+    }
+
+    private CompletableFuture<Part> uploadPart(String bucketName, String object, String uploadId, int partNumber,
+                                               byte[] buffer, int length, BlockingQueue<byte[]> buffers,
+                                               AtomicReference<Throwable> failure, String message) {
+        return FutureUtil.call(message,
+                        () -> minioAsyncClient.uploadPartAsync(bucketName, null, object, buffer, length, uploadId, partNumber, null, null))
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        failure.compareAndSet(null, FutureUtil.unwrap(e));
+                    }
+                    // 请求结束后缓冲区归还，唤醒读取线程继续读取下一个分片
+                    buffers.offer(buffer);
+                })
+                .thenApply(response -> new Part(partNumber, response.etag()));
+    }
+
+    private ObjectWriteResponse putObject(String bucketName, String object, String contentType,
+                                          byte[] data, int length, String message) throws MinioServiceException {
+        return join(FutureUtil.call(message, () -> minioAsyncClient.putObject(PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(object)
+                .stream(new ByteArrayInputStream(data, 0, length), length, -1)
+                .contentType(CustomUtil.getContentType(contentType))
+                .build())), message);
+    }
+
+    private void abort(String bucketName, String object, String uploadId, List<CompletableFuture<Part>> futures) {
+        // 等待已发出的分片结束，避免取消后仍有分片写入
+        futures.forEach(future -> future.handle((part, e) -> null).join());
+        try {
+            minioAsyncClient.removeMultipartUpload(bucketName, null, object, uploadId, null, null);
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} of {}/{}", uploadId, bucketName, object, e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future, String message) throws MinioServiceException {
+        try {
+            return future.join();
+        } catch (Exception e) {
+            Throwable cause = FutureUtil.unwrap(e);
+            throw cause instanceof MinioServiceException ? (MinioServiceException) cause : new MinioServiceException(message, cause);
+        }
+    }
+
+    /**
+     * 计算分片大小：不小于 5MB；已知文件大小时保证分片数不超过 10000
+     */
+    static long partSize(long objectSize, long partSize) {
+        long size = Math.max(partSize, ObjectWriteArgs.MIN_MULTIPART_SIZE);
+        if (objectSize > 0) {
+            long minSize = (objectSize + ObjectWriteArgs.MAX_MULTIPART_COUNT - 1) / ObjectWriteArgs.MAX_MULTIPART_COUNT;
+            size = Math.max(size, minSize);
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("part size " + size + " is too large");
+        }
+        return size;
+    }
+
+    static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 按块读取 [position, position + length) 到 buffer，每读一块即更新摘要
+     *
+     * @return base64 编码的 MD5 与十六进制 SHA-256，未计算的为 null
+     */
+    static String[] read(FileChannel channel, long position, byte[] buffer, int length,
+                         boolean md5, boolean sha256, String message) throws MinioServiceException {
+        try {
+            MessageDigest md5Digest = md5 ? MessageDigest.getInstance("MD5") : null;
+            MessageDigest sha256Digest = sha256 ? MessageDigest.getInstance("SHA-256") : null;
+            int total = 0;
+            while (total < length) {
+                int chunk = Math.min(DIGEST_CHUNK_SIZE, length - total);
+                if (readFully(channel, ByteBuffer.wrap(buffer, total, chunk), position + total) < chunk) {
+                    throw new EOFException("file is truncated while uploading");
+                }
+                if (md5Digest != null) {
+                    md5Digest.update(buffer, total, chunk);
+                }
+                if (sha256Digest != null) {
+                    sha256Digest.update(buffer, total, chunk);
+                }
+                total += chunk;
+            }
+            return new String[]{
+                    md5Digest == null ? null : Base64.getEncoder().encodeToString(md5Digest.digest()),
+                    sha256Digest == null ? null : BaseEncoding.base16().lowerCase().encode(sha256Digest.digest())
+            };
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new MinioServiceException(message, e);
+        }
+    }
+
+    static int readFully(InputStream stream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = stream.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,84 @@
+package com.kangaroohy.minio.utils;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 类 FutureUtil 功能描述：<br/>
+ * CompletableFuture 相关的工具方法，统一把异常转换为 MinioServiceException
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/20 10:12
+ */
+public class FutureUtil {
+
+    private FutureUtil() {
+    }
+
+    /**
+     * 发起异步调用的函数，允许在发起阶段抛出受检异常
+     *
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface AsyncCall<T> {
+        CompletableFuture<T> call() throws Exception;
+    }
+
+    /**
+     * 发起异步调用，发起阶段及执行阶段的异常均以 MinioServiceException 结束返回的 future
+     *
+     * @param message 异常信息
+     * @param call    异步调用
+     * @param <T>
+     * @return
+     */
+    public static <T> CompletableFuture<T> call(String message, AsyncCall<T> call) {
+        CompletableFuture<T> future;
+        try {
+            future = call.call();
+        } catch (Exception e) {
+            return failed(new MinioServiceException(message, e));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+            } else {
+                Throwable cause = unwrap(e);
+                result.completeExceptionally(cause instanceof MinioServiceException ? cause : new MinioServiceException(message, cause));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 返回一个以指定异常结束的 future
+     *
+     * @param e
+     * @param <T>
+     * @return
+     */
+    public static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * 去掉 CompletionException / ExecutionException 包装
+     *
+     * @param e
+     * @return
+     */
+    public static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,154 @@
+package com.kangaroohy.minio.utils;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 类 S3RequestUtil 功能描述：<br/>
+ * 从 sdk 发出的 HTTP 请求中识别 S3 操作名称及 bucket，供拦截器打标签使用
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/25 15:20
+ */
+public class S3RequestUtil {
+    private S3RequestUtil() {
+    }
+
+    public static final String NONE = "none";
+
+    /**
+     * 以 query 参数区分操作的子资源
+     */
+    private static final Set<String> SUB_RESOURCES = new HashSet<>(Arrays.asList(
+            "policy", "location", "tagging", "versioning", "lifecycle", "notification", "encryption",
+            "object-lock", "retention", "legal-hold", "replication", "versions", "select"));
+
+    /**
+     * 获取请求所属的 bucket，ListBuckets 等不属于任何 bucket 的请求返回 none
+     *
+     * @param request 请求
+     * @return
+     */
+    public static String bucket(Request request) {
+        HttpUrl url = request.url();
+        String virtualHostBucket = virtualHostBucket(url);
+        if (virtualHostBucket != null) {
+            return virtualHostBucket;
+        }
+        return url.pathSize() > 0 && !url.pathSegments().get(0).isEmpty() ? url.pathSegments().get(0) : NONE;
+    }
+
+    /**
+     * 按 S3 API 名称识别操作，如 PutObject、UploadPart、ListObjectsV2
+     *
+     * @param request 请求
+     * @return
+     */
+    public static String operation(Request request) {
+        HttpUrl url = request.url();
+        String method = request.method();
+        boolean virtualHost = virtualHostBucket(url) != null;
+        int segments = (int) url.pathSegments().stream().filter(segment -> !segment.isEmpty()).count();
+        boolean hasBucket = virtualHost || segments > 0;
+        boolean hasObject = virtualHost ? segments > 0 : segments > 1;
+        if (!hasBucket) {
+            return "GET".equals(method) ? "ListBuckets" : method;
+        }
+        if (url.queryParameter("uploadId") != null) {
+            switch (method) {
+                case "PUT":
+                    return request.header("x-amz-copy-source") != null ? "UploadPartCopy" : "UploadPart";
+                case "POST":
+                    return "CompleteMultipartUpload";
+                case "DELETE":
+                    return "AbortMultipartUpload";
+                default:
+                    return "ListParts";
+            }
+        }
+        if (url.queryParameterNames().contains("uploads")) {
+            return "POST".equals(method) ? "CreateMultipartUpload" : "ListMultipartUploads";
+        }
+        if (url.queryParameterNames().contains("delete")) {
+            return "DeleteObjects";
+        }
+        for (String name : url.queryParameterNames()) {
+            if (SUB_RESOURCES.contains(name)) {
+                return prefix(method) + (hasObject ? "Object" : "Bucket") + camel(name);
+            }
+        }
+        if (hasObject) {
+            switch (method) {
+                case "GET":
+                    return "GetObject";
+                case "HEAD":
+                    return "HeadObject";
+                case "PUT":
+                    return request.header("x-amz-copy-source") != null ? "CopyObject" : "PutObject";
+                case "DELETE":
+                    return "DeleteObject";
+                default:
+                    return method + "Object";
+            }
+        }
+        switch (method) {
+            case "GET":
+                return "2".equals(url.queryParameter("list-type")) ? "ListObjectsV2" : "ListObjects";
+            case "HEAD":
+                return "HeadBucket";
+            case "PUT":
+                return "CreateBucket";
+            case "DELETE":
+                return "DeleteBucket";
+            case "POST":
+                return "PostObject";
+            default:
+                return method + "Bucket";
+        }
+    }
+
+    /**
+     * AWS virtual-host 风格地址（bucket.s3.region.amazonaws.com）中的 bucket
+     */
+    private static String virtualHostBucket(HttpUrl url) {
+        String host = url.host();
+        if (!host.endsWith(".amazonaws.com")) {
+            return null;
+        }
+        int index = host.indexOf(".s3");
+        return index > 0 ? host.substring(0, index) : null;
+    }
+
+    private static String prefix(String method) {
+        switch (method) {
+            case "GET":
+                return "Get";
+            case "PUT":
+                return "Put";
+            case "DELETE":
+                return "Delete";
+            default:
+                return method.charAt(0) + method.substring(1).toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static String camel(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        boolean upper = true;
+        for (char c : name.toCharArray()) {
+            if (c == '-') {
+                upper = true;
+            } else {
+                builder.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return builder.toString();
+    }
+}
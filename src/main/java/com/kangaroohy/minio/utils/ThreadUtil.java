@@ -0,0 +1,120 @@
+package com.kangaroohy.minio.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类 ThreadUtil 功能描述：<br/>
+ * 线程池相关的工具方法，JDK 21 及以上可使用虚拟线程（通过反射调用，项目仍按 Java 8 编译），
+ * 不支持时退回平台线程
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 18:20
+ */
+@Slf4j
+public class ThreadUtil {
+
+    /**
+     * Thread.ofVirtual()，不支持虚拟线程时为 null
+     */
+    private static final Method OF_VIRTUAL;
+
+    private static final Method BUILDER_NAME;
+
+    private static final Method BUILDER_FACTORY;
+
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method perTask = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = perTask;
+    }
+
+    private ThreadUtil() {
+    }
+
+    /**
+     * 当前 JDK 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 线程工厂，线程名为 prefix-序号
+     *
+     * @param prefix  线程名前缀
+     * @param virtual 是否使用虚拟线程，不支持时使用平台守护线程
+     * @return
+     */
+    public static ThreadFactory threadFactory(String prefix, boolean virtual) {
+        if (virtual && isVirtualThreadSupported()) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix + "-", 1L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Failed to create virtual thread factory, fall back to platform threads", e);
+            }
+        }
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 固定线程数的线程池，用于需要限制并发的并行上传、下载、遍历；
+     * 使用虚拟线程时线程数仍然限制并发，但阻塞等待网络时不占用平台线程
+     *
+     * @param prefix  线程名前缀
+     * @param threads 线程数
+     * @param virtual 是否使用虚拟线程
+     * @return
+     */
+    public static ExecutorService newFixedThreadPool(String prefix, int threads, boolean virtual) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), threadFactory(prefix, virtual));
+    }
+
+    /**
+     * 通用线程池：使用虚拟线程时每个任务一个虚拟线程，不限数量；否则为 threads 个平台线程
+     *
+     * @param prefix  线程名前缀
+     * @param threads 平台线程数
+     * @param virtual 是否使用虚拟线程
+     * @return
+     */
+    public static ExecutorService newExecutor(String prefix, int threads, boolean virtual) {
+        if (virtual && isVirtualThreadSupported()) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory(prefix, true));
+            } catch (ReflectiveOperationException e) {
+                log.warn("Failed to create virtual thread executor, fall back to platform threads", e);
+            }
+        }
+        return newFixedThreadPool(prefix, threads, false);
+    }
+}
@@ -0,0 +1,207 @@
+package com.kangaroohy.minio.web;
+
+import com.kangaroohy.minio.exceptions.MinioServiceException;
+import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.utils.CustomUtil;
+import io.minio.GetObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import org.springframework.http.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * 类 MinioResponseHelper 功能描述：<br/>
+ * 将文件以 StreamingResponseBody 写入 http 响应，支持 Range / If-Range：
+ * 请求单个范围时只向 minio 读取对应字节并返回 206，范围无法满足时返回 416，
+ * 多个范围、Range 格式错误或 If-Range 不匹配时返回完整文件；
+ * 读取时带上 stat 得到的版本与 ETag，stat 之后文件被覆盖时 minio 返回 412，响应中断而不会输出与响应头不一致的内容
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 17:50
+ */
+public class MinioResponseHelper {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 写出缓冲区按线程复用，StreamingResponseBody 在 mvc 异步线程池中执行
+     */
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final MinioService minioService;
+
+    public MinioResponseHelper(MinioService minioService) {
+        this.minioService = minioService;
+    }
+
+    /**
+     * 输出默认 bucket 中的文件
+     *
+     * @param objectName     文件名称
+     * @param requestHeaders 请求头，controller 中通过 @RequestHeader HttpHeaders 获取
+     * @return
+     */
+    public ResponseEntity<StreamingResponseBody> download(String objectName, HttpHeaders requestHeaders) throws MinioServiceException {
+        return download(minioService.getBucketName(), objectName, requestHeaders, null);
+    }
+
+    /**
+     * 输出文件，浏览器内联展示
+     *
+     * @param bucketName     bucket名称
+     * @param objectName     文件名称
+     * @param requestHeaders 请求头
+     * @return
+     */
+    public ResponseEntity<StreamingResponseBody> download(String bucketName, String objectName, HttpHeaders requestHeaders) throws MinioServiceException {
+        return download(bucketName, objectName, requestHeaders, null);
+    }
+
+    /**
+     * 输出文件
+     *
+     * @param bucketName     bucket名称
+     * @param objectName     文件名称
+     * @param requestHeaders 请求头
+     * @param fileName       下载文件名，不为空时以附件形式下载
+     * @return
+     */
+    public ResponseEntity<StreamingResponseBody> download(String bucketName, String objectName, HttpHeaders requestHeaders,
+                                                          String fileName) throws MinioServiceException {
+        StatObjectResponse stat = minioService.statObject(bucketName, objectName);
+        long size = stat.size();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (stat.etag() != null) {
+            headers.setETag("\"" + stat.etag() + "\"");
+        }
+        if (stat.lastModified() != null) {
+            headers.setLastModified(stat.lastModified());
+        }
+        headers.setContentType(mediaType(stat.contentType()));
+        if (fileName != null && !fileName.isEmpty()) {
+            headers.setContentDisposition(ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build());
+        }
+
+        HttpRange range = requestedRange(requestHeaders, stat);
+        if (range == null) {
+            headers.setContentLength(size);
+            return new ResponseEntity<>(output -> write(bucketName, objectName, stat, null, size, output), headers, HttpStatus.OK);
+        }
+        long start = range.getRangeStart(size);
+        long end = range.getRangeEnd(size);
+        if (start >= size || end < start) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+        long length = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        headers.setContentLength(length);
+        return new ResponseEntity<>(output -> write(bucketName, objectName, stat, start, length, output), headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * 取出需要处理的范围，返回 null 表示输出完整文件
+     */
+    private static HttpRange requestedRange(HttpHeaders requestHeaders, StatObjectResponse stat) {
+        if (requestHeaders == null) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            // Range 格式错误时按规范忽略
+            return null;
+        }
+        if (ranges.size() != 1 || !ifRangeMatches(requestHeaders.getFirst(HttpHeaders.IF_RANGE), stat)) {
+            return null;
+        }
+        return ranges.get(0);
+    }
+
+    /**
+     * If-Range 为 ETag 时要求强匹配，为日期时要求与最后修改时间一致，文件已变化则返回完整文件
+     */
+    private static boolean ifRangeMatches(String ifRange, StatObjectResponse stat) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return stat.etag() != null && ifRange.equals("\"" + stat.etag() + "\"");
+        }
+        if (ifRange.startsWith("W/") || stat.lastModified() == null) {
+            return false;
+        }
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond() == stat.lastModified().toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private void write(String bucketName, String objectName, StatObjectResponse stat, Long offset, long length,
+                       OutputStream output) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        GetObjectArgs.Builder builder = GetObjectArgs.builder().bucket(bucketName).object(CustomUtil.getObjectName(objectName))
+                .versionId(stat.versionId());
+        if (stat.etag() != null) {
+            builder.matchETag(stat.etag());
+        }
+        if (offset != null) {
+            builder.offset(offset).length(length);
+        }
+        try (InputStream stream = minioService.getObject(builder.build())) {
+            copy(stream, output);
+        } catch (MinioServiceException e) {
+            if (isPreconditionFailed(e)) {
+                throw new IOException("Object changed after stat: " + objectName + " in bucket: " + bucketName, e);
+            }
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static boolean isPreconditionFailed(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ErrorResponseException) {
+                return ((ErrorResponseException) cause).response().code() == 412;
+            }
+        }
+        return false;
+    }
+
+    static long copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = BUFFER.get();
+        long total = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+            total += read;
+        }
+        output.flush();
+        return total;
+    }
+
+    private static MediaType mediaType(String contentType) {
+        if (contentType == null || contentType.isEmpty()) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+-- JdbcMultipartSessionStore 所需的表，表名前缀默认 minio_multipart（kangaroohy.minio.multipart-session.table-prefix），修改前缀时同步修改表名
+CREATE TABLE minio_multipart_session (
+    upload_id   VARCHAR(255)  NOT NULL PRIMARY KEY,
+    bucket_name VARCHAR(63)   NOT NULL,
+    object_name VARCHAR(1024) NOT NULL,
+    create_time TIMESTAMP,
+    expiry_time TIMESTAMP
+);
+
+CREATE INDEX minio_multipart_session_expiry ON minio_multipart_session (expiry_time);
+
+CREATE TABLE minio_multipart_part (
+    upload_id   VARCHAR(255) NOT NULL,
+    part_number INT          NOT NULL,
+    etag        VARCHAR(64)  NOT NULL,
+    part_size   BIGINT       NOT NULL,
+    PRIMARY KEY (upload_id, part_number)
+);
@@ -0,0 +1,193 @@
+package com.kangaroohy.minio.balance;
+
+import com.kangaroohy.minio.enums.BalanceStrategy;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类 MinioEndpointBalancerTest 功能描述：<br/>
+ * 节点选择：连续失败达到阈值后摘除、到期后恢复、成功一次清零、全部不可用时仍可选择、探活摘除与恢复、按在途请求数选择
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:40
+ */
+class MinioEndpointBalancerTest {
+
+    private static final List<String> ENDPOINTS = Arrays.asList("http://10.0.0.1:9000", "http://10.0.0.2:9000");
+
+    @Test
+    void ejectsAfterConsecutiveFailuresAndRecoversAfterEjectionTime() throws Exception {
+        try (MinioEndpointBalancer balancer = new MinioEndpointBalancer(ENDPOINTS, BalanceStrategy.LEAST_OUTSTANDING, 3,
+                Duration.ofMillis(300), "/minio/health/live", null, Duration.ofSeconds(1))) {
+            MinioEndpointBalancer.Node first = balancer.getNodes().get(0);
+            MinioEndpointBalancer.Node second = balancer.getNodes().get(1);
+
+            // 中间成功一次，连续失败次数清零
+            fail(balancer, first, 2);
+            release(acquire(balancer, first), true);
+            fail(balancer, first, 2);
+            assertTrue(first.isAvailable());
+
+            fail(balancer, first, 1);
+            assertFalse(first.isAvailable());
+            for (int i = 0; i < 100; i++) {
+                MinioEndpointBalancer.Node node = balancer.acquire();
+                assertSame(second, node);
+                release(node, true);
+            }
+
+            TimeUnit.MILLISECONDS.sleep(400);
+            assertTrue(first.isAvailable());
+            assertTrue(pickedWithin(balancer, first, 200));
+            // 恢复后成功一次即清零，再失败一次不会立即摘除
+            release(acquire(balancer, first), true);
+            fail(balancer, first, 1);
+            assertTrue(first.isAvailable());
+        }
+    }
+
+    @Test
+    void failureWhileEjectedExtendsEjection() throws Exception {
+        try (MinioEndpointBalancer balancer = new MinioEndpointBalancer(ENDPOINTS.subList(0, 1), BalanceStrategy.LEAST_OUTSTANDING, 1,
+                Duration.ofMillis(500), "/minio/health/live", null, Duration.ofSeconds(1))) {
+            // 摘除前已发出的请求在摘除期间失败，摘除时间从该次失败重新计算
+            MinioEndpointBalancer.Node first = balancer.acquire();
+            assertSame(first, balancer.acquire());
+            release(first, false);
+            assertFalse(first.isAvailable());
+            TimeUnit.MILLISECONDS.sleep(300);
+            release(first, false);
+            TimeUnit.MILLISECONDS.sleep(300);
+            assertFalse(first.isAvailable());
+            TimeUnit.MILLISECONDS.sleep(400);
+            assertTrue(first.isAvailable());
+        }
+    }
+
+    @Test
+    void selectsFromAllNodesWhenNoneIsAvailable() {
+        try (MinioEndpointBalancer balancer = new MinioEndpointBalancer(ENDPOINTS, BalanceStrategy.EWMA, 1,
+                Duration.ofMinutes(1), "/minio/health/live", null, Duration.ofSeconds(1))) {
+            balancer.getNodes().forEach(node -> fail(balancer, node, 1));
+            balancer.getNodes().forEach(node -> assertFalse(node.isAvailable()));
+            for (int i = 0; i < 10; i++) {
+                MinioEndpointBalancer.Node node = balancer.acquire();
+                assertNotNull(node);
+                node.releaseCanceled();
+            }
+        }
+    }
+
+    @Test
+    void prefersNodeWithFewerOutstandingRequests() {
+        try (MinioEndpointBalancer balancer = new MinioEndpointBalancer(ENDPOINTS, BalanceStrategy.LEAST_OUTSTANDING, 3,
+                Duration.ofMinutes(1), "/minio/health/live", null, Duration.ofSeconds(1))) {
+            MinioEndpointBalancer.Node busy = acquire(balancer, balancer.getNodes().get(0));
+            for (int i = 0; i < 10; i++) {
+                MinioEndpointBalancer.Node node = balancer.acquire();
+                assertNotSame(busy, node);
+                node.releaseCanceled();
+            }
+            busy.releaseCanceled();
+            assertEquals(0, busy.getOutstanding());
+        }
+    }
+
+    @Test
+    void healthCheckEjectsAndRestoresNodes() throws IOException {
+        AtomicInteger status = new AtomicInteger(200);
+        HttpServer healthy = server(new AtomicInteger(200));
+        HttpServer flaky = server(status);
+        List<String> endpoints = Arrays.asList(endpoint(healthy), endpoint(flaky));
+        // 探活间隔足够长，测试中手动探活
+        try (MinioEndpointBalancer balancer = new MinioEndpointBalancer(endpoints, BalanceStrategy.LEAST_OUTSTANDING, 3,
+                Duration.ofMinutes(1), "/minio/health/live", Duration.ofHours(1), Duration.ofSeconds(2))) {
+            MinioEndpointBalancer.Node node = balancer.getNodes().get(1);
+            balancer.probeAll();
+            assertTrue(node.isAvailable());
+
+            status.set(503);
+            balancer.probeAll();
+            assertFalse(node.isAvailable());
+            assertTrue(balancer.getNodes().get(0).isAvailable());
+
+            status.set(200);
+            balancer.probeAll();
+            assertTrue(node.isAvailable());
+
+            // 探活成功同时清除因请求失败造成的摘除
+            fail(balancer, node, 3);
+            assertFalse(node.isAvailable());
+            balancer.probeAll();
+            assertTrue(node.isAvailable());
+
+            flaky.stop(0);
+            balancer.probeAll();
+            assertFalse(node.isAvailable());
+        } finally {
+            healthy.stop(0);
+            flaky.stop(0);
+        }
+    }
+
+    private static void fail(MinioEndpointBalancer balancer, MinioEndpointBalancer.Node node, int times) {
+        for (int i = 0; i < times; i++) {
+            release(acquire(balancer, node), false);
+        }
+    }
+
+    private static void release(MinioEndpointBalancer.Node node, boolean success) {
+        node.release(TimeUnit.MILLISECONDS.toNanos(5), success);
+    }
+
+    /**
+     * 反复选择直到选中目标节点，其他节点立即归还
+     */
+    private static MinioEndpointBalancer.Node acquire(MinioEndpointBalancer balancer, MinioEndpointBalancer.Node target) {
+        for (int i = 0; i < 1000; i++) {
+            MinioEndpointBalancer.Node node = balancer.acquire();
+            if (node == target) {
+                return node;
+            }
+            node.releaseCanceled();
+        }
+        throw new AssertionError("node is never selected: " + target.getUrl());
+    }
+
+    private static boolean pickedWithin(MinioEndpointBalancer balancer, MinioEndpointBalancer.Node target, int rounds) {
+        boolean picked = false;
+        for (int i = 0; i < rounds; i++) {
+            MinioEndpointBalancer.Node node = balancer.acquire();
+            picked |= node == target;
+            node.releaseCanceled();
+        }
+        return picked;
+    }
+
+    private static HttpServer server(AtomicInteger status) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/minio/health/live", exchange -> {
+            // 不复用连接，避免探活复用已被服务端关闭的连接
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static String endpoint(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
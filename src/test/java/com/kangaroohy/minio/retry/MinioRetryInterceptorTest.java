@@ -0,0 +1,180 @@
+package com.kangaroohy.minio.retry;
+
+import okhttp3.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类 MinioRetryInterceptorTest 功能描述：<br/>
+ * 重试拦截器：失败分类、限流与服务端错误重试、连接失败重试、Retry-After 及退避上限、POST 不重试
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:35
+ */
+class MinioRetryInterceptorTest {
+
+    private static final String URL = "http://127.0.0.1:9000/bkt/a.bin";
+
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    /**
+     * 按顺序返回的结果：状态码，或为 null 时抛出连接超时
+     */
+    private final Deque<Integer> script = new LinkedList<>();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    /**
+     * 失败响应携带的 Retry-After，为 null 时不携带
+     */
+    private String retryAfter;
+
+    private OkHttpClient httpClient;
+
+    @AfterEach
+    void tearDown() {
+        if (httpClient != null) {
+            httpClient.dispatcher().executorService().shutdown();
+        }
+    }
+
+    @Test
+    void classifiesStatusCodes() {
+        assertEquals(MinioRetryInterceptor.FailureType.THROTTLED, MinioRetryInterceptor.classify(429));
+        assertEquals(MinioRetryInterceptor.FailureType.THROTTLED, MinioRetryInterceptor.classify(503));
+        for (int code : new int[]{500, 502, 504}) {
+            assertEquals(MinioRetryInterceptor.FailureType.SERVER_ERROR, MinioRetryInterceptor.classify(code));
+        }
+        for (int code : new int[]{200, 206, 304, 400, 403, 404, 408, 412, 416, 501}) {
+            assertEquals(MinioRetryInterceptor.FailureType.NONE, MinioRetryInterceptor.classify(code));
+        }
+    }
+
+    @Test
+    void retriesThrottlingServerErrorsAndConnectionFailures() throws IOException {
+        client(4, Duration.ofMillis(1), Duration.ofMillis(20), 503, 500, null, 200);
+        try (Response response = execute(new Request.Builder().url(URL).get())) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(4, attempts.get());
+
+        client(3, Duration.ofMillis(1), Duration.ofMillis(20), 429, 502, 200);
+        try (Response response = execute(new Request.Builder().url(URL).put(RequestBody.create(new byte[10], OCTET_STREAM)))) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void returnsLastResponseOrFailureWhenAttemptsAreExhausted() throws IOException {
+        client(3, Duration.ofMillis(1), Duration.ofMillis(20), 503, 503, 504, 200);
+        try (Response response = execute(new Request.Builder().url(URL).head())) {
+            assertEquals(504, response.code());
+        }
+        assertEquals(3, attempts.get());
+
+        client(2, Duration.ofMillis(1), Duration.ofMillis(20), null, null, 200);
+        assertThrows(SocketTimeoutException.class, () -> execute(new Request.Builder().url(URL).delete()));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrorsOrPost() throws IOException {
+        client(3, Duration.ofMillis(1), Duration.ofMillis(20), 404, 200);
+        try (Response response = execute(new Request.Builder().url(URL).get())) {
+            assertEquals(404, response.code());
+        }
+        assertEquals(1, attempts.get());
+
+        client(3, Duration.ofMillis(1), Duration.ofMillis(20), 503, 200);
+        try (Response response = execute(new Request.Builder().url(URL + "?uploads").post(RequestBody.create(new byte[0], OCTET_STREAM)))) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, attempts.get());
+
+        client(3, Duration.ofMillis(1), Duration.ofMillis(20), null, 200);
+        assertThrows(SocketTimeoutException.class, () -> execute(new Request.Builder().url(URL + "?delete").post(RequestBody.create(new byte[0], OCTET_STREAM))));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void honorsRetryAfterWithinMaxDelay() throws IOException {
+        client(2, Duration.ofMillis(1), Duration.ofSeconds(5), 503, 200);
+        retryAfter = "1";
+        long start = System.nanoTime();
+        try (Response response = execute(new Request.Builder().url(URL).get())) {
+            assertEquals(200, response.code());
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 1000 && elapsed < 3000, "elapsed " + elapsed);
+
+        // Retry-After 超过单次退避上限时按上限等待
+        client(2, Duration.ofMillis(1), Duration.ofMillis(200), 429, 200);
+        retryAfter = "3600";
+        start = System.nanoTime();
+        try (Response response = execute(new Request.Builder().url(URL).get())) {
+            assertEquals(200, response.code());
+        }
+        elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 200 && elapsed < 2000, "elapsed " + elapsed);
+    }
+
+    @Test
+    void backoffStaysWithinCeiling() throws IOException {
+        // 上限 50ms：5 次重试的退避总和不超过 250ms（另留执行余量）
+        client(6, Duration.ofMillis(10), Duration.ofMillis(50), 500, 500, 500, 503, 503, 200);
+        long start = System.nanoTime();
+        try (Response response = execute(new Request.Builder().url(URL).get())) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(6, attempts.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    /**
+     * 重试拦截器之后接一个按脚本返回结果的拦截器，不发出真实请求
+     */
+    private void client(int maxAttempts, Duration baseDelay, Duration maxDelay, Integer... codes) {
+        tearDown();
+        script.clear();
+        script.addAll(Arrays.asList(codes));
+        attempts.set(0);
+        retryAfter = null;
+        httpClient = new OkHttpClient.Builder()
+                .addInterceptor(new MinioRetryInterceptor(maxAttempts, baseDelay, maxDelay))
+                .addInterceptor(chain -> {
+                    attempts.incrementAndGet();
+                    Integer code = script.poll();
+                    if (code == null) {
+                        throw new SocketTimeoutException("timeout");
+                    }
+                    Response.Builder builder = new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(code)
+                            .message("scripted")
+                            .body(ResponseBody.create(new byte[0], OCTET_STREAM));
+                    if (retryAfter != null && code != 200) {
+                        builder.header("Retry-After", retryAfter);
+                    }
+                    return builder.build();
+                })
+                .build();
+    }
+
+    private Response execute(Request.Builder request) throws IOException {
+        return httpClient.newCall(request.build()).execute();
+    }
+}
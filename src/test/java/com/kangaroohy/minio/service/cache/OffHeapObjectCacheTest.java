@@ -0,0 +1,195 @@
+package com.kangaroohy.minio.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类 OffHeapObjectCacheTest 功能描述：<br/>
+ * 堆外内存缓存：容量压力下的淘汰、读取中失效、引用计数归还块、并发未命中只读取一次
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:20
+ */
+class OffHeapObjectCacheTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    void evictsColdObjectsAndKeepsHotOnesUnderPressure() throws Exception {
+        OffHeapObjectCache cache = new OffHeapObjectCache(MB, 4096, 0);
+        AtomicInteger loads = new AtomicInteger();
+        // 1MB 只能容纳 256 个 4KB 块，热点文件多次访问后不应被一次性扫描的冷文件挤出
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                assertArrayEquals(content(i, 3000), read(cache, "hot" + i, content(i, 3000), loads));
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertArrayEquals(content(i, 3000), read(cache, "cold" + i, content(i, 3000), loads));
+            assertTrue(cache.getSize() <= cache.getCapacity());
+        }
+        assertTrue(cache.getEvictionCount() + cache.getRejectionCount() > 0);
+
+        int before = loads.get();
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(content(i, 3000), read(cache, "hot" + i, content(i, 3000), loads));
+        }
+        assertEquals(before, loads.get());
+    }
+
+    @Test
+    void readerKeepsOldContentAfterInvalidationAndNewReadersReload() throws Exception {
+        OffHeapObjectCache cache = new OffHeapObjectCache(MB, 64 * 1024, 0);
+        AtomicInteger loads = new AtomicInteger();
+        byte[] first = content(1, 5000);
+        byte[] second = content(2, 5000);
+        read(cache, "key", first, loads);
+
+        InputStream held = cache.get("bkt", "key", () -> {
+            throw new AssertionError("should hit");
+        });
+        byte[] head = new byte[100];
+        assertEquals(100, held.read(head));
+        cache.invalidate("bkt", "key");
+
+        assertArrayEquals(second, read(cache, "key", second, loads));
+        assertEquals(2, loads.get());
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        ((OffHeapObjectCache.BufferInputStream) held).transferTo(Channels.newChannel(rest));
+        held.close();
+        byte[] whole = new byte[first.length];
+        System.arraycopy(head, 0, whole, 0, head.length);
+        System.arraycopy(rest.toByteArray(), 0, whole, head.length, rest.size());
+        assertArrayEquals(first, whole);
+        assertThrows(IOException.class, held::read);
+    }
+
+    @Test
+    void chunkIsReturnedOnlyAfterLastReaderCloses() throws Exception {
+        OffHeapObjectCache cache = new OffHeapObjectCache(MB, 64 * 1024, 0);
+        read(cache, "key", content(3, 1000), new AtomicInteger());
+        long used = cache.getSize();
+        assertTrue(used > 0);
+
+        InputStream first = cache.get("bkt", "key", () -> {
+            throw new AssertionError("should hit");
+        });
+        InputStream second = cache.get("bkt", "key", () -> {
+            throw new AssertionError("should hit");
+        });
+        cache.invalidateAll();
+        assertEquals(used, cache.getSize());
+        first.close();
+        first.close();
+        assertEquals(used, cache.getSize());
+        second.close();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        OffHeapObjectCache cache = new OffHeapObjectCache(MB, 64 * 1024, 0);
+        byte[] data = content(4, 2000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> drain(cache.get("bkt", "key", () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new ByteArrayInputStream(data);
+                }))));
+            }
+            TimeUnit.MILLISECONDS.sleep(200);
+            release.countDown();
+            for (Future<byte[]> future : futures) {
+                assertArrayEquals(data, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(15, cache.getHitCount());
+    }
+
+    @Test
+    void unknownLengthGrowsAndOversizedPassesThrough() throws Exception {
+        OffHeapObjectCache cache = new OffHeapObjectCache(8 * MB, 64 * 1024, 0);
+        AtomicInteger loads = new AtomicInteger();
+        for (int size : new int[]{0, 1, 1024, 1025, 5000, 64 * 1024}) {
+            byte[] data = content(size, size);
+            assertArrayEquals(data, drain(cache.get("bkt", "k" + size, () -> {
+                loads.incrementAndGet();
+                return withoutAvailable(data);
+            })));
+            InputStream hit = cache.get("bkt", "k" + size, () -> {
+                throw new AssertionError("should hit");
+            });
+            assertTrue(hit instanceof OffHeapObjectCache.BufferInputStream);
+            assertArrayEquals(data, drain(hit));
+        }
+        long used = cache.getSize();
+        byte[] large = content(5, 64 * 1024 + 1);
+        assertArrayEquals(large, drain(cache.get("bkt", "large", () -> withoutAvailable(large))));
+        assertEquals(used, cache.getSize());
+        assertArrayEquals(large, read(cache, "large", large, loads));
+        assertEquals(7, loads.get());
+    }
+
+    private static byte[] read(OffHeapObjectCache cache, String key, byte[] data, AtomicInteger loads) throws Exception {
+        return drain(cache.get("bkt", key, () -> {
+            loads.incrementAndGet();
+            return new ByteArrayInputStream(data);
+        }));
+    }
+
+    private static byte[] drain(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * available() 为 0 的流，模拟长度未知的来源
+     */
+    private static InputStream withoutAvailable(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
+    }
+
+    private static byte[] content(int seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
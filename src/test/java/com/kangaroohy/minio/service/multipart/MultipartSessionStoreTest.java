@@ -0,0 +1,163 @@
+package com.kangaroohy.minio.service.multipart;
+
+import com.kangaroohy.minio.entity.MultiPartSession;
+import com.kangaroohy.minio.entity.MultiPartSessionPart;
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.tools.RunScript;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类 MultipartSessionStoreTest 功能描述：<br/>
+ * 三种分片上传会话存储（内存、本地文件、H2 数据库）按同一组用例校验：保存覆盖、记录分片、过期、按发起时间分页列出
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:45
+ */
+class MultipartSessionStoreTest {
+
+    private static final String SCHEMA = "META-INF/minio/multipart-session-schema.sql";
+
+    @Test
+    void inMemory() throws Exception {
+        verify(new InMemoryMultipartSessionStore());
+    }
+
+    @Test
+    void file(@TempDir Path directory) throws Exception {
+        verify(new FileMultipartSessionStore(directory.resolve("sessions")));
+        // 重新打开目录，已保存的会话仍可读取
+        FileMultipartSessionStore store = new FileMultipartSessionStore(directory.resolve("sessions"));
+        store.save(session("reopen", LocalDateTime.now().withNano(0), part(1, "e1", 5)));
+        store.putPart("reopen", part(2, "e2", 6));
+        assertEquals(Arrays.asList(part(1, "e1", 5), part(2, "e2", 6)),
+                new FileMultipartSessionStore(directory.resolve("sessions")).get("reopen").getParts());
+    }
+
+    @Test
+    void jdbc() throws Exception {
+        verify(new JdbcMultipartSessionStore(h2(), "minio_multipart"));
+    }
+
+    @Test
+    void jdbcWithoutAutoCommit() throws Exception {
+        // 连接池 autoCommit=false 时，关闭连接前必须已提交，否则记录的分片会被回滚
+        DataSource dataSource = h2();
+        DataSource manualCommit = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(dataSource, args);
+                        if (result instanceof Connection) {
+                            ((Connection) result).setAutoCommit(false);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        verify(new JdbcMultipartSessionStore(manualCommit, "minio_multipart"));
+    }
+
+    @Test
+    void jdbcRejectsInvalidTablePrefix() {
+        assertThrows(IllegalArgumentException.class, () -> new JdbcMultipartSessionStore(new JdbcDataSource(), "t; DROP TABLE x"));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcMultipartSessionStore(new JdbcDataSource(), null));
+    }
+
+    private static void verify(MultipartSessionStore store) throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        // 保存与读取
+        MultiPartSession first = session("a-1", now.minusHours(1), part(1, "etag-1", 5));
+        store.save(first);
+        assertEquals(first, store.get("a-1"));
+        assertNull(store.get("missing"));
+
+        // 记录分片：按 partNumber 升序，同一分片以最后一次为准，会话不存在时忽略
+        store.putPart("a-1", part(3, "etag-3", 2));
+        store.putPart("a-1", part(2, "etag-2", 5));
+        store.putPart("a-1", part(1, "etag-1b", 5));
+        store.putPart("missing", part(1, "etag", 1));
+        assertEquals(Arrays.asList(part(1, "etag-1b", 5), part(2, "etag-2", 5), part(3, "etag-3", 2)), store.get("a-1").getParts());
+        assertNull(store.get("missing"));
+
+        // 再次保存整体覆盖，原有分片不保留
+        store.save(session("a-1", now.minusHours(1)));
+        assertEquals(Collections.emptyList(), store.get("a-1").getParts());
+        store.putPart("a-1", part(1, "etag-1c", 7));
+
+        // 按发起时间列出，包括已过期尚未删除的会话，按 uploadId 升序分页，不含分片
+        MultiPartSession expired = session("b-2", now.minusHours(2), part(1, "etag", 1));
+        expired.setExpiryTime(now.minusMinutes(1));
+        store.save(expired);
+        store.save(session("c-3", now));
+        LocalDateTime cutoff = now.minusMinutes(30);
+        assertEquals(Arrays.asList("a-1", "b-2"), uploadIds(store.listCreatedBefore(cutoff, null, 10)));
+        assertEquals(Collections.singletonList("a-1"), uploadIds(store.listCreatedBefore(cutoff, null, 1)));
+        assertEquals(Collections.singletonList("b-2"), uploadIds(store.listCreatedBefore(cutoff, "a-1", 10)));
+        assertEquals(Collections.emptyList(), uploadIds(store.listCreatedBefore(cutoff, "b-2", 10)));
+        MultiPartSession listed = store.listCreatedBefore(cutoff, null, 1).get(0);
+        assertEquals("bkt", listed.getBucketName());
+        assertEquals("dir/a-1.bin", listed.getObjectName());
+        assertEquals(now.minusHours(1), listed.getCreateTime());
+        assertTrue(listed.getParts() == null || listed.getParts().isEmpty());
+
+        // 过期的会话读取不到，删除过期会话不影响未过期的会话
+        assertNull(store.get("b-2"));
+        MultiPartSession stale = session("d-4", now.minusHours(3));
+        stale.setExpiryTime(now.minusSeconds(1));
+        store.save(stale);
+        assertTrue(store.removeExpired() >= 1);
+        assertEquals(Arrays.asList("a-1", "c-3"), uploadIds(store.listCreatedBefore(now.plusMinutes(1), null, 10)));
+        assertEquals(Collections.singletonList(part(1, "etag-1c", 7)), store.get("a-1").getParts());
+
+        store.remove("a-1");
+        assertNull(store.get("a-1"));
+        assertEquals(Collections.singletonList("c-3"), uploadIds(store.listCreatedBefore(now.plusMinutes(1), null, 10)));
+    }
+
+    private static MultiPartSession session(String uploadId, LocalDateTime createTime, MultiPartSessionPart... parts) {
+        return MultiPartSession.builder()
+                .uploadId(uploadId)
+                .bucketName("bkt")
+                .objectName("dir/" + uploadId + ".bin")
+                .createTime(createTime)
+                .expiryTime(createTime.plusDays(1))
+                .parts(new ArrayList<>(Arrays.asList(parts)))
+                .build();
+    }
+
+    private static MultiPartSessionPart part(int partNumber, String etag, long size) {
+        return new MultiPartSessionPart(partNumber, etag, size);
+    }
+
+    private static List<String> uploadIds(List<MultiPartSession> sessions) {
+        return sessions.stream().map(MultiPartSession::getUploadId).collect(Collectors.toList());
+    }
+
+    private static DataSource h2() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Reader schema = new InputStreamReader(Objects.requireNonNull(
+                     MultipartSessionStoreTest.class.getClassLoader().getResourceAsStream(SCHEMA)), StandardCharsets.UTF_8)) {
+            RunScript.execute(connection, schema);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,102 @@
+package com.kangaroohy.minio.service.presign;
+
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类 BulkPresignerTest 功能描述：<br/>
+ * 本地批量签名的分片地址与 sdk getPresignedObjectUrl 对相同输入生成的地址逐个比较（路径、参数、签名）
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:30
+ */
+class BulkPresignerTest {
+
+    private static final String ACCESS_KEY = "minioadmin";
+
+    private static final String SECRET_KEY = "minio/secret+key";
+
+    private static final String REGION = "cn-north-1";
+
+    @Test
+    void matchesSdkForPlainAndEscapedNames() throws Exception {
+        assertMatchesSdk("http://127.0.0.1:9000", "bkt", "a.bin", "upload-1", Arrays.asList(1, 2, 3), 3600);
+        assertMatchesSdk("http://127.0.0.1:9000", "bkt", "目录/子 目录/a b+c=d&e~f.bin", "VXBsb2FkSWQ=+/_", Arrays.asList(1, 10, 10000), 60);
+        assertMatchesSdk("https://minio.example.com", "bkt", "dir//x%y.txt", "abc", Collections.singletonList(7), TimeUnit.DAYS.toSeconds(7));
+        assertMatchesSdk("http://minio.example.com:80/", "bkt", "a", "abc", Collections.singletonList(1), 1);
+    }
+
+    @Test
+    void largeBatchesAreSignedInParallelInOrder() throws Exception {
+        List<Integer> partNumbers = IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+        assertMatchesSdk("http://127.0.0.1:9000", "bkt", "big.bin", "upload-2", partNumbers, 600);
+    }
+
+    @Test
+    void rejectsExpiryOutOfRange() {
+        BulkPresigner presigner = new BulkPresigner("http://127.0.0.1:9000", ACCESS_KEY, SECRET_KEY, REGION);
+        List<Integer> partNumbers = Collections.singletonList(1);
+        assertThrows(IllegalArgumentException.class, () -> presigner.presignUploadParts("bkt", "a", "id", partNumbers, 0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> presigner.presignUploadParts("bkt", "a", "id", partNumbers, 8, TimeUnit.DAYS));
+        assertThrows(IllegalArgumentException.class, () -> new BulkPresigner("not a url", ACCESS_KEY, SECRET_KEY, REGION));
+    }
+
+    private static void assertMatchesSdk(String endpoint, String bucketName, String objectName, String uploadId,
+                                         List<Integer> partNumbers, long expires) throws Exception {
+        MinioClient minioClient = MinioClient.builder().endpoint(endpoint).credentials(ACCESS_KEY, SECRET_KEY).region(REGION).build();
+        BulkPresigner presigner = new BulkPresigner(endpoint, ACCESS_KEY, SECRET_KEY, REGION);
+        // 两边各自取当前时间签名，跨秒时 X-Amz-Date 不同，重新生成
+        for (int attempt = 0; ; attempt++) {
+            List<String> urls = presigner.presignUploadParts(bucketName, objectName, uploadId, partNumbers, expires, TimeUnit.SECONDS);
+            assertEquals(partNumbers.size(), urls.size());
+            List<String> expected = new ArrayList<>(partNumbers.size());
+            for (Integer partNumber : partNumbers) {
+                Map<String, String> query = new HashMap<>();
+                query.put("uploadId", uploadId);
+                query.put("partNumber", String.valueOf(partNumber));
+                expected.add(minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                        .method(Method.PUT)
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .expiry((int) expires)
+                        .extraQueryParams(query)
+                        .build()));
+            }
+            String actualDate = HttpUrl.get(urls.get(0)).queryParameter("X-Amz-Date");
+            if (attempt < 3 && (!actualDate.equals(HttpUrl.get(expected.get(0)).queryParameter("X-Amz-Date"))
+                    || !actualDate.equals(HttpUrl.get(expected.get(expected.size() - 1)).queryParameter("X-Amz-Date")))) {
+                continue;
+            }
+            for (int i = 0; i < urls.size(); i++) {
+                HttpUrl actual = HttpUrl.get(urls.get(i));
+                HttpUrl sdk = HttpUrl.get(expected.get(i));
+                assertEquals(sdk.scheme(), actual.scheme());
+                assertEquals(sdk.host(), actual.host());
+                assertEquals(sdk.port(), actual.port());
+                assertEquals(sdk.encodedPath(), actual.encodedPath());
+                assertEquals(queryParameters(sdk), queryParameters(actual), urls.get(i));
+            }
+            return;
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpUrl url) {
+        Map<String, String> parameters = new TreeMap<>();
+        for (String name : url.queryParameterNames()) {
+            assertEquals(1, url.queryParameterValues(name).size(), name);
+            parameters.put(name, url.queryParameter(name));
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,77 @@
+package com.kangaroohy.minio.test;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 类 EmbeddedS3ContextCustomizer 功能描述：<br/>
+ * 启动 EmbeddedS3Server 并注册为 bean，写入 kangaroohy.minio.* 连接配置，上下文关闭时停止服务
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 11:30
+ */
+class EmbeddedS3ContextCustomizer implements ContextCustomizer {
+
+    private static final String PROPERTY_SOURCE_NAME = "embeddedS3";
+
+    private final String[] buckets;
+
+    private final boolean verifySignatures;
+
+    EmbeddedS3ContextCustomizer(String[] buckets, boolean verifySignatures) {
+        this.buckets = buckets;
+        this.verifySignatures = verifySignatures;
+    }
+
+    @Override
+    public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration mergedConfig) {
+        EmbeddedS3Server server = new EmbeddedS3Server().setVerifySignatures(verifySignatures);
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("embedded s3 server start failed", e);
+        }
+        for (String bucket : buckets) {
+            server.createBucket(bucket);
+        }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("kangaroohy.minio.endpoint", server.getEndpoint());
+        properties.put("kangaroohy.minio.access-key", server.getAccessKey());
+        properties.put("kangaroohy.minio.secret-key", server.getSecretKey());
+        properties.put("kangaroohy.minio.region", server.getRegion());
+        if (buckets.length > 0) {
+            properties.put("kangaroohy.minio.bucket-name", buckets[0]);
+        }
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE_NAME, properties));
+        context.getBeanFactory().registerSingleton("embeddedS3Server", server);
+        context.addApplicationListener((ApplicationListener<ContextClosedEvent>) event -> server.close());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EmbeddedS3ContextCustomizer that = (EmbeddedS3ContextCustomizer) o;
+        return verifySignatures == that.verifySignatures && Arrays.equals(buckets, that.buckets);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(buckets) + Boolean.hashCode(verifySignatures);
+    }
+}
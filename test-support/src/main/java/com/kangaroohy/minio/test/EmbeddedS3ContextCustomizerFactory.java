@@ -0,0 +1,25 @@
+package com.kangaroohy.minio.test;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+
+import java.util.List;
+
+/**
+ * 类 EmbeddedS3ContextCustomizerFactory 功能描述：<br/>
+ * 测试类标注了 {@link MinioTest} 时，为测试上下文启动 EmbeddedS3Server
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 11:30
+ */
+public class EmbeddedS3ContextCustomizerFactory implements ContextCustomizerFactory {
+
+    @Override
+    public ContextCustomizer createContextCustomizer(Class<?> testClass, List<ContextConfigurationAttributes> configAttributes) {
+        MinioTest minioTest = AnnotatedElementUtils.findMergedAnnotation(testClass, MinioTest.class);
+        return minioTest == null ? null : new EmbeddedS3ContextCustomizer(minioTest.buckets(), minioTest.verifySignatures());
+    }
+}
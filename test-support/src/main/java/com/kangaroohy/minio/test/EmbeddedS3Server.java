@@ -0,0 +1,881 @@
+package com.kangaroohy.minio.test;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 类 EmbeddedS3Server 功能描述：<br/>
+ * 进程内的 S3 兼容服务，数据保存在内存中，用于无网络、无 Docker 环境下的集成测试与压测。<br/>
+ * 支持：bucket 创建/删除/存在判断/列表/访问策略，对象上传/下载（含 Range、If-Match、If-None-Match）/元数据/删除/复制，
+ * ListObjectsV2，分片上传 初始化/上传/列表/合并/取消，批量删除，SigV4 请求头签名及预签名地址校验，/minio/health/* 探活；
+ * 可通过 {@link #getFaults()} 注入延迟、带宽上限与错误
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 10:10
+ */
+public class EmbeddedS3Server implements AutoCloseable {
+
+    public static final String DEFAULT_ACCESS_KEY = "minioadmin";
+
+    public static final String DEFAULT_SECRET_KEY = "minioadmin";
+
+    public static final String DEFAULT_REGION = "us-east-1";
+
+    private static final String XMLNS = " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"";
+
+    private static final DateTimeFormatter ISO_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static final Pattern PART_PATTERN = Pattern.compile("<Part>\\s*<PartNumber>(\\d+)</PartNumber>\\s*<ETag>([^<]*)</ETag>", Pattern.DOTALL);
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("<Object>\\s*<Key>([^<]*)</Key>", Pattern.DOTALL);
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * MinIO 探活接口，无需签名
+     */
+    private static final String HEALTH_PATH = "/minio/health/";
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final ConcurrentHashMap<String, BucketData> buckets = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private final FaultInjection faults = new FaultInjection();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final String region;
+
+    private final SignatureVerifier signatureVerifier;
+
+    private volatile boolean verifySignatures = true;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    public EmbeddedS3Server() {
+        this(DEFAULT_ACCESS_KEY, DEFAULT_SECRET_KEY, DEFAULT_REGION);
+    }
+
+    public EmbeddedS3Server(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+        this.signatureVerifier = new SignatureVerifier(accessKey, secretKey);
+    }
+
+    /**
+     * 在本机随机端口启动
+     */
+    public synchronized EmbeddedS3Server start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * 在本机指定端口启动
+     *
+     * @param port 端口，0 表示随机
+     */
+    public synchronized EmbeddedS3Server start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("server already started");
+        }
+        // JDK HttpServer 默认未开启 TCP_NODELAY，小响应会被延迟确认拖慢约 40ms，需在首次创建前设置
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-s3-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public String getEndpoint() {
+        if (server == null) {
+            throw new IllegalStateException("server not started");
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public FaultInjection getFaults() {
+        return faults;
+    }
+
+    /**
+     * 是否校验签名，默认校验；压测客户端时可关闭以减少服务端开销
+     */
+    public EmbeddedS3Server setVerifySignatures(boolean verifySignatures) {
+        this.verifySignatures = verifySignatures;
+        return this;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    /**
+     * 直接创建 bucket，不经过 HTTP
+     */
+    public EmbeddedS3Server createBucket(String bucketName) {
+        buckets.putIfAbsent(bucketName, new BucketData());
+        return this;
+    }
+
+    /**
+     * 直接写入文件，不经过 HTTP
+     */
+    public EmbeddedS3Server putObject(String bucketName, String objectName, byte[] data) {
+        buckets.computeIfAbsent(bucketName, name -> new BucketData())
+                .objects.put(objectName, new StoredObject(data, md5Etag(data), "application/octet-stream", Collections.emptyMap()));
+        return this;
+    }
+
+    /**
+     * 直接读取文件内容，不存在时返回 null
+     */
+    public byte[] getObject(String bucketName, String objectName) {
+        BucketData bucket = buckets.get(bucketName);
+        StoredObject object = bucket == null ? null : bucket.objects.get(objectName);
+        return object == null ? null : object.data;
+    }
+
+    public Set<String> listObjectNames(String bucketName) {
+        BucketData bucket = buckets.get(bucketName);
+        return bucket == null ? Collections.emptySet() : Collections.unmodifiableSet(bucket.objects.keySet());
+    }
+
+    /**
+     * 未完成的分片上传数量
+     */
+    public int getUploadCount() {
+        return uploads.size();
+    }
+
+    /**
+     * 清空所有数据、计数及故障配置
+     */
+    public void reset() {
+        buckets.clear();
+        uploads.clear();
+        faults.reset();
+        requestCount.set(0);
+        injectedErrorCount.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            faults.delay();
+            URI uri = exchange.getRequestURI();
+            String rawPath = uri.getRawPath();
+            String rawQuery = uri.getRawQuery();
+            byte[] body = readBody(exchange.getRequestBody(), start);
+            Request request = new Request(exchange, rawPath, rawQuery, body, start);
+            if (rawPath.startsWith(HEALTH_PATH)) {
+                send(request, 200, null);
+                return;
+            }
+            if (faults.shouldFail()) {
+                injectedErrorCount.incrementAndGet();
+                int status = faults.getErrorStatus();
+                throw new S3Exception(status, status == 503 ? "SlowDown" : "InternalError", "Injected failure");
+            }
+            if (verifySignatures) {
+                signatureVerifier.verify(exchange.getRequestMethod(), rawPath, rawQuery, exchange.getRequestHeaders(), body);
+            }
+            dispatch(request);
+        } catch (S3Exception e) {
+            sendError(exchange, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            sendError(exchange, new S3Exception(500, "InternalError", String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void dispatch(Request request) throws S3Exception, IOException, InterruptedException {
+        String method = request.method;
+        if (request.bucket.isEmpty()) {
+            if ("GET".equals(method)) {
+                listBuckets(request);
+                return;
+            }
+            throw S3Exception.notImplemented(method + " /");
+        }
+        if (request.key.isEmpty()) {
+            dispatchBucket(request, method);
+        } else {
+            dispatchObject(request, method);
+        }
+    }
+
+    private void dispatchBucket(Request request, String method) throws S3Exception, IOException, InterruptedException {
+        Map<String, String> query = request.query;
+        if (query.containsKey("location")) {
+            bucket(request.bucket);
+            sendXml(request, 200, "<LocationConstraint" + XMLNS + ">" + region + "</LocationConstraint>");
+        } else if (query.containsKey("policy")) {
+            bucketPolicy(request, method);
+        } else if (query.containsKey("uploads")) {
+            listMultipartUploads(request);
+        } else if (query.containsKey("delete") && "POST".equals(method)) {
+            deleteObjects(request);
+        } else if ("GET".equals(method) && "2".equals(query.get("list-type"))) {
+            listObjectsV2(request);
+        } else if ("HEAD".equals(method)) {
+            bucket(request.bucket);
+            send(request, 200, null);
+        } else if ("PUT".equals(method) && query.isEmpty()) {
+            if (buckets.putIfAbsent(request.bucket, new BucketData()) != null) {
+                throw new S3Exception(409, "BucketAlreadyOwnedByYou", "Your previous request to create the named bucket succeeded and you already own it.");
+            }
+            request.exchange.getResponseHeaders().add("Location", "/" + request.bucket);
+            send(request, 200, null);
+        } else if ("DELETE".equals(method) && query.isEmpty()) {
+            BucketData bucket = bucket(request.bucket);
+            if (!bucket.objects.isEmpty()) {
+                throw new S3Exception(409, "BucketNotEmpty", "The bucket you tried to delete is not empty");
+            }
+            buckets.remove(request.bucket);
+            send(request, 204, null);
+        } else {
+            throw S3Exception.notImplemented(method + " bucket " + query.keySet());
+        }
+    }
+
+    private void dispatchObject(Request request, String method) throws S3Exception, IOException, InterruptedException {
+        Map<String, String> query = request.query;
+        String uploadId = query.get("uploadId");
+        if ("POST".equals(method) && query.containsKey("uploads")) {
+            createMultipartUpload(request);
+        } else if (uploadId != null) {
+            switch (method) {
+                case "PUT":
+                    uploadPart(request, uploadId);
+                    break;
+                case "GET":
+                    listParts(request, uploadId);
+                    break;
+                case "POST":
+                    completeMultipartUpload(request, uploadId);
+                    break;
+                case "DELETE":
+                    upload(uploadId);
+                    uploads.remove(uploadId);
+                    send(request, 204, null);
+                    break;
+                default:
+                    throw S3Exception.notImplemented(method + " multipart");
+            }
+        } else if (!query.isEmpty() && !query.containsKey("versionId")) {
+            throw S3Exception.notImplemented(method + " object " + query.keySet());
+        } else if ("PUT".equals(method)) {
+            putObject(request);
+        } else if ("GET".equals(method) || "HEAD".equals(method)) {
+            getObject(request, "HEAD".equals(method));
+        } else if ("DELETE".equals(method)) {
+            bucket(request.bucket).objects.remove(request.key);
+            send(request, 204, null);
+        } else {
+            throw S3Exception.notImplemented(method + " object");
+        }
+    }
+
+    private void listBuckets(Request request) throws IOException, InterruptedException {
+        StringBuilder xml = new StringBuilder("<ListAllMyBucketsResult").append(XMLNS).append("><Owner><ID>").append(accessKey)
+                .append("</ID><DisplayName>").append(accessKey).append("</DisplayName></Owner><Buckets>");
+        new TreeMap<>(buckets).forEach((name, bucket) -> xml.append("<Bucket><Name>").append(name).append("</Name><CreationDate>")
+                .append(ISO_FORMAT.format(bucket.created)).append("</CreationDate></Bucket>"));
+        sendXml(request, 200, xml.append("</Buckets></ListAllMyBucketsResult>").toString());
+    }
+
+    private void bucketPolicy(Request request, String method) throws S3Exception, IOException, InterruptedException {
+        BucketData bucket = bucket(request.bucket);
+        switch (method) {
+            case "PUT":
+                bucket.policy = new String(request.body, StandardCharsets.UTF_8);
+                send(request, 204, null);
+                break;
+            case "DELETE":
+                bucket.policy = null;
+                send(request, 204, null);
+                break;
+            default:
+                if (bucket.policy == null) {
+                    throw new S3Exception(404, "NoSuchBucketPolicy", "The bucket policy does not exist");
+                }
+                request.exchange.getResponseHeaders().add("Content-Type", "application/json");
+                send(request, 200, bucket.policy.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void listObjectsV2(Request request) throws S3Exception, IOException, InterruptedException {
+        BucketData bucket = bucket(request.bucket);
+        Map<String, String> query = request.query;
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.get("delimiter");
+        int maxKeys = Math.min(1000, Integer.parseInt(query.getOrDefault("max-keys", "1000")));
+        String token = query.get("continuation-token");
+        String marker = token != null ? new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8) : query.getOrDefault("start-after", "");
+        boolean grouping = delimiter != null && !delimiter.isEmpty();
+        StringBuilder contents = new StringBuilder();
+        StringBuilder commonPrefixes = new StringBuilder();
+        int count = 0;
+        String last = null;
+        // 从公共前缀之后继续时，需跳过该前缀下的其余 key
+        String skipPrefix = grouping && token != null && marker.endsWith(delimiter) ? marker : null;
+        boolean truncated = false;
+        NavigableMap<String, StoredObject> candidates = marker.compareTo(prefix) > 0
+                ? bucket.objects.tailMap(marker, false) : bucket.objects.tailMap(prefix, true);
+        for (Map.Entry<String, StoredObject> entry : candidates.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (skipPrefix != null && key.startsWith(skipPrefix)) {
+                continue;
+            }
+            String commonPrefix = null;
+            if (grouping) {
+                int index = key.indexOf(delimiter, prefix.length());
+                if (index >= 0) {
+                    commonPrefix = key.substring(0, index + delimiter.length());
+                }
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (commonPrefix != null) {
+                commonPrefixes.append("<CommonPrefixes><Prefix>").append(escape(commonPrefix)).append("</Prefix></CommonPrefixes>");
+                last = commonPrefix;
+                skipPrefix = commonPrefix;
+            } else {
+                StoredObject object = entry.getValue();
+                contents.append("<Contents><Key>").append(escape(key)).append("</Key><LastModified>").append(ISO_FORMAT.format(object.lastModified))
+                        .append("</LastModified><ETag>&quot;").append(object.etag).append("&quot;</ETag><Size>").append(object.data.length)
+                        .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+                last = key;
+            }
+            count++;
+        }
+        StringBuilder xml = new StringBuilder("<ListBucketResult").append(XMLNS).append("><Name>").append(request.bucket)
+                .append("</Name><Prefix>").append(escape(prefix)).append("</Prefix>");
+        if (delimiter != null) {
+            xml.append("<Delimiter>").append(escape(delimiter)).append("</Delimiter>");
+        }
+        xml.append("<MaxKeys>").append(maxKeys).append("</MaxKeys><KeyCount>").append(count).append("</KeyCount><IsTruncated>")
+                .append(truncated).append("</IsTruncated>");
+        if (token != null) {
+            xml.append("<ContinuationToken>").append(token).append("</ContinuationToken>");
+        }
+        if (truncated) {
+            xml.append("<NextContinuationToken>")
+                    .append(Base64.getUrlEncoder().encodeToString(last.getBytes(StandardCharsets.UTF_8)))
+                    .append("</NextContinuationToken>");
+        }
+        sendXml(request, 200, xml.append(contents).append(commonPrefixes).append("</ListBucketResult>").toString());
+    }
+
+    private void deleteObjects(Request request) throws S3Exception, IOException, InterruptedException {
+        BucketData bucket = bucket(request.bucket);
+        String body = new String(request.body, StandardCharsets.UTF_8);
+        boolean quiet = body.contains("<Quiet>true</Quiet>");
+        StringBuilder xml = new StringBuilder("<DeleteResult").append(XMLNS).append(">");
+        Matcher matcher = KEY_PATTERN.matcher(body);
+        int count = 0;
+        while (matcher.find()) {
+            if (++count > 1000) {
+                throw new S3Exception(400, "MalformedXML", "The request must contain no more than 1000 keys");
+            }
+            String key = unescape(matcher.group(1));
+            bucket.objects.remove(key);
+            if (!quiet) {
+                xml.append("<Deleted><Key>").append(escape(key)).append("</Key></Deleted>");
+            }
+        }
+        sendXml(request, 200, xml.append("</DeleteResult>").toString());
+    }
+
+    private void putObject(Request request) throws S3Exception, IOException, InterruptedException {
+        BucketData bucket = bucket(request.bucket);
+        Headers headers = request.exchange.getRequestHeaders();
+        String copySource = headers.getFirst("x-amz-copy-source");
+        StoredObject object;
+        if (copySource != null) {
+            String source = decode(copySource.startsWith("/") ? copySource.substring(1) : copySource);
+            int slash = source.indexOf('/');
+            if (slash < 0) {
+                throw S3Exception.invalidArgument("Invalid copy source: " + copySource);
+            }
+            StoredObject sourceObject = bucket(source.substring(0, slash)).objects.get(source.substring(slash + 1));
+            if (sourceObject == null) {
+                throw S3Exception.noSuchKey(source.substring(slash + 1));
+            }
+            object = "REPLACE".equals(headers.getFirst("x-amz-metadata-directive"))
+                    ? new StoredObject(sourceObject.data, sourceObject.etag, contentType(headers), userMetadata(headers))
+                    : new StoredObject(sourceObject.data, sourceObject.etag, sourceObject.contentType, sourceObject.metadata);
+            bucket.objects.put(request.key, object);
+            sendXml(request, 200, "<CopyObjectResult" + XMLNS + "><LastModified>" + ISO_FORMAT.format(object.lastModified)
+                    + "</LastModified><ETag>&quot;" + object.etag + "&quot;</ETag></CopyObjectResult>");
+            return;
+        }
+        object = new StoredObject(request.body, md5Etag(request.body), contentType(headers), userMetadata(headers));
+        bucket.objects.put(request.key, object);
+        request.exchange.getResponseHeaders().add("ETag", "\"" + object.etag + "\"");
+        send(request, 200, null);
+    }
+
+    private void getObject(Request request, boolean head) throws S3Exception, IOException, InterruptedException {
+        StoredObject object = bucket(request.bucket).objects.get(request.key);
+        if (object == null) {
+            throw S3Exception.noSuchKey(request.key);
+        }
+        Headers requestHeaders = request.exchange.getRequestHeaders();
+        String ifMatch = requestHeaders.getFirst("If-Match");
+        if (ifMatch != null && !ifMatch.replace("\"", "").equals(object.etag)) {
+            throw new S3Exception(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+        }
+        Headers headers = request.exchange.getResponseHeaders();
+        headers.add("ETag", "\"" + object.etag + "\"");
+        String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.replace("\"", "").equals(object.etag)) {
+            request.exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        headers.add("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified));
+        headers.add("Content-Type", object.contentType);
+        headers.add("Accept-Ranges", "bytes");
+        object.metadata.forEach((name, value) -> headers.add("x-amz-meta-" + name, value));
+        // 偏移按 long 解析，超过 2GB 或文件长度的 Range 返回 416 而不是解析失败
+        long from = 0;
+        long to = object.data.length - 1;
+        int status = 200;
+        String range = requestHeaders.getFirst("Range");
+        if (range != null) {
+            Matcher matcher = RANGE_PATTERN.matcher(range);
+            if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+                throw S3Exception.invalidArgument("Invalid range: " + range);
+            }
+            if (matcher.group(1).isEmpty()) {
+                from = Math.max(0, object.data.length - rangeValue(matcher.group(2)));
+            } else {
+                from = rangeValue(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    to = Math.min(to, rangeValue(matcher.group(2)));
+                }
+            }
+            if (from >= object.data.length || from > to) {
+                throw new S3Exception(416, "InvalidRange", "The requested range is not satisfiable");
+            }
+            status = 206;
+            headers.add("Content-Range", "bytes " + from + "-" + to + "/" + object.data.length);
+        }
+        int length = (int) (to - from + 1);
+        if (head) {
+            headers.add("Content-Length", Integer.toString(object.data.length));
+            request.exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        send(request, status, object.data, (int) from, length);
+    }
+
+    /**
+     * Range 中的偏移，超出 long 范围时按 Long.MAX_VALUE 处理
+     */
+    private static long rangeValue(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void createMultipartUpload(Request request) throws S3Exception, IOException, InterruptedException {
+        bucket(request.bucket);
+        Headers headers = request.exchange.getRequestHeaders();
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new Upload(request.bucket, request.key, contentType(headers), userMetadata(headers)));
+        sendXml(request, 200, "<InitiateMultipartUploadResult" + XMLNS + "><Bucket>" + request.bucket + "</Bucket><Key>" + escape(request.key)
+                + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+    }
+
+    private void uploadPart(Request request, String uploadId) throws S3Exception, IOException, InterruptedException {
+        Upload upload = upload(uploadId);
+        int partNumber = partNumber(request.query.get("partNumber"));
+        StoredObject part = new StoredObject(request.body, md5Etag(request.body), null, Collections.emptyMap());
+        upload.parts.put(partNumber, part);
+        request.exchange.getResponseHeaders().add("ETag", "\"" + part.etag + "\"");
+        send(request, 200, null);
+    }
+
+    private void listParts(Request request, String uploadId) throws S3Exception, IOException, InterruptedException {
+        Upload upload = upload(uploadId);
+        int marker = Integer.parseInt(request.query.getOrDefault("part-number-marker", "0"));
+        int maxParts = Math.min(1000, Integer.parseInt(request.query.getOrDefault("max-parts", "1000")));
+        StringBuilder parts = new StringBuilder();
+        int count = 0;
+        int next = marker;
+        boolean truncated = false;
+        for (Map.Entry<Integer, StoredObject> entry : upload.parts.tailMap(marker, false).entrySet()) {
+            if (count == maxParts) {
+                truncated = true;
+                break;
+            }
+            StoredObject part = entry.getValue();
+            parts.append("<Part><PartNumber>").append(entry.getKey()).append("</PartNumber><LastModified>").append(ISO_FORMAT.format(part.lastModified))
+                    .append("</LastModified><ETag>&quot;").append(part.etag).append("&quot;</ETag><Size>").append(part.data.length).append("</Size></Part>");
+            next = entry.getKey();
+            count++;
+        }
+        sendXml(request, 200, "<ListPartsResult" + XMLNS + "><Bucket>" + upload.bucket + "</Bucket><Key>" + escape(upload.key) + "</Key><UploadId>" + uploadId
+                + "</UploadId><Initiator><ID>" + accessKey + "</ID></Initiator><Owner><ID>" + accessKey + "</ID></Owner><StorageClass>STANDARD</StorageClass>"
+                + "<PartNumberMarker>" + marker + "</PartNumberMarker><NextPartNumberMarker>" + next + "</NextPartNumberMarker><MaxParts>" + maxParts
+                + "</MaxParts><IsTruncated>" + truncated + "</IsTruncated>" + parts + "</ListPartsResult>");
+    }
+
+    private void completeMultipartUpload(Request request, String uploadId) throws S3Exception, IOException, InterruptedException {
+        Upload upload = upload(uploadId);
+        Matcher matcher = PART_PATTERN.matcher(new String(request.body, StandardCharsets.UTF_8));
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        MessageDigest md5 = md5();
+        int previous = 0;
+        int count = 0;
+        while (matcher.find()) {
+            int partNumber = Integer.parseInt(matcher.group(1));
+            String etag = unescape(matcher.group(2)).replace("\"", "");
+            StoredObject part = upload.parts.get(partNumber);
+            if (part == null || !part.etag.equals(etag)) {
+                throw new S3Exception(400, "InvalidPart", "One or more of the specified parts could not be found: " + partNumber);
+            }
+            if (partNumber <= previous) {
+                throw new S3Exception(400, "InvalidPartOrder", "The list of parts was not in ascending order.");
+            }
+            data.write(part.data, 0, part.data.length);
+            md5.update(hexToBytes(part.etag));
+            previous = partNumber;
+            count++;
+        }
+        if (count == 0) {
+            throw new S3Exception(400, "MalformedXML", "The XML you provided was not well-formed");
+        }
+        String etag = SignatureVerifier.hex(md5.digest()) + "-" + count;
+        if (uploads.remove(uploadId) == null) {
+            throw S3Exception.noSuchUpload(uploadId);
+        }
+        bucket(upload.bucket).objects.put(upload.key, new StoredObject(data.toByteArray(), etag, upload.contentType, upload.metadata));
+        sendXml(request, 200, "<CompleteMultipartUploadResult" + XMLNS + "><Location>" + getEndpoint() + "/" + upload.bucket + "/" + escape(upload.key)
+                + "</Location><Bucket>" + upload.bucket + "</Bucket><Key>" + escape(upload.key) + "</Key><ETag>&quot;" + etag
+                + "&quot;</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void listMultipartUploads(Request request) throws S3Exception, IOException, InterruptedException {
+        bucket(request.bucket);
+        String prefix = request.query.getOrDefault("prefix", "");
+        int maxUploads = Math.min(1000, Integer.parseInt(request.query.getOrDefault("max-uploads", "1000")));
+        String keyMarker = request.query.getOrDefault("key-marker", "");
+        String uploadIdMarker = request.query.getOrDefault("upload-id-marker", "");
+        List<Map.Entry<String, Upload>> matched = new ArrayList<>();
+        uploads.forEach((uploadId, upload) -> {
+            if (upload.bucket.equals(request.bucket) && upload.key.startsWith(prefix)) {
+                int compare = upload.key.compareTo(keyMarker);
+                if (compare > 0 || compare == 0 && uploadId.compareTo(uploadIdMarker) > 0) {
+                    matched.add(new AbstractMap.SimpleEntry<>(uploadId, upload));
+                }
+            }
+        });
+        matched.sort(Comparator.comparing((Map.Entry<String, Upload> entry) -> entry.getValue().key).thenComparing(Map.Entry::getKey));
+        boolean truncated = matched.size() > maxUploads;
+        List<Map.Entry<String, Upload>> page = truncated ? matched.subList(0, maxUploads) : matched;
+        StringBuilder xml = new StringBuilder("<ListMultipartUploadsResult").append(XMLNS).append("><Bucket>").append(request.bucket)
+                .append("</Bucket><KeyMarker>").append(escape(keyMarker)).append("</KeyMarker><UploadIdMarker>").append(uploadIdMarker)
+                .append("</UploadIdMarker><Prefix>").append(escape(prefix)).append("</Prefix><MaxUploads>").append(maxUploads)
+                .append("</MaxUploads><IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            Map.Entry<String, Upload> last = page.get(page.size() - 1);
+            xml.append("<NextKeyMarker>").append(escape(last.getValue().key)).append("</NextKeyMarker><NextUploadIdMarker>")
+                    .append(last.getKey()).append("</NextUploadIdMarker>");
+        }
+        for (Map.Entry<String, Upload> entry : page) {
+            xml.append("<Upload><Key>").append(escape(entry.getValue().key)).append("</Key><UploadId>").append(entry.getKey())
+                    .append("</UploadId><Initiator><ID>").append(accessKey).append("</ID></Initiator><Owner><ID>").append(accessKey)
+                    .append("</ID></Owner><StorageClass>STANDARD</StorageClass><Initiated>").append(ISO_FORMAT.format(entry.getValue().initiated))
+                    .append("</Initiated></Upload>");
+        }
+        sendXml(request, 200, xml.append("</ListMultipartUploadsResult>").toString());
+    }
+
+    private BucketData bucket(String bucketName) throws S3Exception {
+        BucketData bucket = buckets.get(bucketName);
+        if (bucket == null) {
+            throw S3Exception.noSuchBucket(bucketName);
+        }
+        return bucket;
+    }
+
+    private Upload upload(String uploadId) throws S3Exception {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            throw S3Exception.noSuchUpload(uploadId);
+        }
+        return upload;
+    }
+
+    private static int partNumber(String value) throws S3Exception {
+        try {
+            int partNumber = Integer.parseInt(value);
+            if (partNumber >= 1 && partNumber <= 10000) {
+                return partNumber;
+            }
+        } catch (NumberFormatException e) {
+            // 按参数错误处理
+        }
+        throw S3Exception.invalidArgument("Part number must be an integer between 1 and 10000, inclusive");
+    }
+
+    private static String contentType(Headers headers) {
+        String contentType = headers.getFirst("Content-Type");
+        return contentType == null ? "application/octet-stream" : contentType;
+    }
+
+    private static Map<String, String> userMetadata(Headers headers) {
+        Map<String, String> metadata = new TreeMap<>();
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.US);
+            if (lower.startsWith("x-amz-meta-") && !values.isEmpty()) {
+                metadata.put(lower.substring("x-amz-meta-".length()), values.get(0));
+            }
+        });
+        return metadata;
+    }
+
+    private byte[] readBody(InputStream in, long start) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+            faults.throttle(out.size(), System.nanoTime() - start);
+        }
+        return out.toByteArray();
+    }
+
+    private void sendXml(Request request, int status, String xml) throws IOException, InterruptedException {
+        request.exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        send(request, status, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + xml).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(Request request, int status, byte[] body) throws IOException, InterruptedException {
+        send(request, status, body, 0, body == null ? 0 : body.length);
+    }
+
+    private void send(Request request, int status, byte[] body, int offset, int length) throws IOException, InterruptedException {
+        HttpExchange exchange = request.exchange;
+        exchange.getResponseHeaders().add("x-amz-request-id", Long.toHexString(request.start));
+        if (length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length);
+        long writeStart = System.nanoTime();
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int written = 0; written < length; ) {
+                int chunk = Math.min(BUFFER_SIZE, length - written);
+                out.write(body, offset + written, chunk);
+                written += chunk;
+                faults.throttle(written, System.nanoTime() - writeStart);
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, S3Exception e) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(e.getStatus(), -1);
+            return;
+        }
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>" + e.getCode() + "</Code><Message>" + escape(e.getMessage())
+                + "</Message><Resource>" + escape(path) + "</Resource><RequestId>embedded</RequestId><HostId>embedded</HostId></Error>")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(e.getStatus(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String md5Etag(byte[] data) {
+        return SignatureVerifier.hex(md5().digest(data));
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    static String decode(String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&quot;", "\"").replace("&lt;", "<").replace("&gt;", ">").replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private static final class Request {
+        private final HttpExchange exchange;
+        private final String method;
+        private final String bucket;
+        private final String key;
+        private final Map<String, String> query = new HashMap<>();
+        private final byte[] body;
+        private final long start;
+
+        private Request(HttpExchange exchange, String rawPath, String rawQuery, byte[] body, long start) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            String path = rawPath.startsWith("/") ? rawPath.substring(1) : rawPath;
+            int slash = path.indexOf('/');
+            this.bucket = decode(slash < 0 ? path : path.substring(0, slash));
+            this.key = slash < 0 ? "" : decode(path.substring(slash + 1));
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int index = pair.indexOf('=');
+                    String name = decode(index < 0 ? pair : pair.substring(0, index));
+                    if (!name.startsWith("X-Amz-")) {
+                        query.put(name, index < 0 ? "" : decode(pair.substring(index + 1)));
+                    }
+                }
+            }
+            this.body = body;
+            this.start = start;
+        }
+    }
+
+    private static final class BucketData {
+        private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+        private final ZonedDateTime created = ZonedDateTime.now(ZoneOffset.UTC);
+        private volatile String policy;
+    }
+
+    private static final class StoredObject {
+        private final byte[] data;
+        private final String etag;
+        private final String contentType;
+        private final Map<String, String> metadata;
+        private final ZonedDateTime lastModified = ZonedDateTime.now(ZoneOffset.UTC);
+
+        private StoredObject(byte[] data, String etag, String contentType, Map<String, String> metadata) {
+            this.data = data;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.metadata = metadata;
+        }
+    }
+
+    private static final class Upload {
+        private final String bucket;
+        private final String key;
+        private final String contentType;
+        private final Map<String, String> metadata;
+        private final ConcurrentSkipListMap<Integer, StoredObject> parts = new ConcurrentSkipListMap<>();
+        private final ZonedDateTime initiated = ZonedDateTime.now(ZoneOffset.UTC);
+
+        private Upload(String bucket, String key, String contentType, Map<String, String> metadata) {
+            this.bucket = bucket;
+            this.key = key;
+            this.contentType = contentType;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.kangaroohy.minio.test;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 类 FaultInjection 功能描述：<br/>
+ * EmbeddedS3Server 的故障注入配置：固定延迟 + 随机抖动、单请求带宽上限、按比例返回错误，
+ * 运行中可随时修改，对之后的请求生效
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 09:20
+ */
+public class FaultInjection {
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile Duration latencyJitter = Duration.ZERO;
+
+    private volatile long bandwidth = 0;
+
+    private volatile double errorRate = 0;
+
+    private volatile int errorStatus = 503;
+
+    /**
+     * 每个请求处理前的固定延迟
+     */
+    public FaultInjection setLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * 在固定延迟上追加 [0, jitter) 的随机延迟，用于模拟长尾
+     */
+    public FaultInjection setLatencyJitter(Duration latencyJitter) {
+        this.latencyJitter = latencyJitter;
+        return this;
+    }
+
+    /**
+     * 单个请求读写请求体/响应体的速率上限，单位 字节/秒，0 表示不限制
+     */
+    public FaultInjection setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * 返回错误的请求比例，取值 [0, 1]
+     */
+    public FaultInjection setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("error rate must be in [0, 1]");
+        }
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * 注入错误时的状态码，503 返回 SlowDown，其他返回 InternalError
+     */
+    public FaultInjection setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * 恢复为无故障
+     */
+    public FaultInjection reset() {
+        this.latency = Duration.ZERO;
+        this.latencyJitter = Duration.ZERO;
+        this.bandwidth = 0;
+        this.errorRate = 0;
+        this.errorStatus = 503;
+        return this;
+    }
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public Duration getLatencyJitter() {
+        return latencyJitter;
+    }
+
+    public long getBandwidth() {
+        return bandwidth;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    void delay() throws InterruptedException {
+        long millis = latency.toMillis();
+        long jitter = latencyJitter.toMillis();
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter);
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    boolean shouldFail() {
+        double rate = errorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * 已传输 transferred 字节、耗时 elapsedNanos 时，为满足带宽上限需要等待
+     */
+    void throttle(long transferred, long elapsedNanos) throws InterruptedException {
+        long limit = bandwidth;
+        if (limit <= 0) {
+            return;
+        }
+        long expectedNanos = transferred * 1_000_000_000L / limit;
+        long waitMillis = (expectedNanos - elapsedNanos) / 1_000_000L;
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+    }
+}
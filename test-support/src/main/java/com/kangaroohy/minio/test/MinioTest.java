@@ -0,0 +1,39 @@
+package com.kangaroohy.minio.test;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.OverrideAutoConfiguration;
+import org.springframework.test.context.BootstrapWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.annotation.*;
+
+/**
+ * 类 MinioTest 功能描述：<br/>
+ * MinIO 测试切片：只加载 MinioAutoConfiguration，并在进程内启动 {@link EmbeddedS3Server}，
+ * kangaroohy.minio.* 连接配置自动指向该服务，测试中可直接注入 MinioService 与 EmbeddedS3Server
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 11:20
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@BootstrapWith(MinioTestContextBootstrapper.class)
+@ExtendWith(SpringExtension.class)
+@OverrideAutoConfiguration(enabled = false)
+@ImportAutoConfiguration
+public @interface MinioTest {
+
+    /**
+     * 启动时创建的 bucket，第一个作为默认 bucket（kangaroohy.minio.bucket-name）
+     */
+    String[] buckets() default {"test"};
+
+    /**
+     * 是否校验请求签名
+     */
+    boolean verifySignatures() default true;
+}
@@ -0,0 +1,32 @@
+package com.kangaroohy.minio.test;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.test.context.AnnotatedClassFinder;
+import org.springframework.boot.test.context.SpringBootTestContextBootstrapper;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * 类 MinioTestContextBootstrapper 功能描述：<br/>
+ * 与 SpringBootTestContextBootstrapper 一致，但找不到 @SpringBootConfiguration 时使用空配置，
+ * 便于在没有启动类的模块（如 starter 的使用方类库）中使用 {@link MinioTest}
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 11:40
+ */
+public class MinioTestContextBootstrapper extends SpringBootTestContextBootstrapper {
+
+    @Override
+    protected Class<?>[] getOrFindConfigurationClasses(MergedContextConfiguration mergedConfig) {
+        if (mergedConfig.getClasses().length == 0 && !mergedConfig.hasLocations()
+                && new AnnotatedClassFinder(SpringBootConfiguration.class).findFromClass(mergedConfig.getTestClass()) == null) {
+            return new Class<?>[]{EmptyConfiguration.class};
+        }
+        return super.getOrFindConfigurationClasses(mergedConfig);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class EmptyConfiguration {
+    }
+}
@@ -0,0 +1,58 @@
+package com.kangaroohy.minio.test;
+
+/**
+ * 类 S3Exception 功能描述：<br/>
+ * 请求处理失败，按 S3 错误格式返回给客户端
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 09:30
+ */
+class S3Exception extends Exception {
+
+    private final int status;
+
+    private final String code;
+
+    S3Exception(int status, String code, String message) {
+        super(message);
+        this.status = status;
+        this.code = code;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getCode() {
+        return code;
+    }
+
+    static S3Exception noSuchBucket(String bucketName) {
+        return new S3Exception(404, "NoSuchBucket", "The specified bucket does not exist: " + bucketName);
+    }
+
+    static S3Exception noSuchKey(String objectName) {
+        return new S3Exception(404, "NoSuchKey", "The specified key does not exist: " + objectName);
+    }
+
+    static S3Exception noSuchUpload(String uploadId) {
+        return new S3Exception(404, "NoSuchUpload", "The specified multipart upload does not exist: " + uploadId);
+    }
+
+    static S3Exception accessDenied(String message) {
+        return new S3Exception(403, "AccessDenied", message);
+    }
+
+    static S3Exception signatureDoesNotMatch() {
+        return new S3Exception(403, "SignatureDoesNotMatch", "The request signature we calculated does not match the signature you provided.");
+    }
+
+    static S3Exception invalidArgument(String message) {
+        return new S3Exception(400, "InvalidArgument", message);
+    }
+
+    static S3Exception notImplemented(String message) {
+        return new S3Exception(501, "NotImplemented", message);
+    }
+}
@@ -0,0 +1,234 @@
+package com.kangaroohy.minio.test;
+
+import com.sun.net.httpserver.Headers;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * 类 SignatureVerifier 功能描述：<br/>
+ * AWS SigV4 校验，支持 Authorization 请求头签名与预签名地址（query 签名），
+ * 规范化方式与 minio java sdk 一致
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/27 09:45
+ */
+class SignatureVerifier {
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'", Locale.US).withZone(ZoneOffset.UTC);
+
+    /**
+     * 请求头签名允许的时钟偏差
+     */
+    private static final Duration MAX_SKEW = Duration.ofMinutes(15);
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    SignatureVerifier(String accessKey, String secretKey) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * 校验签名
+     *
+     * @param method   请求方法
+     * @param rawPath  编码后的路径
+     * @param rawQuery 编码后的 query，可能为 null
+     * @param headers  请求头
+     * @param body     请求体
+     */
+    void verify(String method, String rawPath, String rawQuery, Headers headers, byte[] body) throws S3Exception {
+        Map<String, String> query = parseQuery(rawQuery);
+        String authorization = headers.getFirst("Authorization");
+        if (authorization != null) {
+            verifyHeader(method, rawPath, rawQuery, headers, body, authorization);
+        } else if (query.containsKey("X-Amz-Signature")) {
+            verifyPresigned(method, rawPath, rawQuery, headers, query);
+        } else {
+            throw S3Exception.accessDenied("Anonymous access is not allowed");
+        }
+    }
+
+    private void verifyHeader(String method, String rawPath, String rawQuery, Headers headers, byte[] body, String authorization) throws S3Exception {
+        if (!authorization.startsWith(ALGORITHM + " ")) {
+            throw S3Exception.invalidArgument("Unsupported authorization type");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (String field : authorization.substring(ALGORITHM.length() + 1).split(",")) {
+            int index = field.indexOf('=');
+            if (index > 0) {
+                fields.put(field.substring(0, index).trim(), field.substring(index + 1).trim());
+            }
+        }
+        String credential = fields.get("Credential");
+        String signedHeaders = fields.get("SignedHeaders");
+        String signature = fields.get("Signature");
+        String amzDate = headers.getFirst("x-amz-date");
+        String contentSha256 = headers.getFirst("x-amz-content-sha256");
+        if (credential == null || signedHeaders == null || signature == null || amzDate == null || contentSha256 == null) {
+            throw S3Exception.accessDenied("Malformed authorization header");
+        }
+        ZonedDateTime date = parseDate(amzDate);
+        if (Duration.between(date, ZonedDateTime.now(ZoneOffset.UTC)).abs().compareTo(MAX_SKEW) > 0) {
+            throw new S3Exception(403, "RequestTimeTooSkewed", "The difference between the request time and the server's time is too large.");
+        }
+        if (contentSha256.startsWith("STREAMING-")) {
+            throw S3Exception.notImplemented("Streaming signature is not supported");
+        }
+        if (!UNSIGNED_PAYLOAD.equals(contentSha256) && !contentSha256.equals(hex(sha256(body)))) {
+            throw new S3Exception(400, "XAmzContentSHA256Mismatch", "The provided 'x-amz-content-sha256' header does not match what was computed.");
+        }
+        String scope = scope(credential);
+        String canonicalRequest = canonicalRequest(method, rawPath, canonicalQuery(rawQuery, false), headers, signedHeaders, contentSha256);
+        check(signature, amzDate, scope, canonicalRequest);
+    }
+
+    private void verifyPresigned(String method, String rawPath, String rawQuery, Headers headers, Map<String, String> query) throws S3Exception {
+        if (!ALGORITHM.equals(query.get("X-Amz-Algorithm"))) {
+            throw S3Exception.invalidArgument("Unsupported signature algorithm");
+        }
+        String amzDate = query.get("X-Amz-Date");
+        String expires = query.get("X-Amz-Expires");
+        String credential = query.get("X-Amz-Credential");
+        String signedHeaders = query.get("X-Amz-SignedHeaders");
+        if (amzDate == null || expires == null || credential == null || signedHeaders == null) {
+            throw S3Exception.accessDenied("Malformed presigned url");
+        }
+        ZonedDateTime date = parseDate(amzDate);
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        if (date.minus(MAX_SKEW).isAfter(now)) {
+            throw S3Exception.accessDenied("Request is not valid yet");
+        }
+        if (date.plusSeconds(Long.parseLong(expires)).isBefore(now)) {
+            throw S3Exception.accessDenied("Request has expired");
+        }
+        String scope = scope(credential);
+        String canonicalRequest = canonicalRequest(method, rawPath, canonicalQuery(rawQuery, true), headers, signedHeaders, UNSIGNED_PAYLOAD);
+        check(query.get("X-Amz-Signature"), amzDate, scope, canonicalRequest);
+    }
+
+    private void check(String signature, String amzDate, String scope, String canonicalRequest) throws S3Exception {
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        String[] parts = scope.split("/");
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), parts[0]);
+        key = hmac(key, parts[1]);
+        key = hmac(key, parts[2]);
+        key = hmac(key, parts[3]);
+        String expected = hex(hmac(key, stringToSign));
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), signature.getBytes(StandardCharsets.UTF_8))) {
+            throw S3Exception.signatureDoesNotMatch();
+        }
+    }
+
+    /**
+     * Credential 为 accessKey/日期/region/s3/aws4_request，返回 accessKey 之后的部分
+     */
+    private String scope(String credential) throws S3Exception {
+        int index = credential.indexOf('/');
+        if (index < 0 || !credential.substring(0, index).equals(accessKey)) {
+            throw new S3Exception(403, "InvalidAccessKeyId", "The access key Id you provided does not exist in our records.");
+        }
+        String scope = credential.substring(index + 1);
+        if (scope.split("/").length != 4) {
+            throw S3Exception.accessDenied("Malformed credential scope");
+        }
+        return scope;
+    }
+
+    private static String canonicalRequest(String method, String rawPath, String canonicalQuery, Headers headers,
+                                           String signedHeaders, String contentSha256) {
+        StringBuilder builder = new StringBuilder()
+                .append(method).append('\n')
+                .append(rawPath).append('\n')
+                .append(canonicalQuery).append('\n');
+        for (String name : signedHeaders.split(";")) {
+            List<String> values = headers.get(name);
+            String value = values == null ? "" : String.join(",", values).replaceAll("( +)", " ");
+            builder.append(name).append(':').append(value).append('\n');
+        }
+        return builder.append('\n').append(signedHeaders).append('\n').append(contentSha256).toString();
+    }
+
+    /**
+     * 按 key 排序（值保持原有顺序），与 sdk 一致；预签名时去掉签名本身
+     */
+    private static String canonicalQuery(String rawQuery, boolean presigned) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String[]> params = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            String[] tokens = pair.split("=");
+            if (presigned && "X-Amz-Signature".equals(tokens[0])) {
+                continue;
+            }
+            params.add(new String[]{tokens[0], tokens.length > 1 ? tokens[1] : ""});
+        }
+        params.sort(Comparator.comparing(param -> param[0]));
+        StringJoiner joiner = new StringJoiner("&");
+        params.forEach(param -> joiner.add(param[0] + "=" + param[1]));
+        return joiner.toString();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int index = pair.indexOf('=');
+                query.put(index < 0 ? pair : pair.substring(0, index), index < 0 ? "" : EmbeddedS3Server.decode(pair.substring(index + 1)));
+            }
+        }
+        return query;
+    }
+
+    private static ZonedDateTime parseDate(String amzDate) throws S3Exception {
+        try {
+            return ZonedDateTime.parse(amzDate, AMZ_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw S3Exception.accessDenied("Malformed date: " + amzDate);
+        }
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
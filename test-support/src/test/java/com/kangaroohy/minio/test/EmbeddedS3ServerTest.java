@@ -0,0 +1,209 @@
+package com.kangaroohy.minio.test;
+
+import com.kangaroohy.minio.configuration.MinioProperties;
+import com.kangaroohy.minio.entity.MultiPartUploadInfo;
+import com.kangaroohy.minio.service.MinioService;
+import com.kangaroohy.minio.service.ReactiveMinioService;
+import com.kangaroohy.minio.service.cache.DiskObjectCache;
+import com.kangaroohy.minio.service.cache.ObjectCache;
+import com.kangaroohy.minio.service.cache.OffHeapObjectCache;
+import com.kangaroohy.minio.service.client.ExtendMinioAsyncClient;
+import com.kangaroohy.minio.service.client.MinioClientProviderImpl;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类 EmbeddedS3ServerTest 功能描述：<br/>
+ * 以进程内 S3 服务对 starter 做冒烟测试：分片上传、并行下载、缓存失效、响应式读写、预签名分片直传及超过 2GB 的 Range
+ *
+ * @author kangaroo hy
+ * @version 0.0.1
+ * @date 2024/6/28 19:25
+ */
+class EmbeddedS3ServerTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private static final String BUCKET = "bkt";
+
+    private EmbeddedS3Server server;
+
+    private OkHttpClient httpClient;
+
+    private MinioProperties properties;
+
+    private MinioClient minioClient;
+
+    private ExtendMinioAsyncClient minioAsyncClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new EmbeddedS3Server().start().createBucket(BUCKET);
+        httpClient = new OkHttpClient();
+        properties = new MinioProperties();
+        properties.setEndpoint(server.getEndpoint());
+        properties.setAccessKey(server.getAccessKey());
+        properties.setSecretKey(server.getSecretKey());
+        properties.setBucketName(BUCKET);
+        MinioClientProviderImpl provider = new MinioClientProviderImpl(httpClient, Duration.ZERO);
+        minioClient = provider.getClient(server.getEndpoint(), server.getAccessKey(), server.getSecretKey());
+        minioAsyncClient = provider.getAsyncClient(server.getEndpoint(), server.getAccessKey(), server.getSecretKey());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    @Test
+    void parallelUploadAndRangedDownload(@TempDir Path directory) throws Exception {
+        MinioService minioService = new MinioService(properties, minioAsyncClient, minioClient, null);
+        byte[] data = content(1, 12 * MB + 123);
+        minioService.putObjectParallel(BUCKET, "big.bin", new ByteArrayInputStream(data));
+        assertArrayEquals(data, server.getObject(BUCKET, "big.bin"));
+        assertEquals(0, server.getUploadCount());
+
+        Path target = directory.resolve("big.bin");
+        assertEquals(data.length, minioService.downloadObject(BUCKET, "big.bin", target, MB, 4).size());
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 1100), read(minioService.getObject(BUCKET, "big.bin", 1000, 100L)));
+    }
+
+    @Test
+    void cachesServeHitsAndAreInvalidatedByWrites(@TempDir Path directory) throws Exception {
+        try (DiskObjectCache diskCache = new DiskObjectCache(directory, MB, MB, 60000)) {
+            OffHeapObjectCache memoryCache = new OffHeapObjectCache(MB, 64 * 1024, 0);
+            MinioService minioService = new MinioService(properties, minioAsyncClient, minioClient, null, diskCache, memoryCache);
+            server.putObject(BUCKET, "conf.json", "{\"v\":1}".getBytes());
+            assertEquals("{\"v\":1}", new String(read(minioService.getObject(BUCKET, "conf.json"))));
+
+            long requests = server.getRequestCount();
+            assertEquals("{\"v\":1}", new String(read(minioService.getObject(BUCKET, "conf.json"))));
+            assertEquals(requests, server.getRequestCount());
+            assertEquals(1, memoryCache.getHitCount());
+
+            minioService.putObject(BUCKET, "conf.json", new ByteArrayInputStream("{\"v\":2}".getBytes()));
+            assertEquals("{\"v\":2}", new String(read(minioService.getObject(BUCKET, "conf.json"))));
+
+            List<ObjectCache> caches = Arrays.asList(memoryCache, diskCache);
+            ReactiveMinioService reactiveMinioService = new ReactiveMinioService(properties, minioAsyncClient,
+                    DefaultDataBufferFactory.sharedInstance, caches);
+            reactiveMinioService.putObject(BUCKET, "conf.json", "application/json", buffers("{\"v\":3}".getBytes(), 3)).block();
+            assertEquals("{\"v\":3}", new String(read(minioService.getObject(BUCKET, "conf.json"))));
+        }
+    }
+
+    @Test
+    void reactiveMultipartUploadAndStreamingDownload() throws Exception {
+        ReactiveMinioService reactiveMinioService = new ReactiveMinioService(properties, minioAsyncClient);
+        byte[] data = content(2, 11 * MB + 7);
+        reactiveMinioService.putObject(BUCKET, "reactive.bin", null, buffers(data, 64 * 1024), 5 * MB, 2).block();
+        assertArrayEquals(data, server.getObject(BUCKET, "reactive.bin"));
+        assertEquals(0, server.getUploadCount());
+
+        byte[] downloaded = DataBufferUtils.join(reactiveMinioService.getObject(BUCKET, "reactive.bin"))
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+        assertArrayEquals(data, downloaded);
+        assertEquals(1, reactiveMinioService.listObjects(BUCKET, "reactive", true).count().block());
+    }
+
+    @Test
+    void presignedPartsAreUploadedDirectlyAndMerged() throws Exception {
+        MinioService minioService = new MinioService(properties, minioAsyncClient, minioClient, null);
+        MultiPartUploadInfo info = minioService.getPresignedMultipartUploadUrls(BUCKET, null, "direct.bin", 2, null);
+        byte[] data = content(3, 5 * MB + 1000);
+        byte[][] parts = {Arrays.copyOfRange(data, 0, 5 * MB), Arrays.copyOfRange(data, 5 * MB, data.length)};
+        Map<Integer, String> etags = new HashMap<>();
+        for (int i = 0; i < parts.length; i++) {
+            Request request = new Request.Builder().url(info.getUploadUrls().get(i)).put(RequestBody.create(parts[i], null)).build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                assertEquals(200, response.code());
+                etags.put(i + 1, response.header("ETag"));
+            }
+        }
+        assertEquals(Arrays.asList(1, 2), minioService.listUploadMultiPart(BUCKET, "direct.bin", info.getUploadId()));
+        minioService.mergeMultiPartUpload(BUCKET, "direct.bin", info.getUploadId(), etags);
+        assertArrayEquals(data, server.getObject(BUCKET, "direct.bin"));
+        assertEquals(0, server.getUploadCount());
+    }
+
+    @Test
+    void rangesBeyondTwoGigabytesAreParsed() throws Exception {
+        byte[] data = content(4, 1000);
+        server.putObject(BUCKET, "small.bin", data);
+        ErrorResponseException e = assertThrows(ErrorResponseException.class, () -> minioClient.getObject(GetObjectArgs.builder()
+                .bucket(BUCKET).object("small.bin").offset(3_000_000_000L).build()));
+        assertEquals(416, e.response().code());
+        assertEquals("InvalidRange", e.errorResponse().code());
+
+        assertArrayEquals(Arrays.copyOfRange(data, 10, 1000), read(minioClient.getObject(GetObjectArgs.builder()
+                .bucket(BUCKET).object("small.bin").offset(10L).length(5_000_000_000L).build())));
+
+        server.setVerifySignatures(false);
+        Request request = new Request.Builder().url(server.getEndpoint() + "/" + BUCKET + "/small.bin")
+                .header("Range", "bytes=-99999999999999999999").build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            assertEquals(206, response.code());
+            assertArrayEquals(data, response.body().bytes());
+        }
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] data, int size) {
+        return Flux.range(0, (data.length + size - 1) / size)
+                .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(data, i * size, Math.min(data.length, (i + 1) * size))));
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    private static byte[] content(int seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}